@@ -21,7 +21,6 @@ import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.Connector;
-import org.apache.accumulo.core.client.MultiTableBatchWriter;
 import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.TableExistsException;
 import org.apache.accumulo.core.client.TableNotFoundException;
@@ -32,6 +31,7 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.GraphFactory;
 import com.tinkerpop.blueprints.Vertex;
 
+import edu.jhuapl.tinkerpop.mutator.CoalescingMultiTableBatchWriter;
 import edu.jhuapl.tinkerpop.mutator.Mutators;
 import edu.jhuapl.tinkerpop.mutator.edge.EdgeEndpointsMutator;
 import edu.jhuapl.tinkerpop.mutator.edge.EdgeMutator;
@@ -66,7 +66,7 @@ public final class AccumuloBulkIngester {
   /**
    * Parent MTBW for writing mutation into Accumulo.
    */
-  MultiTableBatchWriter mtbw;
+  CoalescingMultiTableBatchWriter mtbw;
 
   /**
    * Writer to the vertex table; child of {@link #mtbw}.
@@ -96,7 +96,9 @@ public final class AccumuloBulkIngester {
 
     AccumuloGraphUtils.handleCreateAndClear(config);
 
-    mtbw = connector.createMultiTableBatchWriter(config.getBatchWriterConfig());
+    mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(config.getBatchWriterConfig()),
+        config.getCoalesceMemory(), config.getMaxWriteLatency());
     vertexWriter = mtbw.getBatchWriter(config.getVertexTableName());
     edgeWriter = mtbw.getBatchWriter(config.getEdgeTableName());
   }
@@ -115,7 +117,7 @@ public final class AccumuloBulkIngester {
    */
   public PropertyBuilder addVertex(String id) throws MutationsRejectedException {
     Mutators.apply(vertexWriter, new AddVertexMutator(id));
-    return new PropertyBuilder(vertexWriter, id);
+    return new PropertyBuilder(vertexWriter, id, config.getSerializerVersion());
   }
 
   /**
@@ -171,9 +173,11 @@ public final class AccumuloBulkIngester {
    * @throws MutationsRejectedException
    */
   public PropertyBuilder addEdge(String id, String src, String dest, String label) throws MutationsRejectedException {
-    Mutators.apply(edgeWriter, new EdgeMutator.Add(id, src, dest, label));
-    Mutators.apply(vertexWriter, new EdgeEndpointsMutator.Add(id, src, dest, label));
-    return new PropertyBuilder(edgeWriter, id);
+    Mutators.apply(edgeWriter, new EdgeMutator.Add(id, src, dest, label,
+        config.getKeyEncoding()));
+    Mutators.apply(vertexWriter, new EdgeEndpointsMutator.Add(id, src, dest, label,
+        config.getAdjacencyLayout(), config.getKeyEncoding()));
+    return new PropertyBuilder(edgeWriter, id, config.getSerializerVersion());
   }
 
   /**
@@ -205,7 +209,18 @@ public final class AccumuloBulkIngester {
    * @throws MutationsRejectedException
    */
   private void addProperty(BatchWriter writer, String id, String key, Object value) throws MutationsRejectedException {
-    Mutators.apply(writer, new WritePropertyMutator(id, key, value));
+    Mutators.apply(writer, new WritePropertyMutator(id, key, value,
+        config.getSerializerVersion()));
+  }
+
+  /**
+   * Mutations added per mutation sent to Accumulo, after
+   * merging those for the same row. See
+   * {@link CoalescingMultiTableBatchWriter}.
+   * @return
+   */
+  public double getCoalescingRatio() {
+    return mtbw.getCoalescingRatio();
   }
 
   /**
@@ -273,10 +288,12 @@ public final class AccumuloBulkIngester {
 
     final String id;
     final BatchWriter writer;
+    final int version;
 
-    PropertyBuilder(BatchWriter writer, String id) {
+    PropertyBuilder(BatchWriter writer, String id, int version) {
       this.writer = writer;
       this.id = id;
+      this.version = version;
     }
 
     /**
@@ -288,7 +305,7 @@ public final class AccumuloBulkIngester {
      * @return
      */
     public PropertyBuilder add(String key, Object value) {
-      for (Mutation m : new WritePropertyMutator(id, key, value).create()) {
+      for (Mutation m : new WritePropertyMutator(id, key, value, version).create()) {
         try {
           writer.addMutation(m);
         } catch (MutationsRejectedException e) {
@@ -20,10 +20,27 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 
+/**
+ * Serializes property values. Two formats are supported:
+ * <ul>
+ * <li>Version 1, the original format, is a type byte
+ * followed by the value's string form.</li>
+ * <li>Version 2 is the {@link #V2} marker byte and a type
+ * byte, followed by a compact binary form. Numbers and dates
+ * are fixed-width and big-endian, with the sign bit flipped,
+ * so that byte order matches numeric order within each type.
+ * Variable-length fields are prefixed by a varint length.</li>
+ * </ul>
+ * {@link #deserialize(byte[])} reads either format.
+ */
 public final class AccumuloByteSerializer {
 
   public static final int NULL = 'n';
@@ -42,6 +59,29 @@ public final class AccumuloByteSerializer {
   public static final int SERIALIZABLE = 'x';
   public static final int QNAME = 'q';
 
+  /**
+   * First byte of version 2 serialized data.
+   * Version 1 data starts with a type byte instead.
+   */
+  public static final int V2 = 0x02;
+
+  /**
+   * Latest serialization version.
+   */
+  public static final int LATEST_VERSION = 2;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /**
+   * Types whose version 2 forms sort in value order. Other
+   * types, including other {@link Number} and {@link Date}
+   * subclasses, are written with Java serialization.
+   */
+  private static final Set<Class<?>> ORDER_PRESERVING = new HashSet<Class<?>>(
+      Arrays.<Class<?>>asList(Byte.class, Short.class, Integer.class, Long.class,
+          Float.class, Double.class, Character.class, Boolean.class,
+          Date.class, String.class));
+
   private AccumuloByteSerializer() {
 
   }
@@ -59,6 +99,10 @@ public final class AccumuloByteSerializer {
       return null;
     }
 
+    if (target[0] == V2) {
+      return (T) deserializeV2(target);
+    }
+
     switch (target[0]) {
       case BYTE:
         return (T) (Byte) Byte.parseByte(new String(target, 1, target.length - 1));
@@ -116,6 +160,55 @@ public final class AccumuloByteSerializer {
     }
   }
 
+  /**
+   * Serialize in the given format version.
+   * @param o
+   * @param version
+   * @return
+   */
+  public static byte[] serialize(Object o, int version) {
+    switch (version) {
+      case 1:
+        return serialize(o);
+      case 2:
+        return serializeV2(o);
+      default:
+        throw new IllegalArgumentException("Unsupported serializer version: " + version);
+    }
+  }
+
+  /**
+   * Serialize in every format version, from
+   * version 1 to {@link #LATEST_VERSION}. Used to look
+   * up or delete entries written in any version.
+   * @param o
+   * @return
+   */
+  public static byte[][] serializeAllVersions(Object o) {
+    byte[][] all = new byte[LATEST_VERSION][];
+    for (int i = 0; i < LATEST_VERSION; i++) {
+      all[i] = serialize(o, i + 1);
+    }
+    return all;
+  }
+
+  /**
+   * Whether the version 2 serialized forms of values
+   * of the given value's type sort in value order.
+   * This holds for primitive wrappers, dates and strings,
+   * but not for other types such as BigDecimal.
+   * @param o
+   * @return
+   */
+  public static boolean isOrderPreserving(Object o) {
+    return o != null && ORDER_PRESERVING.contains(o.getClass());
+  }
+
+  /**
+   * Serialize in the version 1 format.
+   * @param o
+   * @return
+   */
   public static byte[] serialize(Object o) {
     ByteArrayOutputStream bout = BOUTS.get();
 
@@ -192,4 +285,176 @@ public final class AccumuloByteSerializer {
       bout.reset();
     }
   }
+
+  private static byte[] serializeV2(Object o) {
+    ByteArrayOutputStream bout = BOUTS.get();
+
+    try {
+      bout.write(V2);
+      if (o == null) {
+        bout.write(NULL);
+        return bout.toByteArray();
+      }
+
+      String cls = o.getClass().getSimpleName();
+      switch (cls) {
+        case "Byte":
+          bout.write(BYTE);
+          bout.write((Byte) o ^ 0x80);
+          break;
+        case "Short":
+          bout.write(SHORT);
+          writeLong(bout, (Short) o ^ 0x8000, 2);
+          break;
+        case "Character":
+          bout.write(CHARACTER);
+          writeLong(bout, (Character) o, 2);
+          break;
+        case "Integer":
+          bout.write(INTEGER);
+          writeLong(bout, (Integer) o ^ Integer.MIN_VALUE, 4);
+          break;
+        case "Long":
+          bout.write(LONG);
+          writeLong(bout, (Long) o ^ Long.MIN_VALUE, 8);
+          break;
+        case "Float":
+          bout.write(FLOAT);
+          int fbits = Float.floatToIntBits((Float) o);
+          writeLong(bout, fbits ^ (fbits < 0 ? 0xffffffff : Integer.MIN_VALUE), 4);
+          break;
+        case "Double":
+          bout.write(DOUBLE);
+          long dbits = Double.doubleToLongBits((Double) o);
+          writeLong(bout, dbits ^ (dbits < 0 ? 0xffffffffffffffffL : Long.MIN_VALUE), 8);
+          break;
+        case "Boolean":
+          bout.write(BOOLEAN);
+          bout.write((Boolean) o ? 1 : 0);
+          break;
+        case "Date":
+          bout.write(DATE);
+          writeLong(bout, ((Date) o).getTime() ^ Long.MIN_VALUE, 8);
+          break;
+        case "String":
+          bout.write(STRING);
+          bout.write(((String) o).getBytes(UTF8));
+          break;
+        case "QName":
+          bout.write(QNAME);
+          bout.write(o.toString().getBytes(UTF8));
+          break;
+        default:
+          if (o instanceof Enum) {
+            bout.write(ENUM);
+            byte[] className = o.getClass().getName().getBytes(UTF8);
+            writeVarInt(bout, className.length);
+            bout.write(className);
+            bout.write(((Enum<?>) o).name().getBytes(UTF8));
+          } else if (o instanceof Serializable) {
+            bout.write(SERIALIZABLE);
+            ObjectOutputStream oos = new ObjectOutputStream(bout);
+            oos.writeObject(o);
+            oos.close();
+          } else {
+            throw new RuntimeException("Unsupported data type: " + o.getClass());
+          }
+      }
+
+      return bout.toByteArray();
+    } catch (IOException io) {
+      throw new RuntimeException("Unexpected error writing to byte array.", io);
+    } finally {
+      bout.reset();
+    }
+  }
+
+  private static Object deserializeV2(byte[] target) {
+    switch (target[1]) {
+      case NULL:
+        return null;
+      case BYTE:
+        return (byte) (target[2] ^ 0x80);
+      case SHORT:
+        return (short) (readLong(target, 2, 2) ^ 0x8000);
+      case CHARACTER:
+        return (char) readLong(target, 2, 2);
+      case INTEGER:
+        return (int) readLong(target, 2, 4) ^ Integer.MIN_VALUE;
+      case LONG:
+        return readLong(target, 2, 8) ^ Long.MIN_VALUE;
+      case FLOAT:
+        int fbits = (int) readLong(target, 2, 4);
+        return Float.intBitsToFloat(fbits ^ (fbits < 0 ? Integer.MIN_VALUE : 0xffffffff));
+      case DOUBLE:
+        long dbits = readLong(target, 2, 8);
+        return Double.longBitsToDouble(dbits ^ (dbits < 0 ? Long.MIN_VALUE : 0xffffffffffffffffL));
+      case BOOLEAN:
+        return target[2] != 0;
+      case DATE:
+        return new Date(readLong(target, 2, 8) ^ Long.MIN_VALUE);
+      case STRING:
+        return new String(target, 2, target.length - 2, UTF8);
+      case QNAME:
+        return QName.valueOf(new String(target, 2, target.length - 2, UTF8));
+      case ENUM:
+        int len = 0;
+        int shift = 0;
+        int pos = 2;
+        byte b;
+        do {
+          b = target[pos++];
+          len |= (b & 0x7f) << shift;
+          shift += 7;
+        } while ((b & 0x80) != 0);
+
+        try {
+          @SuppressWarnings({"rawtypes", "unchecked"})
+          Class<? extends Enum> clz = (Class<? extends Enum>)
+              Class.forName(new String(target, pos, len, UTF8));
+          return toEnum(clz, new String(target, pos + len, target.length - pos - len, UTF8));
+        } catch (ClassNotFoundException cnfe) {
+          throw new RuntimeException("Unexpected error deserializing object.", cnfe);
+        }
+      case SERIALIZABLE:
+        try {
+          ByteArrayInputStream bin = new ByteArrayInputStream(target, 2, target.length - 2);
+          ObjectInputStream ois = new ObjectInputStream(bin);
+          return ois.readObject();
+        } catch (IOException io) {
+          throw new RuntimeException("Unexpected error deserializing object.", io);
+        } catch (ClassNotFoundException cnfe) {
+          throw new RuntimeException("Unexpected error deserializing object.", cnfe);
+        }
+      default:
+        throw new RuntimeException("Unexpected data type: " + (char) target[1]);
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static Object toEnum(Class<? extends Enum> clz, String name) {
+    return Enum.valueOf(clz, name);
+  }
+
+  private static void writeLong(ByteArrayOutputStream bout, long value, int width) {
+    for (int i = width - 1; i >= 0; i--) {
+      bout.write((int) (value >>> (8 * i)));
+    }
+  }
+
+  private static long readLong(byte[] target, int offset, int width) {
+    long value = 0;
+    for (int i = 0; i < width; i++) {
+      value = (value << 8) | (target[offset + i] & 0xff);
+    }
+    return value;
+  }
+
+  private static void writeVarInt(ByteArrayOutputStream bout, int value) {
+    while ((value & ~0x7f) != 0) {
+      bout.write((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    bout.write(value);
+  }
 }
@@ -54,7 +54,7 @@ public class AccumuloEdge extends AccumuloElement implements Edge {
     }
 
     // The vertex information needs to be loaded.
-    if (inVertex == null || outVertex == null || label == null) {
+    if (!isLoaded()) {
       log.debug("Loading information for edge: "+this);
       globals.getEdgeWrapper().loadEndpointsAndLabel(this);
     }
@@ -110,6 +110,14 @@ public class AccumuloEdge extends AccumuloElement implements Edge {
     this.label = label;
   }
 
+  /**
+   * Whether the endpoints and label are known.
+   * @return
+   */
+  boolean isLoaded() {
+    return inVertex != null && outVertex != null && label != null;
+  }
+
   @Override
   public String toString() {
     return "[" + getId() + ":" + inVertex + " -> " + label + " -> " + outVertex + "]";
@@ -15,6 +15,7 @@
 package edu.jhuapl.tinkerpop;
 
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Index;
@@ -42,37 +43,79 @@ public abstract class AccumuloElement implements Element {
   }
 
   /**
-   * Create properties cache if it doesn't exist,
-   * and preload any properties.
+   * Return the properties cache, creating it
+   * and preloading any properties if it doesn't exist.
+   * If the graph-wide property cache is enabled,
+   * this is shared with other instances of the element.
    */
-  private void makeCache() {
-    if (propertyCache == null) {
-      propertyCache = new PropertyCache(globals.getConfig());
-
-      // Preload any keys, if needed.
-      String[] preloadKeys = globals.getConfig().getPreloadedProperties();
-      if (preloadKeys != null) {
-        propertyCache.putAll(globals.getElementWrapper(type)
-            .readProperties(this, preloadKeys));
-      }
+  private PropertyCache getCache() {
+    if (propertyCache != null) {
+      return propertyCache;
+    }
+    if (globals.getCaches().getPropertiesShared()) {
+      return globals.getCaches().retrieveProperties(id, type,
+          new Callable<PropertyCache>() {
+        @Override
+        public PropertyCache call() {
+          return newCache();
+        }
+      });
+    }
+    propertyCache = newCache();
+    return propertyCache;
+  }
+
+  private PropertyCache newCache() {
+    PropertyCache cache = new PropertyCache(globals.getConfig());
+
+    // Preload any keys, if needed.
+    String[] preloadKeys = globals.getConfig().getPreloadedProperties();
+    if (preloadKeys != null) {
+      cache.putAll(globals.getElementWrapper(type)
+          .readProperties(this, preloadKeys));
+    }
+    return cache;
+  }
+
+  /**
+   * Update the size of a shared properties cache
+   * after changing its contents. Only called when
+   * the change affects the cache's estimated size,
+   * since reweighing a shared entry contends with
+   * every other reader of the graph-wide cache.
+   * @param cache
+   */
+  private void cacheChanged(PropertyCache cache) {
+    if (cache != propertyCache) {
+      globals.getCaches().updateProperties(id, type, cache);
     }
   }
 
   @Override
   public <T> T getProperty(String key) {
-    makeCache();
+    PropertyCache cache = getCache();
 
     // Get from property cache.
-    T value = propertyCache.get(key);
+    T value = cache.get(key);
 
-    // If not cached, get it from the backing table.
+    // If not cached, get it from the backing table,
+    // unless it is known to be absent.
     if (value == null) {
+      if (cache.isAbsent(key)) {
+        return null;
+      }
       value = globals.getElementWrapper(type).readProperty(this, key);
+      if (value == null) {
+        if (cache.putAbsent(key)) {
+          cacheChanged(cache);
+        }
+        return null;
+      }
     }
 
     // Cache the new value.
-    if (value != null) {
-      propertyCache.put(key, value);
+    if (cache.put(key, value)) {
+      cacheChanged(cache);
     }
 
     return value;
@@ -80,12 +123,20 @@ public abstract class AccumuloElement implements Element {
 
   @Override
   public Set<String> getPropertyKeys() {
-    return globals.getElementWrapper(type).readPropertyKeys(this);
+    PropertyCache cache = getCache();
+
+    Set<String> keys = cache.getKeys();
+    if (keys == null) {
+      keys = globals.getElementWrapper(type).readPropertyKeys(this);
+      if (cache.putKeys(keys)) {
+        cacheChanged(cache);
+      }
+    }
+    return keys;
   }
 
   @Override
   public void setProperty(String key, Object value) {
-    makeCache();
     globals.getKeyIndexTableWrapper(type).setPropertyForIndex(this, key, value);
     // MDL 31 Dec 2014:  The above calls getProperty, so this
     //   order is important (for now).
@@ -101,8 +152,10 @@ public abstract class AccumuloElement implements Element {
    * @param value
    */
   public void setPropertyInMemory(String key, Object value) {
-    makeCache();
-    propertyCache.put(key, value);
+    PropertyCache cache = getCache();
+    if (cache.put(key, value)) {
+      cacheChanged(cache);
+    }
   }
 
   @Override
@@ -112,7 +165,6 @@ public abstract class AccumuloElement implements Element {
       throw new AccumuloGraphException("Cannot remove the " + StringFactory.LABEL + " property.");
     }
 
-    makeCache();
     T value = getProperty(key);
     if (value != null) {
       globals.getElementWrapper(type).clearProperty(this, key);
@@ -142,8 +194,10 @@ public abstract class AccumuloElement implements Element {
    * @param key
    */
   public void removePropertyInMemory(String key) {
-    makeCache();
-    propertyCache.remove(key);
+    PropertyCache cache = getCache();
+    if (cache.remove(key)) {
+      cacheChanged(cache);
+    }
   }
 
   /**
@@ -151,8 +205,7 @@ public abstract class AccumuloElement implements Element {
    * @return
    */
   public Iterable<String> getPropertyKeysInMemory() {
-    makeCache();
-    return propertyCache.keySet();
+    return getCache().keySet();
   }
 
   /**
@@ -161,8 +214,7 @@ public abstract class AccumuloElement implements Element {
    * @return
    */
   public Object getPropertyInMemory(String key) {
-    makeCache();
-    return propertyCache.get(key);
+    return getCache().get(key);
   }
 
   @Override
@@ -193,6 +245,6 @@ public abstract class AccumuloElement implements Element {
    * @return
    */
   PropertyCache getPropertyCache() {
-    return propertyCache;
+    return getCache();
   }
 }
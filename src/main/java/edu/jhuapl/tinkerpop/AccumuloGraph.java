@@ -14,7 +14,14 @@
  */
 package edu.jhuapl.tinkerpop;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -28,6 +35,8 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.commons.configuration.Configuration;
 import org.apache.hadoop.io.Text;
 
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Features;
@@ -39,10 +48,10 @@ import com.tinkerpop.blueprints.IndexableGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
 import com.tinkerpop.blueprints.Parameter;
 import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 
 import edu.jhuapl.tinkerpop.cache.ElementCaches;
+import edu.jhuapl.tinkerpop.mutator.CoalescingMultiTableBatchWriter;
 
 /**
  * This is an implementation of the TinkerPop Blueprints 2.6 API using
@@ -62,6 +71,7 @@ import edu.jhuapl.tinkerpop.cache.ElementCaches;
 public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
 
   private final GlobalInstances globals;
+  private final AsyncAccumuloGraph async;
 
   /**
    * Factory method for {@link GraphFactory}.
@@ -95,6 +105,7 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     } catch (Exception e) {
       throw new AccumuloGraphException(e);
     }
+    async = new AsyncAccumuloGraph(this, globals);
   }
 
   /**
@@ -106,6 +117,24 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     return globals;
   }
 
+  /**
+   * Non-blocking versions of this graph's read operations.
+   * @return
+   */
+  public AsyncAccumuloGraph async() {
+    return async;
+  }
+
+  /**
+   * Mutations added per mutation sent to Accumulo, after
+   * merging those for the same row. See
+   * {@link CoalescingMultiTableBatchWriter}.
+   * @return
+   */
+  public double getCoalescingRatio() {
+    return globals.getMtbw().getCoalescingRatio();
+  }
+
   @Override
   public Features getFeatures() {
     return AccumuloFeatures.get();
@@ -113,6 +142,23 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
 
   @Override
   public Vertex addVertex(Object id) {
+    return addVertex(id, Collections.<String, Object>emptyMap());
+  }
+
+  /**
+   * Add a vertex with the given properties. The vertex,
+   * its properties and any index entries are written together,
+   * with a single flush, rather than one per property as with
+   * {@link Vertex#setProperty(String, Object)}.
+   * @param id
+   * @param properties
+   * @return
+   */
+  public Vertex addVertex(Object id, Map<String, Object> properties) {
+    for (Entry<String, Object> entry : properties.entrySet()) {
+      AccumuloGraphUtils.validateProperty(entry.getKey(), entry.getValue());
+    }
+
     if (id == null) {
       id = AccumuloGraphUtils.generateId();
     }
@@ -129,8 +175,14 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
 
     vert = new AccumuloVertex(globals, idStr);
 
-    globals.getVertexWrapper().writeVertex(vert);
+    globals.getVertexWrapper().writeVertex(vert, properties);
+    globals.getVertexKeyIndexWrapper().addPropertiesForNewElement(vert, properties);
     globals.checkedFlush();
+    globals.addToExistenceFilter(idStr, Vertex.class);
+
+    for (Entry<String, Object> entry : properties.entrySet()) {
+      ((AccumuloElement) vert).setPropertyInMemory(entry.getKey(), entry.getValue());
+    }
 
     globals.getCaches().cache(vert, Vertex.class);
 
@@ -151,17 +203,17 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
 
     vertex = new AccumuloVertex(globals, myID);
     if (!globals.getConfig().getSkipExistenceChecks()) {
+      if (!globals.mightExist(myID, Vertex.class)) {
+        return null;
+      }
+
       // In addition to just an "existence" check, we will also load
       // any "preloaded" properties now, which saves us a round-trip
       // to Accumulo later.
-      String[] preload = globals.getConfig().getPreloadedProperties();
-      if (preload == null && !globals.getConfig().getPreloadAllProperties()) {
-        preload = new String[]{};
-      }
-
       Map<String, Object> props = globals.getVertexWrapper()
-          .readProperties(vertex, preload);
+          .readProperties(vertex, globals.getPreloadedPropertyKeys());
       if (props == null) {
+        globals.getCaches().markMissing(myID, Vertex.class);
         return null;
       }
 
@@ -175,6 +227,87 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     return vertex;
   }
 
+  /**
+   * Retrieve the vertices with the given ids in bulk.
+   * Vertices already in the cache are returned directly,
+   * and the rest are read from Accumulo, along with any
+   * preloaded properties, using a single batch scan
+   * rather than one scan per id as in {@link #getVertex(Object)}.
+   * <p/>Vertices are returned in the order of the given ids.
+   * Ids with no corresponding vertex are omitted.
+   * @param ids
+   * @return
+   */
+  public Iterable<Vertex> getVertices(Collection<?> ids) {
+    return getElements(ids, Vertex.class);
+  }
+
+  /**
+   * Retrieve the given elements in bulk, checking the cache
+   * first and then reading all remaining elements with a single
+   * batch scan. Results are ordered by the given ids, and
+   * nonexistent elements are omitted.
+   * @param ids
+   * @param clazz
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends Element> List<T> getElements(Collection<?> ids, Class<T> clazz) {
+    Set<String> idStrs = new LinkedHashSet<String>();
+    for (Object id : ids) {
+      if (id == null) {
+        throw Vertex.class.equals(clazz) ? ExceptionFactory.vertexIdCanNotBeNull()
+            : ExceptionFactory.edgeIdCanNotBeNull();
+      }
+      idStrs.add(id.toString());
+    }
+
+    Map<String, T> found = new HashMap<String, T>();
+    Set<String> misses = new HashSet<String>();
+    for (String id : idStrs) {
+      T element = globals.getCaches().retrieve(id, clazz);
+      if (element != null) {
+        found.put(id, element);
+      } else {
+        misses.add(id);
+      }
+    }
+
+    if (!globals.getConfig().getSkipExistenceChecks()) {
+      for (Iterator<String> iter = misses.iterator(); iter.hasNext(); ) {
+        if (!globals.mightExist(iter.next(), clazz)) {
+          iter.remove();
+        }
+      }
+    }
+
+    if (globals.getConfig().getSkipExistenceChecks()) {
+      for (String id : misses) {
+        found.put(id, (T) (Vertex.class.equals(clazz) ?
+            new AccumuloVertex(globals, id) : new AccumuloEdge(globals, id)));
+      }
+    } else if (Vertex.class.equals(clazz)) {
+      found.putAll((Map<String, T>) globals.getVertexWrapper()
+          .readVertices(misses, globals.getPreloadedPropertyKeys()));
+    } else {
+      found.putAll((Map<String, T>) globals.getEdgeWrapper()
+          .readEdges(misses, globals.getPreloadedPropertyKeys()));
+    }
+
+    List<T> elements = new ArrayList<T>(found.size());
+    for (String id : idStrs) {
+      T element = found.get(id);
+      if (element != null) {
+        globals.getCaches().cache(element, clazz);
+        elements.add(element);
+      } else if (misses.contains(id)) {
+        globals.getCaches().markMissing(id, clazz);
+      }
+    }
+
+    return elements;
+  }
+
   @Override
   public void removeVertex(Vertex vertex) {
     vertex.remove();
@@ -185,6 +318,18 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     return globals.getVertexWrapper().getVertices();
   }
 
+  /**
+   * Split {@link #getVertices()} into independent scans,
+   * one per tablet of the vertex table, for reading in
+   * parallel, e.g. by submitting each to an executor or
+   * fork/join pool. Within each split, vertices are in id
+   * order. Close each split when done with it.
+   * @return
+   */
+  public List<CloseableIterable<Vertex>> getVertexSplits() {
+    return globals.getVertexWrapper().getVertexSplits();
+  }
+
   /**
    * Retrieve vertices with ids within the given range,
    * inclusive. The range is calculated using the string
@@ -215,6 +360,22 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     return ((AccumuloVertex) outVertex).addEdge(id, label, inVertex);
   }
 
+  /**
+   * Add an edge with the given properties. As with
+   * {@link #addVertex(Object, Map)}, everything is written
+   * with a single flush.
+   * @param id
+   * @param outVertex
+   * @param inVertex
+   * @param label
+   * @param properties
+   * @return
+   */
+  public Edge addEdge(Object id, Vertex outVertex, Vertex inVertex, String label,
+      Map<String, Object> properties) {
+    return ((AccumuloVertex) outVertex).addEdge(id, label, inVertex, properties);
+  }
+
   @Override
   public Edge getEdge(Object id) {
     if (id == null) {
@@ -230,19 +391,19 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     edge = new AccumuloEdge(globals, idStr);
 
     if (!globals.getConfig().getSkipExistenceChecks()) {
+      if (!globals.mightExist(idStr, Edge.class)) {
+        return null;
+      }
+
       // In addition to just an "existence" check, we will also load
       // any "preloaded" properties now, which saves us a round-trip
       // to Accumulo later.
-      String[] preload = globals.getConfig().getPreloadedProperties();
-      if (preload == null) {
-        preload = new String[]{};
-      }
-
       Map<String, Object> props = globals.getEdgeWrapper()
-          .readProperties(edge, preload);
+          .readProperties(edge, globals.getPreloadedPropertyKeys());
       // This will be null if the element does not exist,
       // in which case return null.
       if (props == null) {
+        globals.getCaches().markMissing(idStr, Edge.class);
         return null;
       }
 
@@ -256,6 +417,25 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     return edge;
   }
 
+  /**
+   * Retrieve the edges with the given ids in bulk,
+   * as with {@link #getVertices(Collection)}. The returned
+   * edges have their endpoints and label populated from
+   * the same batch scan, so that later calls to
+   * {@link Edge#getVertex(Direction)} or {@link Edge#getLabel()}
+   * do not require another trip to Accumulo.
+   * <p/>The exception is when existence checks are skipped
+   * ({@link AccumuloGraphConfiguration#setSkipExistenceChecks(boolean)}).
+   * Edges not in the cache are then returned without reading
+   * Accumulo at all, as with {@link #getEdge(Object)}, and their
+   * endpoints and label are loaded on first use.
+   * @param ids
+   * @return
+   */
+  public Iterable<Edge> getEdges(Collection<?> ids) {
+    return getElements(ids, Edge.class);
+  }
+
   @Override
   public void removeEdge(Edge edge) {
     edge.remove();
@@ -266,6 +446,16 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     return globals.getEdgeWrapper().getEdges();
   }
 
+  /**
+   * Split {@link #getEdges()} into independent scans,
+   * one per tablet of the edge table.
+   * See {@link #getVertexSplits()}.
+   * @return
+   */
+  public List<CloseableIterable<Edge>> getEdgeSplits() {
+    return globals.getEdgeWrapper().getEdgeSplits();
+  }
+
   @Override
   public Iterable<Edge> getEdges(String key, Object value) {
     AccumuloGraphUtils.nullCheckProperty(key, value);
@@ -280,14 +470,14 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
     }
   }
 
-  // TODO Eventually
   @Override
   public GraphQuery query() {
-    return new DefaultGraphQuery(this);
+    return new AccumuloGraphQuery(this, globals);
   }
 
   @Override
   public void shutdown() {
+    globals.shutdownAsyncExecutor();
     try {
       globals.getMtbw().close();
       globals.getVertexWrapper().close();
@@ -418,7 +608,8 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
 
   @Override
   public <T extends Element> Set<String> getIndexedKeys(Class<T> elementClass) {
-    return globals.getIndexMetadataWrapper().getIndexedKeys(elementClass);
+    return new HashSet<String>(globals.getIndexMetadataWrapper()
+        .getIndexedKeys(elementClass));
   }
 
   /**
@@ -444,6 +635,7 @@ public class AccumuloGraph implements Graph, KeyIndexableGraph, IndexableGraph {
           if (splits != null) {
             tableOps.addSplits(table, splits);
           }
+          TableProvisioning.apply(globals.getConfig(), table);
         }
       }
     } catch (Exception e) {
@@ -118,6 +118,7 @@ implements Serializable {
     public static final String MAX_WRITE_LATENCY = "blueprints.accumulo.write.max.latency";
     public static final String MAX_WRITE_MEMORY = "blueprints.accumulo.write.max.memory";
     public static final String MAX_WRITE_THREADS = "blueprints.accumulo.write.max.threads";
+    public static final String COALESCE_MEMORY = "blueprints.accumulo.write.coalesce.memory";
     public static final String MAX_WRITE_TIMEOUT = "blueprints.accumulo.write.timeout";
     public static final String QUERY_THREADS = "blueprints.accumulo.read.queryThreads";
     public static final String AUTHORIZATIONS = "blueprints.accumulo.authorizations";
@@ -125,18 +126,39 @@ implements Serializable {
     public static final String CREATE = "blueprints.accumulo.create";
     public static final String CLEAR = "blueprints.accumulo.clear";
     public static final String SPLITS = "blueprints.accumulo.splits";
+    public static final String TABLE_LOCALITY_GROUPS = "blueprints.accumulo.table.localityGroups";
+    public static final String TABLE_BLOOM_FILTERS = "blueprints.accumulo.table.bloomFilters";
+    public static final String TABLE_BLOCK_CACHE = "blueprints.accumulo.table.blockCache";
+    public static final String TABLE_INDEX_CACHE = "blueprints.accumulo.table.indexCache";
+    public static final String TABLE_COMPRESSION = "blueprints.accumulo.table.compression";
     public static final String COLVIS = "blueprints.accumulo.columnVisibility";
     public static final String SKIP_CHECKS = "blueprints.accumulo.skipExistenceChecks";
     public static final String PRELOADED_PROPERTIES = "blueprints.accumulo.property.preload";
     public static final String PRELOAD_ALL_PROPERTIES = "blueprints.accumulo.property.preload.all";
     public static final String PROPERTY_CACHE_TIMEOUT = "blueprints.accumulo.propertyCacheTimeout";
+    public static final String PROPERTY_CACHE_MEMORY = "blueprints.accumulo.propertyCache.memory";
+    public static final String PROPERTY_CACHE_OFF_HEAP_MEMORY = "blueprints.accumulo.propertyCache.offHeapMemory";
     public static final String EDGE_CACHE_SIZE = "blueprints.accumulo.edgeCacheSize";
     public static final String EDGE_CACHE_TIMEOUT = "blueprints.accumulo.edgeCacheTimeout";
     public static final String VERTEX_CACHE_TIMEOUT = "blueprints.accumulo.vertexCacheTimeout";
     public static final String VERTEX_CACHE_SIZE = "blueprints.accumulo.vertexCacheSize";
+    public static final String MISSING_ELEMENT_CACHE_SIZE = "blueprints.accumulo.missingElementCacheSize";
+    public static final String MISSING_ELEMENT_CACHE_TIMEOUT = "blueprints.accumulo.missingElementCacheTimeout";
+    public static final String MISSING_PROPERTY_CACHE_TIMEOUT = "blueprints.accumulo.missingPropertyCacheTimeout";
+    public static final String ADJACENCY_CACHE_SIZE = "blueprints.accumulo.adjacencyCacheSize";
+    public static final String ADJACENCY_CACHE_TIMEOUT = "blueprints.accumulo.adjacencyCacheTimeout";
+    public static final String ADJACENCY_CACHE_MAX_DEGREE = "blueprints.accumulo.adjacencyCacheMaxDegree";
     public static final String PRELOAD_EDGES = "blueprints.accumulo.edge.preload";
     public static final String AUTO_INDEX = "blueprints.accumulo.index.auto";
     public static final String DISABLE_INDEX = "blueprints.accumulo.index.disable";
+    public static final String ADJACENCY_LAYOUT = "blueprints.accumulo.edge.layout";
+    public static final String KEY_ENCODING = "blueprints.accumulo.edge.encoding";
+    public static final String SERIALIZER_VERSION = "blueprints.accumulo.serializer.version";
+    public static final String ASYNC_THREADS = "blueprints.accumulo.read.asyncThreads";
+    public static final String ASYNC_QUEUE_SIZE = "blueprints.accumulo.read.asyncQueueSize";
+    public static final String EXISTENCE_FILTER_SIZE = "blueprints.accumulo.existenceFilter.size";
+    public static final String PARALLEL_SCANS = "blueprints.accumulo.read.parallelScans";
+    public static final String INDEX_METADATA_POLL_INTERVAL = "blueprints.accumulo.index.metadata.pollInterval";
   }
 
 
@@ -180,6 +202,7 @@ implements Serializable {
     setMaxWriteMemory(20L * 1024 * 1024);
     setMaxWriteThreads(3);
     setMaxWriteTimeout(Long.MAX_VALUE);
+    setCoalesceMemory(0);
     setQueryThreads(3);
     setAutoFlush(true);
     setCreate(false);
@@ -187,6 +210,17 @@ implements Serializable {
     setAuthorizations(Constants.NO_AUTHS);
     setSkipExistenceChecks(false);
     setPreloadAllProperties(false);
+    setAdjacencyLayout(AdjacencyLayout.VERTEX_FIRST);
+    setKeyEncoding(KeyEncoding.DELIMITED);
+    setSerializerVersion(1);
+    setIndexMetadataPollInterval(5000L);
+    setParallelScans(false);
+    setAsyncThreads(10);
+    setAsyncQueueSize(10000);
+    setExistenceFilterSize(0);
+    setPropertyCacheMemory(0);
+    setPropertyCacheOffHeapMemory(0);
+    setAdjacencyCacheMaxDegree(1000);
   }
 
   /**
@@ -405,6 +439,32 @@ implements Serializable {
     return this;
   }
 
+  public int getExistenceFilterSize() {
+    return conf.getInt(Keys.EXISTENCE_FILTER_SIZE);
+  }
+
+  /**
+   * Enable a client-side Bloom filter of vertex and edge ids,
+   * sized for the given number of each, or 0 to disable
+   * (the default). The filter is loaded from the tables when
+   * the graph is opened and updated as elements are added.
+   * When existence checks are enabled, ids which the filter says
+   * definitely do not exist are not looked up in Accumulo.
+   * <P>
+   * The filter does not see elements added by other writers
+   * after the graph is opened, so only use it when this graph
+   * instance is the only writer.
+   * @param expectedElements
+   * @return
+   */
+  public AccumuloGraphConfiguration setExistenceFilterSize(int expectedElements) {
+    if (expectedElements < 0) {
+      throw new IllegalArgumentException("Existence filter size must be a positive number, " + "or '0' to disable.");
+    }
+    conf.setProperty(Keys.EXISTENCE_FILTER_SIZE, expectedElements);
+    return this;
+  }
+
   public int getPropertyCacheTimeout(String property) {
     if (property != null) {
       property = "." + property;
@@ -460,6 +520,53 @@ implements Serializable {
     return this;
   }
 
+  public long getPropertyCacheMemory() {
+    return conf.getLong(Keys.PROPERTY_CACHE_MEMORY);
+  }
+
+  /**
+   * Share cached properties between all instances of
+   * the same element, in a graph-wide cache holding
+   * approximately the given number of bytes, or 0 to
+   * cache properties separately in each element instance
+   * (the default). When full, the properties of the least
+   * recently used elements are evicted. Properties still
+   * expire according to {@link #setPropertyCacheTimeout(String, int)},
+   * which must be set for anything to be cached.
+   * @param bytes
+   * @return
+   */
+  public AccumuloGraphConfiguration setPropertyCacheMemory(long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Property cache memory must be a positive number, " + "or '0' to disable.");
+    }
+    conf.setProperty(Keys.PROPERTY_CACHE_MEMORY, bytes);
+    return this;
+  }
+
+  public long getPropertyCacheOffHeapMemory() {
+    return conf.getLong(Keys.PROPERTY_CACHE_OFF_HEAP_MEMORY);
+  }
+
+  /**
+   * Keep properties evicted from the graph-wide property
+   * cache ({@link #setPropertyCacheMemory(long)}) in a second,
+   * off-heap tier of the given number of bytes, or 0 to disable
+   * (the default). Off-heap properties are stored serialized,
+   * so do not add to garbage collection work, and are moved back
+   * to the heap when next used. The JVM's direct memory limit
+   * (<tt>-XX:MaxDirectMemorySize</tt>) must allow for this size.
+   * @param bytes
+   * @return
+   */
+  public AccumuloGraphConfiguration setPropertyCacheOffHeapMemory(long bytes) {
+    if (bytes < 0) {
+      throw new IllegalArgumentException("Off-heap property cache memory must be a positive number, " + "or '0' to disable.");
+    }
+    conf.setProperty(Keys.PROPERTY_CACHE_OFF_HEAP_MEMORY, bytes);
+    return this;
+  }
+
   /**
    * Whether the vertex cache is enabled (i.e., both
    * size and timeout are positive).
@@ -575,6 +682,165 @@ implements Serializable {
     return this;
   }
 
+  /**
+   * Whether ids of missing elements are cached
+   * (i.e., both size and timeout are positive).
+   * @return
+   */
+  public boolean getMissingElementCacheEnabled() {
+    return getMissingElementCacheSize() > 0 && getMissingElementCacheTimeout() > 0;
+  }
+
+  public int getMissingElementCacheSize() {
+    return conf.getInt(Keys.MISSING_ELEMENT_CACHE_SIZE, -1);
+  }
+
+  public int getMissingElementCacheTimeout() {
+    return conf.getInt(Keys.MISSING_ELEMENT_CACHE_TIMEOUT, -1);
+  }
+
+  /**
+   * Sets the number of milliseconds for which an id that was
+   * looked up and not found is remembered as missing, so that
+   * further lookups return null without consulting Accumulo.
+   * Also set the maximum number of ids remembered. If these
+   * values are unset or set to 0 (or a negative number),
+   * missing ids are not cached.
+   * <P>
+   * Adding or removing an element through this graph updates
+   * the cache, but elements added by other writers are not seen
+   * until the entry expires, so keep the timeout short.
+   * <P>
+   * The default is unset (no caching).
+   *
+   * @param size
+   *          maximum number of missing ids
+   * @param millis
+   *          the maximum number of milliseconds an id is remembered as missing
+   * @return
+   */
+  public AccumuloGraphConfiguration setMissingElementCacheParams(int size, int millis) {
+    if ((size <= 0 || millis <= 0) && (size > 0 || millis > 0)) {
+      throw new IllegalArgumentException("Parameters must be both non-positive or both positive");
+    }
+
+    if (size <= 0) {
+      conf.clearProperty(Keys.MISSING_ELEMENT_CACHE_SIZE);
+    } else {
+      conf.setProperty(Keys.MISSING_ELEMENT_CACHE_SIZE, size);
+    }
+
+    if (millis <= 0) {
+      conf.clearProperty(Keys.MISSING_ELEMENT_CACHE_TIMEOUT);
+    } else {
+      conf.setProperty(Keys.MISSING_ELEMENT_CACHE_TIMEOUT, millis);
+    }
+
+    return this;
+  }
+
+  /**
+   * Whether the adjacency cache is enabled (i.e., both
+   * size and timeout are positive).
+   * @return
+   */
+  public boolean getAdjacencyCacheEnabled() {
+    return getAdjacencyCacheSize() > 0 && getAdjacencyCacheTimeout() > 0;
+  }
+
+  public int getAdjacencyCacheSize() {
+    return conf.getInt(Keys.ADJACENCY_CACHE_SIZE, -1);
+  }
+
+  public int getAdjacencyCacheTimeout() {
+    return conf.getInt(Keys.ADJACENCY_CACHE_TIMEOUT, -1);
+  }
+
+  /**
+   * Sets the number of milliseconds for which a vertex's edges,
+   * as returned by <tt>Vertex.getEdges</tt> and <tt>Vertex.getVertices</tt>,
+   * are cached for each direction and set of labels. Also set the maximum
+   * total number of edges cached. If these values are unset
+   * or set to 0 (or a negative number) no caching will be performed.
+   * <P>
+   * Adding or removing edges through this graph updates
+   * the cache, but edges added by other writers are not seen
+   * until the entry expires.
+   * <P>
+   * The default is unset (no caching).
+   *
+   * @param size
+   *          maximum number of edges cached
+   * @param millis
+   *          the maximum number of milliseconds edges are held in RAM
+   * @return
+   */
+  public AccumuloGraphConfiguration setAdjacencyCacheParams(int size, int millis) {
+    if ((size <= 0 || millis <= 0) && (size > 0 || millis > 0)) {
+      throw new IllegalArgumentException("Parameters must be both non-positive or both positive");
+    }
+
+    if (size <= 0) {
+      conf.clearProperty(Keys.ADJACENCY_CACHE_SIZE);
+    } else {
+      conf.setProperty(Keys.ADJACENCY_CACHE_SIZE, size);
+    }
+
+    if (millis <= 0) {
+      conf.clearProperty(Keys.ADJACENCY_CACHE_TIMEOUT);
+    } else {
+      conf.setProperty(Keys.ADJACENCY_CACHE_TIMEOUT, millis);
+    }
+
+    return this;
+  }
+
+  public int getAdjacencyCacheMaxDegree() {
+    return conf.getInt(Keys.ADJACENCY_CACHE_MAX_DEGREE);
+  }
+
+  /**
+   * Set the largest number of edges the adjacency cache
+   * stores for one vertex, direction and set of labels.
+   * Larger edge lists are read from Accumulo each time,
+   * so that a few high-degree vertices do not take
+   * over the cache. The default is 1000.
+   * @param maxDegree
+   * @return
+   */
+  public AccumuloGraphConfiguration setAdjacencyCacheMaxDegree(int maxDegree) {
+    if (maxDegree <= 0) {
+      throw new IllegalArgumentException("Maximum degree must be positive.");
+    }
+    conf.setProperty(Keys.ADJACENCY_CACHE_MAX_DEGREE, maxDegree);
+    return this;
+  }
+
+  public int getMissingPropertyCacheTimeout() {
+    return conf.getInt(Keys.MISSING_PROPERTY_CACHE_TIMEOUT, -1);
+  }
+
+  /**
+   * Sets the number of milliseconds for which a property that was
+   * read and found absent is remembered as absent by the element's
+   * property cache, independently of {@link #setPropertyCacheTimeout(String, int)}.
+   * Setting the property through this graph replaces the entry.
+   * If unset or set to 0, absent properties are not cached.
+   * <P>
+   * The default is unset (no caching).
+   *
+   * @param millis
+   * @return
+   */
+  public AccumuloGraphConfiguration setMissingPropertyCacheTimeout(int millis) {
+    if (millis <= 0) {
+      conf.clearProperty(Keys.MISSING_PROPERTY_CACHE_TIMEOUT);
+    } else {
+      conf.setProperty(Keys.MISSING_PROPERTY_CACHE_TIMEOUT, millis);
+    }
+    return this;
+  }
+
   public int getQueryThreads() {
     return conf.getInt(Keys.QUERY_THREADS);
   }
@@ -592,6 +858,61 @@ implements Serializable {
     return this;
   }
 
+  public int getAsyncThreads() {
+    return conf.getInt(Keys.ASYNC_THREADS);
+  }
+
+  /**
+   * Number of threads for reads made through
+   * {@link AsyncAccumuloGraph}. Defaults to 10.
+   * @param threads
+   * @return
+   */
+  public AccumuloGraphConfiguration setAsyncThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("You must provide at least 1 async thread.");
+    }
+    conf.setProperty(Keys.ASYNC_THREADS, threads);
+    return this;
+  }
+
+  public int getAsyncQueueSize() {
+    return conf.getInt(Keys.ASYNC_QUEUE_SIZE);
+  }
+
+  /**
+   * Maximum number of reads made through {@link AsyncAccumuloGraph}
+   * waiting for a thread. Further reads are rejected with a
+   * {@link java.util.concurrent.RejectedExecutionException}
+   * until the queue drains. Defaults to 10000.
+   * @param size
+   * @return
+   */
+  public AccumuloGraphConfiguration setAsyncQueueSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Async queue size must be positive.");
+    }
+    conf.setProperty(Keys.ASYNC_QUEUE_SIZE, size);
+    return this;
+  }
+
+  public boolean getParallelScans() {
+    return conf.getBoolean(Keys.PARALLEL_SCANS);
+  }
+
+  /**
+   * If true, scans over all vertices or edges read each
+   * tablet in parallel, using up to {@link #getQueryThreads()}
+   * threads. Elements are then returned in no particular
+   * order, rather than ordered by id. Defaults to false.
+   * @param parallel
+   * @return
+   */
+  public AccumuloGraphConfiguration setParallelScans(boolean parallel) {
+    conf.setProperty(Keys.PARALLEL_SCANS, parallel);
+    return this;
+  }
+
   public ColumnVisibility getColumnVisibility() {
     return new ColumnVisibility(conf.getString(Keys.COLVIS).getBytes());
   }
@@ -681,6 +1002,90 @@ implements Serializable {
     return this;
   }
 
+  public Boolean getTableLocalityGroups() {
+    return conf.getBoolean(Keys.TABLE_LOCALITY_GROUPS, null);
+  }
+
+  /**
+   * Whether to store edge entries in the vertex table in their
+   * own locality group, so reading a vertex's properties does not
+   * read through its edges. If not set, the table is left alone.
+   * <P>
+   * Table settings are applied when tables are created;
+   * see {@link TableProvisioning} to apply them to existing tables.
+   * @param enable
+   * @return
+   */
+  public AccumuloGraphConfiguration setTableLocalityGroups(boolean enable) {
+    conf.setProperty(Keys.TABLE_LOCALITY_GROUPS, enable);
+    return this;
+  }
+
+  public Boolean getTableBloomFilters() {
+    return conf.getBoolean(Keys.TABLE_BLOOM_FILTERS, null);
+  }
+
+  /**
+   * Whether to enable row bloom filters on the element and index
+   * tables, which speed up lookups of single elements and values.
+   * If not set, tables are left alone.
+   * @param enable
+   * @return
+   */
+  public AccumuloGraphConfiguration setTableBloomFilters(boolean enable) {
+    conf.setProperty(Keys.TABLE_BLOOM_FILTERS, enable);
+    return this;
+  }
+
+  public Boolean getTableBlockCache() {
+    return conf.getBoolean(Keys.TABLE_BLOCK_CACHE, null);
+  }
+
+  /**
+   * Whether tablet servers cache the graph tables' data blocks.
+   * If not set, tables are left alone.
+   * @param enable
+   * @return
+   */
+  public AccumuloGraphConfiguration setTableBlockCache(boolean enable) {
+    conf.setProperty(Keys.TABLE_BLOCK_CACHE, enable);
+    return this;
+  }
+
+  public Boolean getTableIndexCache() {
+    return conf.getBoolean(Keys.TABLE_INDEX_CACHE, null);
+  }
+
+  /**
+   * Whether tablet servers cache the graph tables' file indexes.
+   * If not set, tables are left alone.
+   * @param enable
+   * @return
+   */
+  public AccumuloGraphConfiguration setTableIndexCache(boolean enable) {
+    conf.setProperty(Keys.TABLE_INDEX_CACHE, enable);
+    return this;
+  }
+
+  public String getTableCompression() {
+    return conf.getString(Keys.TABLE_COMPRESSION);
+  }
+
+  /**
+   * Compression codec for the graph tables' files,
+   * e.g. "gz", "snappy", "lzo" or "none".
+   * If not set, tables are left alone.
+   * @param codec
+   * @return
+   */
+  public AccumuloGraphConfiguration setTableCompression(String codec) {
+    if (codec == null || codec.trim().isEmpty()) {
+      throw new IllegalArgumentException("Compression codec cannot be empty.");
+    }
+    conf.setProperty(Keys.TABLE_COMPRESSION, codec.trim());
+    return this;
+  }
+
   public boolean getAutoFlush() {
     return conf.getBoolean(Keys.AUTO_FLUSH);
   }
@@ -751,6 +1156,91 @@ implements Serializable {
     return this;
   }
 
+  public AdjacencyLayout getAdjacencyLayout() {
+    return AdjacencyLayout.valueOf(conf.getString(Keys.ADJACENCY_LAYOUT));
+  }
+
+  /**
+   * Layout for edge entries in the vertex table
+   * (see {@link AdjacencyLayout}). With
+   * {@link AdjacencyLayout#LABEL_FIRST}, a vertex's edges with
+   * given labels are read by seeking directly to them, rather
+   * than reading and filtering all of the vertex's edges.
+   * This is a large improvement for vertices with many edges
+   * of mixed labels.
+   * <p/>This must match the layout of existing data; use
+   * {@link AdjacencyLayoutMigration} to convert an existing
+   * graph. Defaults to {@link AdjacencyLayout#VERTEX_FIRST}.
+   * @param layout
+   * @return
+   */
+  public AccumuloGraphConfiguration setAdjacencyLayout(AdjacencyLayout layout) {
+    conf.setProperty(Keys.ADJACENCY_LAYOUT, layout.name());
+    return this;
+  }
+
+  public KeyEncoding getKeyEncoding() {
+    return KeyEncoding.valueOf(conf.getString(Keys.KEY_ENCODING));
+  }
+
+  /**
+   * Encoding for the ids stored in edge entries of the
+   * vertex and edge tables (see {@link KeyEncoding}).
+   * {@link KeyEncoding#BINARY} produces smaller keys which
+   * are cheaper to decode. Existing entries in either
+   * encoding remain readable, so this may be changed
+   * for an existing graph. Defaults to {@link KeyEncoding#DELIMITED}.
+   * @param encoding
+   * @return
+   */
+  public AccumuloGraphConfiguration setKeyEncoding(KeyEncoding encoding) {
+    conf.setProperty(Keys.KEY_ENCODING, encoding.name());
+    return this;
+  }
+
+  public int getSerializerVersion() {
+    return conf.getInt(Keys.SERIALIZER_VERSION);
+  }
+
+  /**
+   * Format version for writing property values and
+   * index entries (see {@link AccumuloByteSerializer}).
+   * Version 2 is more compact, and orders numbers and dates
+   * correctly in the index tables. Values in either version
+   * remain readable, so this may be changed for an existing graph.
+   * Defaults to 1.
+   * @param version
+   * @return
+   */
+  public AccumuloGraphConfiguration setSerializerVersion(int version) {
+    if (version < 1 || version > AccumuloByteSerializer.LATEST_VERSION) {
+      throw new IllegalArgumentException("Unsupported serializer version: " + version);
+    }
+    conf.setProperty(Keys.SERIALIZER_VERSION, version);
+    return this;
+  }
+
+  public long getIndexMetadataPollInterval() {
+    return conf.getLong(Keys.INDEX_METADATA_POLL_INTERVAL);
+  }
+
+  /**
+   * Indexed keys and named indexes are cached in memory.
+   * This sets how often (milliseconds) the cache checks
+   * whether another graph instance has changed them.
+   * Changes made through this instance are seen immediately.
+   * Set to 0 to check on every use. Defaults to 5000.
+   * @param millis
+   * @return
+   */
+  public AccumuloGraphConfiguration setIndexMetadataPollInterval(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("Poll interval cannot be negative.");
+    }
+    conf.setProperty(Keys.INDEX_METADATA_POLL_INTERVAL, millis);
+    return this;
+  }
+
   public String[] getPreloadedProperties() {
     return conf.containsKey(Keys.PRELOADED_PROPERTIES) ?
         conf.getStringArray(Keys.PRELOADED_PROPERTIES) : null;
@@ -863,6 +1353,27 @@ implements Serializable {
     return this;
   }
 
+  public long getCoalesceMemory() {
+    return conf.getLong(Keys.COALESCE_MEMORY);
+  }
+
+  /**
+   * Memory used to merge mutations to the same row before
+   * they are written, or 0 to write each mutation as-is.
+   * Buffered mutations are written within the
+   * {@link #setMaxWriteLatency(long) maximum write latency}.
+   * Defaults to 0.
+   * @param mem
+   * @return
+   */
+  public AccumuloGraphConfiguration setCoalesceMemory(long mem) {
+    if (mem < 0) {
+      throw new IllegalArgumentException("Coalescing memory must be a positive number, " + "or '0' to disable.");
+    }
+    conf.setProperty(Keys.COALESCE_MEMORY, mem);
+    return this;
+  }
+
   public long getMaxWriteTimeout() {
     return conf.getLong(Keys.MAX_WRITE_TIMEOUT);
   }
@@ -1078,6 +1589,12 @@ implements Serializable {
           + "without first setting #propertyCacheTimeout(String property, int millis) "
           + "to a positive value.");
     }
+
+    if (getPropertyCacheOffHeapMemory() > 0 && getPropertyCacheMemory() <= 0) {
+      throw new IllegalArgumentException("You cannot use an off-heap property cache "
+          + "without first setting #setPropertyCacheMemory(long bytes) "
+          + "to a positive value.");
+    }
   }
 
   private void checkPropertyValue(String prop, String val, boolean canBeEmpty) {
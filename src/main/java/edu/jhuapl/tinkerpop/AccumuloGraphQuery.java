@@ -0,0 +1,413 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+import edu.jhuapl.tinkerpop.iterators.PropertyRowFilter;
+import edu.jhuapl.tinkerpop.iterators.PropertyRowFilter.Comparison;
+
+/**
+ * {@link GraphQuery} implementation which pushes as much of
+ * the query as it can down to Accumulo, rather than iterating
+ * over every element and filtering on the client as
+ * {@link DefaultGraphQuery} does.
+ * <ol>
+ * <li>If an equality predicate refers to an indexed key,
+ * candidate elements are read from the key index table.
+ * If several do, the one matching the fewest index entries
+ * is used. Otherwise, if the graph uses serializer version 2,
+ * range predicates (e.g. from interval) on an indexed key
+ * are read with a single scan of the key index table.</li>
+ * <li>Other comparisons against property values (including
+ * has, hasNot and interval) are evaluated on the tablet
+ * servers by {@link PropertyRowFilter}.</li>
+ * <li>Anything else, e.g. {@link Contains} predicates or
+ * predicates on element ids, is evaluated on the client.</li>
+ * </ol>
+ * Iteration stops as soon as the limit is reached.
+ */
+public class AccumuloGraphQuery extends DefaultGraphQuery {
+
+  /**
+   * Maximum number of index entries to count
+   * per predicate when estimating selectivity.
+   */
+  private static final int SELECTIVITY_SAMPLE_SIZE = 1000;
+
+  /**
+   * Number of index hits to read from the
+   * element table in each batch scan.
+   */
+  private static final int BATCH_SIZE = 1000;
+
+  private final GlobalInstances globals;
+
+  public AccumuloGraphQuery(AccumuloGraph graph, GlobalInstances globals) {
+    super(graph);
+    this.globals = globals;
+  }
+
+  @Override
+  public Iterable<Edge> edges() {
+    return elements(Edge.class);
+  }
+
+  @Override
+  public Iterable<Vertex> vertices() {
+    return elements(Vertex.class);
+  }
+
+  private <T extends Element> Iterable<T> elements(Class<T> clazz) {
+    List<HasContainer> remote = new ArrayList<HasContainer>();
+    List<HasContainer> local = new ArrayList<HasContainer>();
+    for (HasContainer has : hasContainers) {
+      if (isPushable(has)) {
+        remote.add(has);
+      } else {
+        local.add(has);
+      }
+    }
+
+    HasContainer indexed = selectIndexedPredicate(remote, clazz);
+    if (indexed != null) {
+      remote.remove(indexed);
+    }
+
+    HasContainer[] range = indexed == null ?
+        selectIndexedRange(remote, clazz) : null;
+    if (range != null) {
+      remote.remove(range[0]);
+      remote.remove(range[1]);
+    }
+
+    Iterable<T> elements;
+    if (indexed != null || range != null) {
+      Iterable<T> candidates = indexed != null ?
+          globals.getKeyIndexTableWrapper(clazz)
+          .<T>readElementsFromIndex(indexed.key, indexed.value) :
+            readIndexRange(clazz, range[0], range[1]);
+      elements = remote.isEmpty() ? candidates :
+        readInBatches(globals, clazz, candidates, remote, limit);
+    } else {
+      elements = scan(clazz, remote);
+    }
+
+    elements = filter(elements, local);
+    return limit == Integer.MAX_VALUE ? elements : Iterables.limit(elements, limit);
+  }
+
+  /**
+   * Scan the whole element table, filtering
+   * with the given predicates on the tablet servers.
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends Element> Iterable<T> scan(Class<T> clazz,
+      List<HasContainer> predicates) {
+    String[] keys = getFetchedKeys(globals, clazz, predicates);
+    IteratorSetting filter = createFilter(clazz, predicates);
+
+    if (Vertex.class.equals(clazz)) {
+      return (Iterable<T>) globals.getVertexWrapper().getVertices(keys, filter);
+    } else {
+      return (Iterable<T>) globals.getEdgeWrapper().getEdges(keys, filter);
+    }
+  }
+
+  /**
+   * Read the given candidates from the element table in batches,
+   * returning those which satisfy the given predicates. The
+   * predicates are evaluated on the tablet servers, so must
+   * all be pushable. Results are in the order of the candidates.
+   * @param globals
+   * @param clazz
+   * @param candidates
+   * @param predicates
+   * @param limit the number of results wanted, used to size batches
+   * @return
+   */
+  static <T extends Element> Iterable<T> readInBatches(final GlobalInstances globals,
+      final Class<T> clazz, Iterable<T> candidates, List<HasContainer> predicates,
+      int limit) {
+    final String[] keys = getFetchedKeys(globals, clazz, predicates);
+    final IteratorSetting filter = createFilter(clazz, predicates);
+
+    int batchSize = Math.max(1, Math.min(limit, BATCH_SIZE));
+    return Iterables.concat(Iterables.transform(
+        Iterables.partition(candidates, batchSize),
+        new Function<List<T>, Iterable<T>>() {
+          @SuppressWarnings("unchecked")
+          @Override
+          public Iterable<T> apply(List<T> batch) {
+            List<String> ids = new ArrayList<String>(batch.size());
+            for (T element : batch) {
+              ids.add(element.getId().toString());
+            }
+
+            Map<String, T> read = (Map<String, T>) (Vertex.class.equals(clazz) ?
+                globals.getVertexWrapper().readVertices(ids, keys, filter) :
+                  globals.getEdgeWrapper().readEdges(ids, keys, filter));
+
+            List<T> elements = new ArrayList<T>(read.size());
+            for (String id : ids) {
+              T element = read.get(id);
+              if (element != null) {
+                globals.getCaches().cache(element, clazz);
+                elements.add(element);
+              }
+            }
+            return elements;
+          }
+        }));
+  }
+
+  /**
+   * Filter the given elements on the client
+   * using the given predicates.
+   * @param elements
+   * @param predicates
+   * @return
+   */
+  static <T extends Element> Iterable<T> filter(Iterable<T> elements,
+      final List<HasContainer> predicates) {
+    if (predicates.isEmpty()) {
+      return elements;
+    }
+
+    return Iterables.filter(elements, new Predicate<T>() {
+      @Override
+      public boolean apply(T element) {
+        for (HasContainer has : predicates) {
+          if (!has.isLegal(element)) {
+            return false;
+          }
+        }
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Choose the indexed equality predicate expected to
+   * match the fewest elements, or null if there is none.
+   */
+  private HasContainer selectIndexedPredicate(List<HasContainer> predicates,
+      Class<? extends Element> clazz) {
+    boolean autoIndex = globals.getConfig().getAutoIndex();
+    Set<String> indexedKeys = autoIndex ? null :
+      globals.getIndexMetadataWrapper().getIndexedKeys(clazz);
+
+    List<HasContainer> candidates = new ArrayList<HasContainer>();
+    for (HasContainer has : predicates) {
+      if (com.tinkerpop.blueprints.Compare.EQUAL.equals(has.predicate) &&
+          has.value != null &&
+          !isEdgeLabel(clazz, has.key) &&
+          (autoIndex || indexedKeys.contains(has.key))) {
+        candidates.add(has);
+      }
+    }
+
+    if (candidates.size() <= 1) {
+      return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    HasContainer best = null;
+    int bestCount = Integer.MAX_VALUE;
+    for (HasContainer has : candidates) {
+      int count = globals.getKeyIndexTableWrapper(clazz)
+          .countElementsInIndex(has.key, has.value, SELECTIVITY_SAMPLE_SIZE);
+      if (count < bestCount) {
+        best = has;
+        bestCount = count;
+        if (count == 0) {
+          break;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Choose lower and upper bound predicates on an indexed key
+   * which can be read as a range of the key index table, or
+   * return null if there are none. Either bound may be null.
+   * Keys with both bounds are preferred. Range lookups rely on
+   * the order of serialized values, so need serializer version 2.
+   */
+  private HasContainer[] selectIndexedRange(List<HasContainer> predicates,
+      Class<? extends Element> clazz) {
+    if (globals.getConfig().getSerializerVersion() < 2) {
+      return null;
+    }
+
+    boolean autoIndex = globals.getConfig().getAutoIndex();
+    Set<String> indexedKeys = autoIndex ? null :
+      globals.getIndexMetadataWrapper().getIndexedKeys(clazz);
+
+    Map<String, HasContainer[]> ranges = new LinkedHashMap<String, HasContainer[]>();
+    for (HasContainer has : predicates) {
+      int bound = getBound(has);
+      if (bound < 0 || isEdgeLabel(clazz, has.key) ||
+          !(autoIndex || indexedKeys.contains(has.key)) ||
+          !AccumuloByteSerializer.isOrderPreserving(has.value)) {
+        continue;
+      }
+
+      HasContainer[] range = ranges.get(has.key);
+      if (range == null) {
+        range = new HasContainer[2];
+        ranges.put(has.key, range);
+      }
+      HasContainer other = range[1 - bound];
+      if (range[bound] == null && (other == null ||
+          other.value.getClass().equals(has.value.getClass()))) {
+        range[bound] = has;
+      }
+    }
+
+    HasContainer[] best = null;
+    for (HasContainer[] range : ranges.values()) {
+      if (range[0] != null && range[1] != null) {
+        return range;
+      } else if (best == null) {
+        best = range;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Index of the bound given by the predicate:
+   * 0 for a lower bound, 1 for an upper bound,
+   * or -1 if it is not a bound.
+   */
+  private static int getBound(HasContainer has) {
+    if (has.value == null) {
+      return -1;
+    } else if (com.tinkerpop.blueprints.Compare.GREATER_THAN.equals(has.predicate) ||
+        com.tinkerpop.blueprints.Compare.GREATER_THAN_EQUAL.equals(has.predicate)) {
+      return 0;
+    } else if (com.tinkerpop.blueprints.Compare.LESS_THAN.equals(has.predicate) ||
+        com.tinkerpop.blueprints.Compare.LESS_THAN_EQUAL.equals(has.predicate)) {
+      return 1;
+    } else {
+      return -1;
+    }
+  }
+
+  private <T extends Element> Iterable<T> readIndexRange(Class<T> clazz,
+      HasContainer from, HasContainer to) {
+    String key = from != null ? from.key : to.key;
+    return globals.getKeyIndexTableWrapper(clazz).readElementsFromIndex(key,
+        from != null ? from.value : null,
+        from != null &&
+        com.tinkerpop.blueprints.Compare.GREATER_THAN_EQUAL.equals(from.predicate),
+        to != null ? to.value : null,
+        to != null &&
+        com.tinkerpop.blueprints.Compare.LESS_THAN_EQUAL.equals(to.predicate));
+  }
+
+  /**
+   * Whether the given predicate can be
+   * evaluated by {@link PropertyRowFilter}.
+   * <p/>Note: Compare is fully qualified in this class,
+   * as the unqualified name refers to the deprecated
+   * {@link com.tinkerpop.blueprints.Query.Compare}
+   * inherited from {@link DefaultGraphQuery}.
+   */
+  static boolean isPushable(HasContainer has) {
+    if (!(has.predicate instanceof com.tinkerpop.blueprints.Compare) ||
+        StringFactory.ID.equals(has.key)) {
+      return false;
+    }
+    if (has.value == null) {
+      return true;
+    }
+
+    // Classes for these may not be available on
+    // the tablet servers, so leave them to the client.
+    try {
+      int type = AccumuloByteSerializer.serialize(has.value)[0];
+      return type != AccumuloByteSerializer.SERIALIZABLE &&
+          type != AccumuloByteSerializer.ENUM;
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  static IteratorSetting createFilter(Class<? extends Element> clazz,
+      List<HasContainer> predicates) {
+    if (predicates.isEmpty()) {
+      return null;
+    }
+
+    IteratorSetting is = new IteratorSetting(10, "propertyFilter",
+        PropertyRowFilter.class);
+    for (HasContainer has : predicates) {
+      PropertyRowFilter.addPredicate(is, getColumnFamily(clazz, has.key),
+          Comparison.valueOf(((com.tinkerpop.blueprints.Compare) has.predicate).name()),
+          has.value);
+    }
+    return is;
+  }
+
+  /**
+   * Properties to read with each element. These are the
+   * usual preloaded properties, plus those needed to
+   * evaluate the given predicates.
+   */
+  static String[] getFetchedKeys(GlobalInstances globals,
+      Class<? extends Element> clazz, List<HasContainer> predicates) {
+    String[] preload = globals.getPreloadedPropertyKeys();
+    if (preload == null) {
+      return null;
+    }
+
+    Set<String> keys = new LinkedHashSet<String>();
+    for (String key : preload) {
+      keys.add(key);
+    }
+    for (HasContainer has : predicates) {
+      keys.add(getColumnFamily(clazz, has.key));
+    }
+    return keys.toArray(new String[keys.size()]);
+  }
+
+  private static String getColumnFamily(Class<? extends Element> clazz, String key) {
+    return isEdgeLabel(clazz, key) ? Constants.LABEL : key;
+  }
+
+  private static boolean isEdgeLabel(Class<? extends Element> clazz, String key) {
+    return Edge.class.equals(clazz) && StringFactory.LABEL.equals(key);
+  }
+}
@@ -72,6 +72,7 @@ public final class AccumuloGraphUtils {
             if (splits != null) {
               tableOps.addSplits(table, splits);
             }
+            TableProvisioning.apply(cfg, table);
           }
         }
       }
@@ -43,6 +43,7 @@ public class AccumuloIndex<T extends Element> implements Index<T> {
           .tableOperations().exists(getTableName())) {
         globals.getConfig().getConnector()
         .tableOperations().create(getTableName());
+        TableProvisioning.apply(globals.getConfig(), getTableName());
       }
     } catch (Exception e) {
       throw new AccumuloGraphException(e);
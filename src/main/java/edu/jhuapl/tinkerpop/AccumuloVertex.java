@@ -14,6 +14,7 @@
  */
 package edu.jhuapl.tinkerpop;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -22,7 +23,6 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.VertexQuery;
-import com.tinkerpop.blueprints.util.DefaultVertexQuery;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 
 /**
@@ -46,7 +46,7 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
 
   @Override
   public VertexQuery query() {
-    return new DefaultVertexQuery(this);
+    return new AccumuloVertexQuery(this, globals);
   }
 
   @Override
@@ -63,9 +63,27 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
    * @return
    */
   public Edge addEdge(Object id, String label, Vertex inVertex) {
+    return addEdge(id, label, inVertex, Collections.<String, Object>emptyMap());
+  }
+
+  /**
+   * Add an edge as with {@link #addEdge(Object, String, Vertex)},
+   * along with the given properties. The edge, its properties
+   * and any index entries are written with a single flush.
+   * @param id
+   * @param label
+   * @param inVertex
+   * @param properties
+   * @return
+   */
+  public Edge addEdge(Object id, String label, Vertex inVertex,
+      Map<String, Object> properties) {
     if (label == null) {
       throw ExceptionFactory.edgeLabelCanNotBeNull();
     }
+    for (Entry<String, Object> entry : properties.entrySet()) {
+      AccumuloGraphUtils.validateProperty(entry.getKey(), entry.getValue());
+    }
     if (id == null) {
       id = AccumuloGraphUtils.generateId();
     }
@@ -77,10 +95,16 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
     // TODO we arent suppose to make sure the given edge ID doesn't already
     // exist?
 
-    globals.getEdgeWrapper().writeEdge(edge);
+    globals.getEdgeWrapper().writeEdge(edge, properties);
     globals.getVertexWrapper().writeEdgeEndpoints(edge);
+    globals.getEdgeKeyIndexWrapper().addPropertiesForNewElement(edge, properties);
 
     globals.checkedFlush();
+    globals.addToExistenceFilter(myID, Edge.class);
+
+    for (Entry<String, Object> entry : properties.entrySet()) {
+      edge.setPropertyInMemory(entry.getKey(), entry.getValue());
+    }
 
     globals.getCaches().cache(edge, Edge.class);
 
@@ -89,12 +113,11 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
 
   @Override
   public void remove() {
-    globals.getCaches().remove(getId(), Vertex.class);
-
     super.removeElementFromNamedIndexes();
 
     // Throw exception if the element does not exist.
     if (!globals.getVertexWrapper().elementExists(id)) {
+      globals.getCaches().remove(getId(), Vertex.class);
       throw ExceptionFactory.vertexWithIdDoesNotExist(getId());
     }
 
@@ -119,6 +142,10 @@ public class AccumuloVertex extends AccumuloElement implements Vertex {
     // Get rid of the vertex.
     globals.getVertexWrapper().deleteVertex(this);
     globals.checkedFlush();
+
+    // Evict last, since reading the edges above
+    // caches their endpoints, including this vertex.
+    globals.getCaches().remove(getId(), Vertex.class);
   }
 
   @Override
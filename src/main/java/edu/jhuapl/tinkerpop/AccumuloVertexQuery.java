@@ -0,0 +1,118 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.VertexQuery;
+import com.tinkerpop.blueprints.util.DefaultVertexQuery;
+
+/**
+ * {@link VertexQuery} implementation which works directly
+ * from the vertex's edge entries in the vertex table, rather
+ * than materializing every incident edge as
+ * {@link DefaultVertexQuery} does.
+ * <ul>
+ * <li>Direction, labels and limit are applied to the scan
+ * of the edge entries, with label filtering done
+ * by the tablet servers.</li>
+ * <li>{@link #count()} is computed by the tablet servers,
+ * and {@link #vertexIds()} is read straight from the
+ * entries, without creating elements.</li>
+ * <li>Predicates on edge properties are evaluated against
+ * the edge table in batches, on the tablet servers where
+ * possible, as in {@link AccumuloGraphQuery}.</li>
+ * </ul>
+ */
+public class AccumuloVertexQuery extends DefaultVertexQuery {
+
+  private final GlobalInstances globals;
+
+  public AccumuloVertexQuery(AccumuloVertex vertex, GlobalInstances globals) {
+    super(vertex);
+    this.globals = globals;
+  }
+
+  @Override
+  public Iterable<Edge> edges() {
+    if (hasContainers.isEmpty()) {
+      return globals.getVertexWrapper().getEdges(vertex, direction, limit, labels);
+    }
+
+    List<HasContainer> remote = new ArrayList<HasContainer>();
+    List<HasContainer> local = new ArrayList<HasContainer>();
+    for (HasContainer has : hasContainers) {
+      if (AccumuloGraphQuery.isPushable(has)) {
+        remote.add(has);
+      } else {
+        local.add(has);
+      }
+    }
+
+    Iterable<Edge> edges = globals.getVertexWrapper().getEdges(vertex, direction, labels);
+    if (!remote.isEmpty()) {
+      edges = AccumuloGraphQuery.readInBatches(globals, Edge.class,
+          edges, remote, limit);
+    }
+    edges = AccumuloGraphQuery.filter(edges, local);
+
+    return limit == Integer.MAX_VALUE ? edges : Iterables.limit(edges, limit);
+  }
+
+  @Override
+  public Iterable<Vertex> vertices() {
+    if (hasContainers.isEmpty()) {
+      return globals.getVertexWrapper().getVertices(vertex, direction, limit, labels);
+    }
+
+    return Iterables.transform(edges(), new Function<Edge, Vertex>() {
+      @Override
+      public Vertex apply(Edge edge) {
+        Vertex in = edge.getVertex(Direction.IN);
+        return vertex.getId().equals(in.getId()) ?
+            edge.getVertex(Direction.OUT) : in;
+      }
+    });
+  }
+
+  @Override
+  public long count() {
+    if (hasContainers.isEmpty()) {
+      return globals.getVertexWrapper().countEdges(vertex, direction, limit, labels);
+    }
+
+    return Iterables.size(edges());
+  }
+
+  @Override
+  public Object vertexIds() {
+    if (hasContainers.isEmpty()) {
+      return globals.getVertexWrapper().getAdjacentVertexIds(vertex, direction,
+          limit, labels);
+    }
+
+    List<Object> ids = new ArrayList<Object>();
+    for (Vertex v : vertices()) {
+      ids.add(v.getId());
+    }
+    return ids;
+  }
+}
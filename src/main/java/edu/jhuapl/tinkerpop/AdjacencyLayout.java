@@ -0,0 +1,121 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Layouts for the column qualifiers of edge entries
+ * ({@link Constants#IN_EDGE} and {@link Constants#OUT_EDGE})
+ * in the vertex table. In both layouts, the entry's value
+ * holds the edge label (see {@link #getValue(KeyEncoding, String)}).
+ * <p/>Entries in either layout and either {@link KeyEncoding}
+ * can be parsed with {@link #parse(Key, Value)}, regardless
+ * of the layout and encoding configured for writing.
+ */
+public enum AdjacencyLayout {
+
+  /**
+   * Qualifier is the other vertex id and edge id.
+   * This is the original layout, and the default.
+   */
+  VERTEX_FIRST,
+
+  /**
+   * Qualifier is the edge label, other vertex id
+   * and edge id. A vertex's edges with a given label
+   * are then contiguous, so they can be read with a
+   * single range seek rather than filtering all edges.
+   */
+  LABEL_FIRST;
+
+  /**
+   * Column qualifier for an edge entry in this layout.
+   * @param encoding
+   * @param otherVertexId
+   * @param edgeId
+   * @param label
+   * @return
+   */
+  public byte[] getQualifier(KeyEncoding encoding, String otherVertexId,
+      String edgeId, String label) {
+    if (this == LABEL_FIRST) {
+      return encoding.encode(label, otherVertexId, edgeId);
+    } else {
+      return encoding.encode(otherVertexId, edgeId);
+    }
+  }
+
+  /**
+   * Value for an edge entry with the given label.
+   * For {@link KeyEncoding#DELIMITED}, this is
+   * {@link Constants#ID_DELIM} followed by the label.
+   * @param encoding
+   * @param label
+   * @return
+   */
+  public static byte[] getValue(KeyEncoding encoding, String label) {
+    if (encoding == KeyEncoding.DELIMITED) {
+      return encoding.encode("", label);
+    } else {
+      return encoding.encode(label);
+    }
+  }
+
+  /**
+   * Ranges covering the given vertex's edge entries in the
+   * given column family having the given label, one for
+   * each {@link KeyEncoding}. Only applicable to {@link #LABEL_FIRST}.
+   * @param vertexId
+   * @param columnFamily
+   * @param label
+   * @return
+   */
+  public static List<Range> getLabelRanges(String vertexId, String columnFamily,
+      String label) {
+    List<Range> ranges = new ArrayList<Range>();
+    for (KeyEncoding encoding : KeyEncoding.values()) {
+      ranges.add(Range.prefix(new Text(vertexId), new Text(columnFamily),
+          new Text(encoding.encodePrefix(label))));
+    }
+    return ranges;
+  }
+
+  /**
+   * Parse an edge entry in either layout. Returns an array
+   * consisting of the other vertex id, the edge id,
+   * and the label, in that order.
+   * @param key
+   * @param value
+   * @return
+   */
+  public static String[] parse(Key key, Value value) {
+    String[] fields = KeyEncoding.decode(key.getColumnQualifierData());
+    String[] values = KeyEncoding.decode(value.get());
+    String label = values[values.length - 1];
+
+    if (fields.length == 2) {
+      return new String[] {fields[0], fields[1], label};
+    } else {
+      return new String[] {fields[1], fields[2], label};
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Rewrites the edge entries of an existing graph's vertex
+ * table into a given {@link AdjacencyLayout}, and the edge
+ * entries of both tables into the configured {@link KeyEncoding}.
+ * Entries already in the target layout and encoding are
+ * left alone, so an interrupted migration can simply be run again.
+ * <p/>The graph should not be written to during migration.
+ * Afterwards, open the graph with
+ * {@link AccumuloGraphConfiguration#setAdjacencyLayout(AdjacencyLayout)}
+ * set to the target layout.
+ */
+public final class AdjacencyLayoutMigration {
+
+  private AdjacencyLayoutMigration() {
+
+  }
+
+  /**
+   * Migrate the graph given by the configuration to the given layout,
+   * and to the configuration's key encoding.
+   * Returns the number of edge entries rewritten.
+   * @param config
+   * @param layout
+   * @return
+   */
+  public static long migrate(AccumuloGraphConfiguration config, AdjacencyLayout layout) {
+    KeyEncoding encoding = config.getKeyEncoding();
+    long count = 0;
+
+    BatchScanner scan = null;
+    BatchWriter writer = null;
+    try {
+      scan = createScanner(config, config.getVertexTableName(),
+          Constants.IN_EDGE, Constants.OUT_EDGE);
+      writer = config.getConnector().createBatchWriter(config.getVertexTableName(),
+          config.getBatchWriterConfig());
+
+      for (Entry<Key, Value> entry : scan) {
+        String[] parts = AdjacencyLayout.parse(entry.getKey(), entry.getValue());
+        if (rewrite(writer, entry.getKey(), entry.getValue(),
+            layout.getQualifier(encoding, parts[0], parts[1], parts[2]),
+            AdjacencyLayout.getValue(encoding, parts[2]))) {
+          count++;
+        }
+      }
+
+      scan.close();
+      scan = null;
+      writer.close();
+      writer = null;
+
+      scan = createScanner(config, config.getEdgeTableName(), Constants.LABEL);
+      writer = config.getConnector().createBatchWriter(config.getEdgeTableName(),
+          config.getBatchWriterConfig());
+
+      for (Entry<Key, Value> entry : scan) {
+        String[] ids = KeyEncoding.decode(entry.getKey().getColumnQualifierData());
+        if (rewrite(writer, entry.getKey(), entry.getValue(),
+            encoding.encode(ids), entry.getValue().get())) {
+          count++;
+        }
+      }
+
+      return count;
+
+    } catch (Exception e) {
+      throw new AccumuloGraphException(e);
+    } finally {
+      if (scan != null) {
+        scan.close();
+      }
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (Exception e) {
+          throw new AccumuloGraphException(e);
+        }
+      }
+    }
+  }
+
+  private static BatchScanner createScanner(AccumuloGraphConfiguration config,
+      String tableName, String... columnFamilies) throws Exception {
+    Connector connector = config.getConnector();
+    BatchScanner scan = connector.createBatchScanner(tableName,
+        config.getAuthorizations(), config.getQueryThreads());
+    scan.setRanges(Collections.singleton(new Range()));
+    for (String cf : columnFamilies) {
+      scan.fetchColumnFamily(new Text(cf));
+    }
+    return scan;
+  }
+
+  /**
+   * Rewrite the given entry with the given qualifier and
+   * value, if either differs. Returns whether it was rewritten.
+   */
+  private static boolean rewrite(BatchWriter writer, Key key, Value value,
+      byte[] cq, byte[] val) throws Exception {
+    boolean sameCq = Arrays.equals(cq, key.getColumnQualifierData().toArray());
+    if (sameCq && Arrays.equals(val, value.get())) {
+      return false;
+    }
+
+    ColumnVisibility vis = new ColumnVisibility(key.getColumnVisibility());
+    Mutation m = new Mutation(key.getRow());
+    if (!sameCq) {
+      m.putDelete(key.getColumnFamily(), key.getColumnQualifier(), vis);
+    }
+    m.put(key.getColumnFamily(), new Text(cq), vis, new Value(val));
+    writer.addMutation(m);
+    return true;
+  }
+}
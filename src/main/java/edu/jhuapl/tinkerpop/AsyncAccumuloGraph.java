@@ -0,0 +1,245 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.ExceptionFactory;
+
+/**
+ * Non-blocking facade over an {@link AccumuloGraph}'s read
+ * operations. Each call returns immediately with a
+ * {@link ListenableFuture}, and the read runs on a thread pool
+ * of {@link AccumuloGraphConfiguration#getAsyncThreads()}
+ * threads shared by the graph. Results which would otherwise
+ * be lazily-read iterables are read in full into lists.
+ * <p/>Identical requests made while one is still in flight
+ * share its result, rather than reading the same data again.
+ * Each caller gets its own future, so cancelling one does
+ * not cancel the read for the others. The read itself runs
+ * to completion regardless.
+ * <p/>At most {@link AccumuloGraphConfiguration#getAsyncQueueSize()}
+ * reads wait for a thread. When the queue is full, calls throw
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ * Get an instance with {@link AccumuloGraph#async()}.
+ */
+public class AsyncAccumuloGraph {
+
+  private final AccumuloGraph graph;
+  private final GlobalInstances globals;
+
+  /**
+   * Requests in flight, keyed by operation and arguments.
+   */
+  private final ConcurrentMap<List<Object>, ListenableFuture<?>> inFlight =
+      new ConcurrentHashMap<List<Object>, ListenableFuture<?>>();
+
+  AsyncAccumuloGraph(AccumuloGraph graph, GlobalInstances globals) {
+    this.graph = graph;
+    this.globals = globals;
+  }
+
+  /**
+   * See {@link AccumuloGraph#getVertex(Object)}.
+   * @param id
+   * @return
+   */
+  public ListenableFuture<Vertex> getVertex(final Object id) {
+    if (id == null) {
+      throw ExceptionFactory.vertexIdCanNotBeNull();
+    }
+
+    Vertex cached = globals.getCaches().retrieve(id.toString(), Vertex.class);
+    if (cached != null) {
+      return Futures.immediateFuture(cached);
+    }
+
+    return submit(Arrays.<Object>asList("getVertex", id.toString()),
+        new Callable<Vertex>() {
+      @Override
+      public Vertex call() {
+        return graph.getVertex(id);
+      }
+    });
+  }
+
+  /**
+   * See {@link AccumuloGraph#getEdge(Object)}.
+   * @param id
+   * @return
+   */
+  public ListenableFuture<Edge> getEdge(final Object id) {
+    if (id == null) {
+      throw ExceptionFactory.edgeIdCanNotBeNull();
+    }
+
+    Edge cached = globals.getCaches().retrieve(id.toString(), Edge.class);
+    if (cached != null) {
+      return Futures.immediateFuture(cached);
+    }
+
+    return submit(Arrays.<Object>asList("getEdge", id.toString()),
+        new Callable<Edge>() {
+      @Override
+      public Edge call() {
+        return graph.getEdge(id);
+      }
+    });
+  }
+
+  /**
+   * See {@link Vertex#getEdges(Direction, String...)}.
+   * @param vertex
+   * @param direction
+   * @param labels
+   * @return
+   */
+  public ListenableFuture<List<Edge>> getEdges(final Vertex vertex,
+      final Direction direction, final String... labels) {
+    return submit(Arrays.<Object>asList("getEdges", vertex.getId(),
+        direction, Arrays.asList(labels)), new Callable<List<Edge>>() {
+      @Override
+      public List<Edge> call() {
+        return Lists.newArrayList(vertex.getEdges(direction, labels));
+      }
+    });
+  }
+
+  /**
+   * See {@link Vertex#getVertices(Direction, String...)}.
+   * @param vertex
+   * @param direction
+   * @param labels
+   * @return
+   */
+  public ListenableFuture<List<Vertex>> getVertices(final Vertex vertex,
+      final Direction direction, final String... labels) {
+    return submit(Arrays.<Object>asList("getVertices", vertex.getId(),
+        direction, Arrays.asList(labels)), new Callable<List<Vertex>>() {
+      @Override
+      public List<Vertex> call() {
+        return Lists.newArrayList(vertex.getVertices(direction, labels));
+      }
+    });
+  }
+
+  /**
+   * See {@link AccumuloGraph#getVertices(String, Object)}.
+   * Uses the key index, if there is one.
+   * @param key
+   * @param value
+   * @return
+   */
+  public ListenableFuture<List<Vertex>> getVertices(final String key,
+      final Object value) {
+    return submit(Arrays.<Object>asList("getVerticesByValue", key, value),
+        new Callable<List<Vertex>>() {
+      @Override
+      public List<Vertex> call() {
+        return Lists.newArrayList(graph.getVertices(key, value));
+      }
+    });
+  }
+
+  /**
+   * See {@link AccumuloGraph#getEdges(String, Object)}.
+   * Uses the key index, if there is one.
+   * @param key
+   * @param value
+   * @return
+   */
+  public ListenableFuture<List<Edge>> getEdges(final String key,
+      final Object value) {
+    return submit(Arrays.<Object>asList("getEdgesByValue", key, value),
+        new Callable<List<Edge>>() {
+      @Override
+      public List<Edge> call() {
+        return Lists.newArrayList(graph.getEdges(key, value));
+      }
+    });
+  }
+
+  /**
+   * Run the given task, unless an identical
+   * request is in flight, in which case
+   * share that request's result.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> ListenableFuture<T> submit(final List<Object> request,
+      Callable<T> callable) {
+    final ListenableFutureTask<T> task = ListenableFutureTask.create(callable);
+
+    ListenableFuture<T> existing = (ListenableFuture<T>)
+        inFlight.putIfAbsent(request, task);
+    if (existing != null) {
+      return nonCancelling(existing);
+    }
+
+    task.addListener(new Runnable() {
+      @Override
+      public void run() {
+        inFlight.remove(request, task);
+      }
+    }, MoreExecutors.sameThreadExecutor());
+
+    try {
+      globals.getAsyncExecutor().execute(task);
+    } catch (RejectedExecutionException e) {
+      inFlight.remove(request, task);
+      throw e;
+    }
+    return nonCancelling(task);
+  }
+
+  /**
+   * Return a future with the result of the given one,
+   * which can be cancelled without cancelling it.
+   */
+  private static <T> ListenableFuture<T> nonCancelling(ListenableFuture<T> future) {
+    final SettableFuture<T> view = SettableFuture.create();
+    Futures.addCallback(future, new FutureCallback<T>() {
+      @Override
+      public void onSuccess(T result) {
+        view.set(result);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        if (t instanceof CancellationException) {
+          view.cancel(false);
+        } else {
+          view.setException(t);
+        }
+      }
+    });
+    return view;
+  }
+}
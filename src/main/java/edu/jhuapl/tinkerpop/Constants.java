@@ -42,5 +42,5 @@ public class Constants {
    * Type of metadata to distinguish between
    * entries in the metadata table.
    */
-  public static enum IndexMetadataEntryType {__INDEX_KEY__, __INDEX_NAME__};
+  public static enum IndexMetadataEntryType {__INDEX_KEY__, __INDEX_NAME__, __VERSION__};
 }
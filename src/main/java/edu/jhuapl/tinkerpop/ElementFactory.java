@@ -0,0 +1,87 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhuapl.tinkerpop.cache.ElementCaches;
+
+/**
+ * Provides instances of elements read from Accumulo,
+ * returning the instance in the element cache, if any,
+ * rather than allocating a new one. This keeps properties
+ * the cached instance has already loaded, and avoids
+ * replacing it in the cache. New instances are cached.
+ */
+public class ElementFactory {
+
+  private final GlobalInstances globals;
+
+  public ElementFactory(GlobalInstances globals) {
+    this.globals = globals;
+  }
+
+  public AccumuloVertex getVertex(String id) {
+    ElementCaches caches = globals.getCaches();
+    AccumuloVertex vertex = (AccumuloVertex) caches.retrieve(id, Vertex.class);
+    if (vertex == null) {
+      vertex = new AccumuloVertex(globals, id);
+      caches.cache(vertex, Vertex.class);
+    }
+    return vertex;
+  }
+
+  /**
+   * Return an edge whose endpoints and label
+   * are loaded on first use.
+   * @param id
+   * @return
+   */
+  public AccumuloEdge getEdge(String id) {
+    ElementCaches caches = globals.getCaches();
+    AccumuloEdge edge = (AccumuloEdge) caches.retrieve(id, Edge.class);
+    if (edge == null) {
+      edge = new AccumuloEdge(globals, id);
+      caches.cache(edge, Edge.class);
+    }
+    return edge;
+  }
+
+  /**
+   * Return an edge with the given endpoints and label.
+   * If the cached instance does not have these yet,
+   * they are set.
+   * @param id
+   * @param inVertexId
+   * @param outVertexId
+   * @param label
+   * @return
+   */
+  public AccumuloEdge getEdge(String id, String inVertexId,
+      String outVertexId, String label) {
+    ElementCaches caches = globals.getCaches();
+    AccumuloEdge edge = (AccumuloEdge) caches.retrieve(id, Edge.class);
+    if (edge == null) {
+      edge = new AccumuloEdge(globals, id, getVertex(inVertexId),
+          getVertex(outVertexId), label);
+      caches.cache(edge, Edge.class);
+    } else if (!edge.isLoaded()) {
+      edge.setVertices(getVertex(inVertexId), getVertex(outVertexId));
+      edge.setLabel(label);
+    }
+    return edge;
+  }
+}
@@ -14,14 +14,22 @@
  */
 package edu.jhuapl.tinkerpop;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.accumulo.core.client.MultiTableBatchWriter;
 import org.apache.accumulo.core.client.MutationsRejectedException;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
 
 import edu.jhuapl.tinkerpop.cache.ElementCaches;
+import edu.jhuapl.tinkerpop.cache.ExistenceFilter;
+import edu.jhuapl.tinkerpop.mutator.CoalescingMultiTableBatchWriter;
 import edu.jhuapl.tinkerpop.tables.core.EdgeTableWrapper;
 import edu.jhuapl.tinkerpop.tables.core.ElementTableWrapper;
 import edu.jhuapl.tinkerpop.tables.core.VertexTableWrapper;
@@ -33,46 +41,78 @@ import edu.jhuapl.tinkerpop.tables.index.VertexKeyIndexTableWrapper;
 /**
  * Internal class gathering together instances of
  * objects needed for various AccumuloGraph components.
+ * The table wrappers are created once, with the graph,
+ * and shared by all threads using it.
  */
 public class GlobalInstances {
 
   private final AccumuloGraphConfiguration config;
-  private final MultiTableBatchWriter mtbw;
+  private final CoalescingMultiTableBatchWriter mtbw;
   private final ElementCaches caches;
+  private final ElementFactory elementFactory;
+
+  private final VertexTableWrapper vertexWrapper;
+  private final EdgeTableWrapper edgeWrapper;
+  private final VertexKeyIndexTableWrapper vertexKeyIndexWrapper;
+  private final EdgeKeyIndexTableWrapper edgeKeyIndexWrapper;
+  private final IndexMetadataTableWrapper indexMetadataWrapper;
+
+  private final ExistenceFilter vertexFilter;
+  private final ExistenceFilter edgeFilter;
+
+  private ExecutorService asyncExecutor;
 
   public GlobalInstances(AccumuloGraphConfiguration config,
       MultiTableBatchWriter mtbw, ElementCaches caches) {
     this.config = config;
-    this.mtbw = mtbw;
+    this.mtbw = new CoalescingMultiTableBatchWriter(mtbw,
+        config.getCoalesceMemory(), config.getMaxWriteLatency());
     this.caches = caches;
+    elementFactory = new ElementFactory(this);
+
+    vertexWrapper = new VertexTableWrapper(this);
+    edgeWrapper = new EdgeTableWrapper(this);
+    vertexKeyIndexWrapper = new VertexKeyIndexTableWrapper(this);
+    edgeKeyIndexWrapper = new EdgeKeyIndexTableWrapper(this);
+    indexMetadataWrapper = new IndexMetadataTableWrapper(this);
+
+    if (config.getExistenceFilterSize() > 0) {
+      vertexFilter = new ExistenceFilter(config.getExistenceFilterSize());
+      vertexWrapper.loadExistenceFilter(vertexFilter);
+      edgeFilter = new ExistenceFilter(config.getExistenceFilterSize());
+      edgeWrapper.loadExistenceFilter(edgeFilter);
+    } else {
+      vertexFilter = null;
+      edgeFilter = null;
+    }
   }
 
   public AccumuloGraphConfiguration getConfig() {
     return config;
   }
 
-  public MultiTableBatchWriter getMtbw() {
+  public CoalescingMultiTableBatchWriter getMtbw() {
     return mtbw;
   }
 
   public VertexTableWrapper getVertexWrapper() {
-    return new VertexTableWrapper(this);
+    return vertexWrapper;
   }
 
   public EdgeTableWrapper getEdgeWrapper() {
-    return new EdgeTableWrapper(this);
+    return edgeWrapper;
   }
 
   public VertexKeyIndexTableWrapper getVertexKeyIndexWrapper() {
-    return new VertexKeyIndexTableWrapper(this);
+    return vertexKeyIndexWrapper;
   }
 
   public EdgeKeyIndexTableWrapper getEdgeKeyIndexWrapper() {
-    return new EdgeKeyIndexTableWrapper(this);
+    return edgeKeyIndexWrapper;
   }
 
   public IndexMetadataTableWrapper getIndexMetadataWrapper() {
-    return new IndexMetadataTableWrapper(this);
+    return indexMetadataWrapper;
   }
 
   public <T extends Element> ElementTableWrapper getElementWrapper(Class<T> clazz) {
@@ -99,6 +139,89 @@ public class GlobalInstances {
     return caches;
   }
 
+  public ElementFactory getElementFactory() {
+    return elementFactory;
+  }
+
+  /**
+   * Return false if the element with the given id definitely
+   * does not exist, according to the existence filter or the
+   * cache of missing elements, or true if it might.
+   * @param id
+   * @param clazz
+   * @return
+   */
+  public <T extends Element> boolean mightExist(String id, Class<T> clazz) {
+    ExistenceFilter filter = getExistenceFilter(clazz);
+    return (filter == null || filter.mightContain(id)) &&
+        !caches.isMissing(id, clazz);
+  }
+
+  /**
+   * Record a new element in the existence
+   * filter, if enabled.
+   * @param id
+   * @param clazz
+   */
+  public <T extends Element> void addToExistenceFilter(String id, Class<T> clazz) {
+    ExistenceFilter filter = getExistenceFilter(clazz);
+    if (filter != null) {
+      filter.add(id);
+    }
+  }
+
+  private <T extends Element> ExistenceFilter getExistenceFilter(Class<T> clazz) {
+    if (Vertex.class.equals(clazz)) {
+      return vertexFilter;
+    } else if (Edge.class.equals(clazz)) {
+      return edgeFilter;
+    } else {
+      throw new AccumuloGraphException("Unrecognized class: "+clazz);
+    }
+  }
+
+  /**
+   * Thread pool for {@link AsyncAccumuloGraph},
+   * created on first use. Its queue is bounded, and
+   * tasks which do not fit are rejected.
+   * @return
+   */
+  public synchronized ExecutorService getAsyncExecutor() {
+    if (asyncExecutor == null) {
+      asyncExecutor = new ThreadPoolExecutor(config.getAsyncThreads(),
+          config.getAsyncThreads(), 0, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<Runnable>(config.getAsyncQueueSize()),
+          new ThreadFactoryBuilder().setDaemon(true)
+          .setNameFormat("AccumuloGraph async %d").build(),
+          new ThreadPoolExecutor.AbortPolicy());
+    }
+    return asyncExecutor;
+  }
+
+  /**
+   * Stop the async thread pool, if started.
+   */
+  public synchronized void shutdownAsyncExecutor() {
+    if (asyncExecutor != null) {
+      asyncExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Property keys to load along with an element
+   * when checking for its existence, based on the
+   * preload configuration. Returns null to load
+   * all properties.
+   * @return
+   */
+  public String[] getPreloadedPropertyKeys() {
+    String[] preload = config.getPreloadedProperties();
+    if (preload == null && !config.getPreloadAllProperties()) {
+      preload = new String[]{};
+    }
+    return preload;
+  }
+
   /**
    * Flush the writer, if autoflush is enabled.
    */
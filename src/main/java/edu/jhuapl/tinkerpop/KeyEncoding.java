@@ -0,0 +1,196 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.ByteSequence;
+
+/**
+ * Encodings for the composite ids stored in edge entries,
+ * i.e. the column qualifiers of edge entries in the vertex
+ * table and of edge label entries in the edge table.
+ * <p/>Entries in either encoding can be decoded with
+ * {@link #decode(ByteSequence)}, regardless of the encoding
+ * configured for writing, so existing tables remain readable.
+ */
+public enum KeyEncoding {
+
+  /**
+   * Fields joined with {@link Constants#ID_DELIM}.
+   * This is the original encoding, and the default.
+   */
+  DELIMITED,
+
+  /**
+   * A marker byte and version byte, followed by each
+   * field's length as a varint and its UTF-8 bytes.
+   * This is more compact than {@link #DELIMITED}, is
+   * decoded without searching for delimiters, and allows
+   * ids containing {@link Constants#ID_DELIM}.
+   */
+  BINARY;
+
+  /**
+   * First byte of {@link #BINARY} encoded data. Ids in
+   * delimited data are assumed never to start with this.
+   */
+  public static final byte MARKER = 0;
+
+  /**
+   * Current version of the {@link #BINARY} encoding.
+   */
+  public static final byte VERSION = 1;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final byte[] DELIM = Constants.ID_DELIM.getBytes(UTF8);
+
+  /**
+   * Encode the given fields.
+   * @param fields
+   * @return
+   */
+  public byte[] encode(String... fields) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (this == BINARY) {
+      out.write(MARKER);
+      out.write(VERSION);
+      for (String field : fields) {
+        writeField(out, field);
+      }
+    } else {
+      for (int i = 0; i < fields.length; i++) {
+        if (i > 0) {
+          out.write(DELIM, 0, DELIM.length);
+        }
+        byte[] bytes = fields[i].getBytes(UTF8);
+        out.write(bytes, 0, bytes.length);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Prefix shared by all encoded data in this
+   * encoding whose first field is the given field.
+   * @param field
+   * @return
+   */
+  public byte[] encodePrefix(String field) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    if (this == BINARY) {
+      out.write(MARKER);
+      out.write(VERSION);
+      writeField(out, field);
+    } else {
+      byte[] bytes = field.getBytes(UTF8);
+      out.write(bytes, 0, bytes.length);
+      out.write(DELIM, 0, DELIM.length);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode fields encoded in either encoding.
+   * @param bytes
+   * @return
+   */
+  public static String[] decode(ByteSequence bytes) {
+    if (bytes.isBackedByArray()) {
+      return decode(bytes.getBackingArray(), bytes.offset(), bytes.length());
+    } else {
+      byte[] copy = bytes.toArray();
+      return decode(copy, 0, copy.length);
+    }
+  }
+
+  /**
+   * Decode fields encoded in either encoding.
+   * @param bytes
+   * @return
+   */
+  public static String[] decode(byte[] bytes) {
+    return decode(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Decode fields encoded in either encoding,
+   * from the given region of the array.
+   * @param bytes
+   * @param offset
+   * @param length
+   * @return
+   */
+  public static String[] decode(byte[] bytes, int offset, int length) {
+    List<String> fields = new ArrayList<String>(3);
+    int end = offset + length;
+
+    if (length > 0 && bytes[offset] == MARKER) {
+      if (length < 2 || bytes[offset + 1] != VERSION) {
+        throw new AccumuloGraphException("Unsupported key encoding version");
+      }
+
+      int pos = offset + 2;
+      while (pos < end) {
+        int len = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = bytes[pos++];
+          len |= (b & 0x7f) << shift;
+          shift += 7;
+        } while ((b & 0x80) != 0);
+
+        fields.add(new String(bytes, pos, len, UTF8));
+        pos += len;
+      }
+    } else {
+      int start = offset;
+      for (int i = offset; i <= end - DELIM.length; i++) {
+        if (regionMatches(bytes, i, DELIM)) {
+          fields.add(new String(bytes, start, i - start, UTF8));
+          i += DELIM.length - 1;
+          start = i + 1;
+        }
+      }
+      fields.add(new String(bytes, start, end - start, UTF8));
+    }
+
+    return fields.toArray(new String[fields.size()]);
+  }
+
+  private static void writeField(ByteArrayOutputStream out, String field) {
+    byte[] bytes = field.getBytes(UTF8);
+    int len = bytes.length;
+    while ((len & ~0x7f) != 0) {
+      out.write((len & 0x7f) | 0x80);
+      len >>>= 7;
+    }
+    out.write(len);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static boolean regionMatches(byte[] bytes, int offset, byte[] target) {
+    for (int i = 0; i < target.length; i++) {
+      if (bytes[offset + i] != target[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
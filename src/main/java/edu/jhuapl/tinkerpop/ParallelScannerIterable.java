@@ -0,0 +1,242 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+
+import com.google.common.base.Supplier;
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Element;
+
+/**
+ * Iterable over rows read by several scanners in parallel,
+ * typically one per tablet. Each scanner is read in order by
+ * one of a fixed number of threads, so rows are complete,
+ * but are returned in no particular order.
+ * Each iterator reads its own new scanners, since
+ * scanners are not safe to read from several threads.
+ * Closing the iterable stops the threads.
+ */
+public abstract class ParallelScannerIterable<T extends Element> implements CloseableIterable<T> {
+
+  /**
+   * Rows buffered per thread before
+   * the threads wait for the consumer.
+   */
+  private static final int ROWS_PER_THREAD = 100;
+
+  /**
+   * Marks the end of one scanner's rows.
+   */
+  private static final Row END = new Row(null, null);
+
+  private final Supplier<List<Scanner>> scannerSupplier;
+  private final int maxThreads;
+  private final List<ExecutorService> executors = new ArrayList<ExecutorService>();
+  private final List<Scanner> scanners = new ArrayList<Scanner>();
+
+  /**
+   * Read the scanners from the given supplier, with at most
+   * the given number of them at once. The supplier is called
+   * once per iterator, and must return new scanners each time.
+   * @param scannerSupplier
+   * @param threads
+   */
+  public ParallelScannerIterable(Supplier<List<Scanner>> scannerSupplier, int threads) {
+    this.scannerSupplier = scannerSupplier;
+    this.maxThreads = Math.max(1, threads);
+  }
+
+  /**
+   * Create an element from a complete row.
+   * @param rowId
+   * @param entries
+   * @return
+   */
+  public abstract T next(String rowId, List<Entry<Key, Value>> entries);
+
+  @Override
+  public Iterator<T> iterator() {
+    List<Scanner> iterScanners = scannerSupplier.get();
+    synchronized (executors) {
+      scanners.addAll(iterScanners);
+    }
+
+    int threads = Math.max(1, Math.min(maxThreads, iterScanners.size()));
+    final BlockingQueue<Row> queue = new ArrayBlockingQueue<Row>(threads * ROWS_PER_THREAD);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "AccumuloGraph parallel scan");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    synchronized (executors) {
+      executors.add(executor);
+    }
+
+    for (final Scanner scanner : iterScanners) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            readRows(scanner, queue);
+            queue.put(END);
+          } catch (InterruptedException e) {
+            // Closed.
+          } catch (RuntimeException e) {
+            try {
+              queue.put(new Row(e));
+            } catch (InterruptedException ie) {
+              // Closed.
+            }
+          }
+        }
+      });
+    }
+    executor.shutdown();
+
+    return new RowIterator(queue, iterScanners.size());
+  }
+
+  /**
+   * Group the scanner's entries into rows
+   * and put them on the queue.
+   */
+  private static void readRows(Scanner scanner, BlockingQueue<Row> queue)
+      throws InterruptedException {
+    Text rowId = null;
+    List<Entry<Key, Value>> entries = null;
+    for (Entry<Key, Value> entry : scanner) {
+      if (rowId == null || !rowId.equals(entry.getKey().getRow())) {
+        if (rowId != null) {
+          queue.put(new Row(rowId.toString(), entries));
+        }
+        rowId = entry.getKey().getRow();
+        entries = new ArrayList<Entry<Key, Value>>();
+      }
+      entries.add(entry);
+    }
+    if (rowId != null) {
+      queue.put(new Row(rowId.toString(), entries));
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (executors) {
+      for (ExecutorService executor : executors) {
+        executor.shutdownNow();
+      }
+      executors.clear();
+
+      for (Scanner scanner : scanners) {
+        scanner.close();
+      }
+      scanners.clear();
+    }
+  }
+
+  @Override
+  protected void finalize() {
+    close();
+  }
+
+  /**
+   * A complete row, or an error from reading it.
+   */
+  private static class Row {
+    final String id;
+    final List<Entry<Key, Value>> entries;
+    final RuntimeException error;
+
+    Row(String id, List<Entry<Key, Value>> entries) {
+      this.id = id;
+      this.entries = entries;
+      this.error = null;
+    }
+
+    Row(RuntimeException error) {
+      this.id = null;
+      this.entries = null;
+      this.error = error;
+    }
+  }
+
+  private class RowIterator implements Iterator<T> {
+    private final BlockingQueue<Row> queue;
+    private int remaining;
+    private Row next;
+
+    private RowIterator(BlockingQueue<Row> queue, int scanners) {
+      this.queue = queue;
+      this.remaining = scanners;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && remaining > 0) {
+        Row row;
+        try {
+          row = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new AccumuloGraphException(e);
+        }
+
+        if (row.error != null) {
+          close();
+          throw new AccumuloGraphException(row.error);
+        } else if (row == END) {
+          remaining--;
+        } else {
+          next = row;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Row row = next;
+      next = null;
+      return ParallelScannerIterable.this.next(row.id, row.entries);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
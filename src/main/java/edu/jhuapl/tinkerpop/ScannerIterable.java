@@ -31,14 +31,43 @@ import com.tinkerpop.blueprints.Element;
 public abstract class ScannerIterable<T extends Element> implements CloseableIterable<T> {
 
   private ScannerBase scanner;
+  private final int limit;
+  private Iterator<Entry<Key,Value>> started;
 
   public ScannerIterable(ScannerBase scanner) {
+    this(scanner, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Iterate over at most limit elements.
+   * @param scanner
+   * @param limit
+   */
+  public ScannerIterable(ScannerBase scanner, int limit) {
+    this(scanner, null, limit);
+  }
+
+  /**
+   * Iterate over at most limit elements, reading the
+   * first iteration's entries from the given iterator
+   * over the scanner, if not null, rather than starting
+   * a new scan. Later iterations scan again.
+   * @param scanner
+   * @param started
+   * @param limit
+   */
+  public ScannerIterable(ScannerBase scanner,
+      Iterator<Entry<Key,Value>> started, int limit) {
     this.scanner = scanner;
+    this.started = started;
+    this.limit = limit;
   }
 
   @Override
   public Iterator<T> iterator() {
-    return new ScannerIterator(new PeekingIterator<Entry<Key,Value>>(scanner.iterator()));
+    Iterator<Entry<Key,Value>> entries = started != null ? started : scanner.iterator();
+    started = null;
+    return new ScannerIterator(new PeekingIterator<Entry<Key,Value>>(entries));
   }
 
   public abstract T next(PeekingIterator<Entry<Key,Value>> iterator);
@@ -58,6 +87,7 @@ public abstract class ScannerIterable<T extends Element> implements CloseableIte
 
   private class ScannerIterator implements Iterator<T> {
     private PeekingIterator<Entry<Key,Value>> iterator;
+    private int count = 0;
 
     private ScannerIterator(PeekingIterator<Entry<Key,Value>> iterator) {
       this.iterator = iterator;
@@ -65,11 +95,12 @@ public abstract class ScannerIterable<T extends Element> implements CloseableIte
 
     @Override
     public boolean hasNext() {
-      return iterator.hasNext();
+      return count < limit && iterator.hasNext();
     }
 
     @Override
     public T next() {
+      count++;
       return ScannerIterable.this.next(iterator);
     }
 
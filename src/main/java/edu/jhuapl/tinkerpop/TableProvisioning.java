@@ -0,0 +1,130 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.admin.TableOperations;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Applies the table settings of an {@link AccumuloGraphConfiguration}
+ * (locality groups, bloom filters, caching and compression)
+ * to a graph's tables. Settings are applied when tables are
+ * created, and can be applied to an existing graph with
+ * {@link #apply(AccumuloGraphConfiguration, boolean)}.
+ * Settings which are not configured are left alone.
+ */
+public final class TableProvisioning {
+
+  /**
+   * Locality group for edge entries in the vertex table.
+   */
+  public static final String EDGE_LOCALITY_GROUP = "edges";
+
+  private TableProvisioning() {
+
+  }
+
+  /**
+   * Apply the configuration's table settings to all tables
+   * of the graph it describes, including named index tables.
+   * Locality group and compression changes only affect existing
+   * data once it is compacted, so if compact is true, also
+   * start a compaction of each table.
+   * @param config
+   * @param compact
+   */
+  public static void apply(AccumuloGraphConfiguration config, boolean compact) {
+    try {
+      TableOperations tableOps = config.getConnector().tableOperations();
+
+      Set<String> tables = new LinkedHashSet<String>(config.getTableNames());
+      String indexPrefix = config.getNamedIndexTableName("");
+      for (String table : tableOps.list()) {
+        if (table.startsWith(indexPrefix)) {
+          tables.add(table);
+        }
+      }
+
+      for (String table : tables) {
+        if (tableOps.exists(table)) {
+          apply(config, table);
+          if (compact) {
+            tableOps.compact(table, null, null, true, false);
+          }
+        }
+      }
+    } catch (Exception e) {
+      throw new AccumuloGraphException(e);
+    }
+  }
+
+  /**
+   * Apply the configuration's table settings
+   * to the given table of its graph.
+   * @param config
+   * @param table
+   */
+  static void apply(AccumuloGraphConfiguration config, String table) {
+    try {
+      TableOperations tableOps = config.getConnector().tableOperations();
+
+      Boolean localityGroups = config.getTableLocalityGroups();
+      if (localityGroups != null && table.equals(config.getVertexTableName())) {
+        Map<String, Set<Text>> groups = new HashMap<String, Set<Text>>();
+        if (localityGroups) {
+          Set<Text> edges = new HashSet<Text>();
+          edges.add(new Text(Constants.IN_EDGE));
+          edges.add(new Text(Constants.OUT_EDGE));
+          groups.put(EDGE_LOCALITY_GROUP, edges);
+        }
+        tableOps.setLocalityGroups(table, groups);
+      }
+
+      // Metadata is small and always read whole.
+      Boolean bloomFilters = config.getTableBloomFilters();
+      if (bloomFilters != null && !table.equals(config.getIndexMetadataTableName())) {
+        tableOps.setProperty(table, Property.TABLE_BLOOM_ENABLED.getKey(),
+            bloomFilters.toString());
+      }
+
+      Boolean blockCache = config.getTableBlockCache();
+      if (blockCache != null) {
+        tableOps.setProperty(table, Property.TABLE_BLOCKCACHE_ENABLED.getKey(),
+            blockCache.toString());
+      }
+
+      Boolean indexCache = config.getTableIndexCache();
+      if (indexCache != null) {
+        tableOps.setProperty(table, Property.TABLE_INDEXCACHE_ENABLED.getKey(),
+            indexCache.toString());
+      }
+
+      String compression = config.getTableCompression();
+      if (compression != null) {
+        tableOps.setProperty(table, Property.TABLE_FILE_COMPRESSION_TYPE.getKey(),
+            compression);
+      }
+    } catch (Exception e) {
+      throw new AccumuloGraphException(e);
+    }
+  }
+}
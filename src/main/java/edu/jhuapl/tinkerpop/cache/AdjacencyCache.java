@@ -0,0 +1,182 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.tinkerpop.blueprints.Direction;
+
+/**
+ * Cache of vertices' edges, for each direction and set of
+ * labels requested. Entries are grouped by vertex, so that
+ * all of a vertex's entries can be invalidated together
+ * when its edges change. The cache is bounded by the total
+ * number of edges held, and edge lists longer than the
+ * degree cap are not stored.
+ * <p/>Each vertex has a generation, shared with the other
+ * vertices in its lock stripe, which invalidation advances.
+ * A list is only stored if its vertex's generation is
+ * unchanged since the list was read, so that a list read
+ * before an invalidation cannot be cached after it.
+ */
+public class AdjacencyCache {
+
+  private static final int STRIPES = 64;
+
+  private final Cache<String, Map<List<Object>, AdjacencyList>> cache;
+  private final int maxDegree;
+
+  private final Object[] locks = new Object[STRIPES];
+  private final long[] generations = new long[STRIPES];
+
+  public AdjacencyCache(int size, int timeout, int maxDegree) {
+    this.maxDegree = maxDegree;
+    cache = CacheBuilder.newBuilder()
+        .maximumWeight(size)
+        .weigher(new Weigher<String, Map<List<Object>, AdjacencyList>>() {
+          @Override
+          public int weigh(String key, Map<List<Object>, AdjacencyList> value) {
+            int weight = 0;
+            for (AdjacencyList list : value.values()) {
+              weight += list.size() + 1;
+            }
+            return weight;
+          }
+        })
+        .expireAfterWrite(timeout, TimeUnit.MILLISECONDS)
+        .build();
+    for (int i = 0; i < STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  /**
+   * Largest number of edges to cache
+   * for one vertex, direction and set of labels.
+   * @return
+   */
+  public int getMaxDegree() {
+    return maxDegree;
+  }
+
+  /**
+   * Return the cached edges of the given vertex, or null if
+   * not cached. Returns {@link AdjacencyList#SUPERNODE}
+   * if there are too many edges to cache.
+   * @param vertexId
+   * @param direction
+   * @param labels
+   * @return
+   */
+  public AdjacencyList get(String vertexId, Direction direction, String... labels) {
+    Map<List<Object>, AdjacencyList> lists = cache.getIfPresent(vertexId);
+    return lists != null ? lists.get(key(direction, labels)) : null;
+  }
+
+  /**
+   * Return the given vertex's generation, to be
+   * read before reading its edges and passed to
+   * {@link #put(String, long, Direction, String[], AdjacencyList)}.
+   * @param vertexId
+   * @return
+   */
+  public long getGeneration(String vertexId) {
+    int stripe = stripe(vertexId);
+    synchronized (locks[stripe]) {
+      return generations[stripe];
+    }
+  }
+
+  /**
+   * Cache the edges of the given vertex, unless it has been
+   * invalidated since the given generation. Lists longer than
+   * the degree cap are replaced by {@link AdjacencyList#SUPERNODE}.
+   * @param vertexId
+   * @param generation the vertex's generation before the list was read
+   * @param direction
+   * @param labels
+   * @param list
+   */
+  public void put(String vertexId, long generation, Direction direction,
+      String[] labels, AdjacencyList list) {
+    if (list.size() > maxDegree) {
+      list = AdjacencyList.SUPERNODE;
+    }
+
+    int stripe = stripe(vertexId);
+    synchronized (locks[stripe]) {
+      if (generations[stripe] != generation) {
+        return;
+      }
+
+      // Copy on write, so that the entry is reweighed.
+      Map<List<Object>, AdjacencyList> lists = cache.getIfPresent(vertexId);
+      Map<List<Object>, AdjacencyList> updated = lists != null ?
+          new HashMap<List<Object>, AdjacencyList>(lists) :
+          new HashMap<List<Object>, AdjacencyList>();
+      updated.put(key(direction, labels), list);
+      cache.put(vertexId, Collections.unmodifiableMap(updated));
+    }
+  }
+
+  /**
+   * Remove all entries of the given vertex,
+   * and advance its generation.
+   * @param vertexId
+   */
+  public void invalidate(String vertexId) {
+    int stripe = stripe(vertexId);
+    synchronized (locks[stripe]) {
+      generations[stripe]++;
+      cache.invalidate(vertexId);
+    }
+  }
+
+  public void clear() {
+    for (int i = 0; i < STRIPES; i++) {
+      synchronized (locks[i]) {
+        generations[i]++;
+      }
+    }
+    cache.invalidateAll();
+  }
+
+  private static int stripe(String vertexId) {
+    return (vertexId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+  }
+
+  /**
+   * Key of an edge list within a vertex's entry,
+   * independent of the order of the labels.
+   */
+  private static List<Object> key(Direction direction, String... labels) {
+    List<Object> key = new ArrayList<Object>();
+    key.add(direction);
+    if (labels != null) {
+      key.addAll(new TreeSet<String>(Arrays.asList(labels)));
+    }
+    return key;
+  }
+}
@@ -0,0 +1,80 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.cache;
+
+import java.util.Arrays;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * A vertex's edges in one direction with a given set of labels,
+ * as cached by {@link AdjacencyCache}. Each edge is stored as its
+ * id, the id of the vertex at its other end, its label, and
+ * whether it is outgoing, in parallel arrays. Labels are interned,
+ * since there are usually few distinct labels.
+ * <p/>Lists are built by a single thread, then only read.
+ */
+public class AdjacencyList {
+
+  /**
+   * Placeholder cached for vertices with more edges
+   * than the cache's degree cap.
+   */
+  public static final AdjacencyList SUPERNODE = new AdjacencyList();
+
+  private static final Interner<String> LABELS = Interners.newWeakInterner();
+
+  private String[] edgeIds = new String[4];
+  private String[] neighborIds = new String[4];
+  private String[] labels = new String[4];
+  private boolean[] outgoing = new boolean[4];
+  private int size;
+
+  public void add(String edgeId, String neighborId, String label, boolean out) {
+    if (size == edgeIds.length) {
+      int capacity = size * 2;
+      edgeIds = Arrays.copyOf(edgeIds, capacity);
+      neighborIds = Arrays.copyOf(neighborIds, capacity);
+      labels = Arrays.copyOf(labels, capacity);
+      outgoing = Arrays.copyOf(outgoing, capacity);
+    }
+    edgeIds[size] = edgeId;
+    neighborIds[size] = neighborId;
+    labels[size] = LABELS.intern(label);
+    outgoing[size] = out;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public String getEdgeId(int i) {
+    return edgeIds[i];
+  }
+
+  public String getNeighborId(int i) {
+    return neighborIds[i];
+  }
+
+  public String getLabel(int i) {
+    return labels[i];
+  }
+
+  public boolean isOutgoing(int i) {
+    return outgoing[i];
+  }
+}
@@ -0,0 +1,61 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.cache;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Shared clock for cache expiry, updated every
+ * {@link #RESOLUTION} milliseconds by a background
+ * thread, so that checking expiry is a field read
+ * rather than a system call.
+ */
+final class CoarseClock {
+
+  /**
+   * Milliseconds between clock updates.
+   */
+  static final long RESOLUTION = 10;
+
+  private static volatile long now = System.currentTimeMillis();
+
+  static {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true)
+        .setNameFormat("AccumuloGraph cache clock").build());
+    executor.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        now = System.currentTimeMillis();
+      }
+    }, RESOLUTION, RESOLUTION, TimeUnit.MILLISECONDS);
+  }
+
+  private CoarseClock() {
+
+  }
+
+  /**
+   * The current time, to within {@link #RESOLUTION}.
+   * @return
+   */
+  static long currentTimeMillis() {
+    return now;
+  }
+}
@@ -14,6 +14,19 @@
  */
 package edu.jhuapl.tinkerpop.cache;
 
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
@@ -23,12 +36,26 @@ import edu.jhuapl.tinkerpop.AccumuloGraphException;
 
 /**
  * Utility class wrapping element caches.
+ * This also holds the graph-wide property cache, if
+ * enabled, which is shared by all instances of an element
+ * and bounded by the approximate size of its contents,
+ * and its optional off-heap second tier, the cache
+ * of ids of elements known not to exist, and the
+ * cache of vertices' edges.
  */
 public class ElementCaches {
   private ElementCache<Vertex> vertexCache;
   private ElementCache<Edge> edgeCache;
+  private Cache<ElementKey, PropertyCache> propertyCache;
+  private OffHeapPropertyStore offHeapStore;
+  private Cache<ElementKey, Boolean> missing;
+  private AdjacencyCache adjacencyCache;
+
+  private final AccumuloGraphConfiguration config;
 
   public ElementCaches(AccumuloGraphConfiguration config) {
+    this.config = config;
+
     if (config.getVertexCacheEnabled()) {
       vertexCache = new ElementCache<Vertex>(config.getVertexCacheSize(),
           config.getVertexCacheTimeout());
@@ -38,12 +65,53 @@ public class ElementCaches {
       edgeCache = new ElementCache<Edge>(config.getEdgeCacheSize(),
           config.getEdgeCacheTimeout());
     }
+
+    if (config.getPropertyCacheMemory() > 0) {
+      CacheBuilder<ElementKey, PropertyCache> builder = CacheBuilder.newBuilder()
+          .maximumWeight(config.getPropertyCacheMemory())
+          .weigher(new Weigher<ElementKey, PropertyCache>() {
+            @Override
+            public int weigh(ElementKey key, PropertyCache value) {
+              return key.estimateSize() + value.estimateSize();
+            }
+          });
+
+      if (config.getPropertyCacheOffHeapMemory() > 0) {
+        offHeapStore = new OffHeapPropertyStore(config.getPropertyCacheOffHeapMemory());
+        builder = builder.removalListener(new RemovalListener<ElementKey, PropertyCache>() {
+          @Override
+          public void onRemoval(RemovalNotification<ElementKey, PropertyCache> notification) {
+            if (notification.getCause() == RemovalCause.SIZE) {
+              offHeapStore.put(notification.getKey().storeKey(),
+                  notification.getValue().serialize());
+            }
+          }
+        });
+      }
+
+      propertyCache = builder.build();
+    }
+
+    if (config.getMissingElementCacheEnabled()) {
+      missing = CacheBuilder.newBuilder()
+          .maximumSize(config.getMissingElementCacheSize())
+          .expireAfterWrite(config.getMissingElementCacheTimeout(), TimeUnit.MILLISECONDS)
+          .build();
+    }
+
+    if (config.getAdjacencyCacheEnabled()) {
+      adjacencyCache = new AdjacencyCache(config.getAdjacencyCacheSize(),
+          config.getAdjacencyCacheTimeout(), config.getAdjacencyCacheMaxDegree());
+    }
   }
 
   public <T extends Element> void cache(T element, Class<T> clazz) {
     if (pick(clazz) != null) {
       pick(clazz).cache(element);
     }
+    if (missing != null) {
+      missing.invalidate(new ElementKey(clazz, element.getId()));
+    }
   }
 
   public <T extends Element> T retrieve(Object id, Class<T> clazz) {
@@ -54,12 +122,133 @@ public class ElementCaches {
     if (pick(clazz) != null) {
       pick(clazz).remove(id);
     }
+    if (propertyCache != null) {
+      ElementKey key = new ElementKey(clazz, id);
+      propertyCache.invalidate(key);
+      if (offHeapStore != null) {
+        offHeapStore.remove(key.storeKey());
+      }
+    }
+    if (adjacencyCache != null && Vertex.class.equals(clazz)) {
+      adjacencyCache.invalidate(id.toString());
+    }
+    markMissing(id, clazz);
   }
 
   public <T extends Element> void clear(Class<T> clazz) {
     if (pick(clazz) != null) {
       pick(clazz).clear();
     }
+    if (propertyCache != null) {
+      Iterator<ElementKey> keys = propertyCache.asMap().keySet().iterator();
+      while (keys.hasNext()) {
+        if (keys.next().type.equals(clazz)) {
+          keys.remove();
+        }
+      }
+      if (offHeapStore != null) {
+        offHeapStore.removeAll(ElementKey.prefix(clazz));
+      }
+    }
+    if (adjacencyCache != null && Vertex.class.equals(clazz)) {
+      adjacencyCache.clear();
+    }
+    if (missing != null) {
+      Iterator<ElementKey> keys = missing.asMap().keySet().iterator();
+      while (keys.hasNext()) {
+        if (keys.next().type.equals(clazz)) {
+          keys.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * The cache of vertices' edges,
+   * or null if not enabled.
+   * @return
+   */
+  public AdjacencyCache getAdjacencyCache() {
+    return adjacencyCache;
+  }
+
+  /**
+   * Record that the element with the given id does
+   * not exist, if the missing element cache is enabled.
+   * Caching the element later replaces this.
+   * @param id
+   * @param clazz
+   */
+  public <T extends Element> void markMissing(Object id, Class<T> clazz) {
+    if (missing != null) {
+      missing.put(new ElementKey(clazz, id), Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Whether the element with the given id
+   * is known not to exist.
+   * @param id
+   * @param clazz
+   * @return
+   */
+  public <T extends Element> boolean isMissing(Object id, Class<T> clazz) {
+    return missing != null &&
+        missing.getIfPresent(new ElementKey(clazz, id)) != null;
+  }
+
+  /**
+   * Whether element properties are cached in the
+   * graph-wide property cache, rather than in
+   * each element instance.
+   * @return
+   */
+  public boolean getPropertiesShared() {
+    return propertyCache != null;
+  }
+
+  /**
+   * Return the shared property cache for the given element.
+   * If not present, it is restored from the off-heap tier,
+   * if there, or otherwise created with the given loader.
+   * @param id
+   * @param clazz
+   * @param loader
+   * @return
+   */
+  public <T extends Element> PropertyCache retrieveProperties(Object id,
+      Class<T> clazz, final Callable<PropertyCache> loader) {
+    final ElementKey key = new ElementKey(clazz, id);
+    try {
+      if (offHeapStore == null) {
+        return propertyCache.get(key, loader);
+      }
+      return propertyCache.get(key, new Callable<PropertyCache>() {
+        @Override
+        public PropertyCache call() throws Exception {
+          byte[] data = offHeapStore.take(key.storeKey());
+          return data != null ? PropertyCache.deserialize(config, data) : loader.call();
+        }
+      });
+    } catch (ExecutionException e) {
+      throw new AccumuloGraphException(e.getCause());
+    } catch (UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Update the size of the given element's shared
+   * property cache, after its contents have changed.
+   * Does nothing if it has since been evicted.
+   * @param id
+   * @param clazz
+   * @param properties
+   */
+  public <T extends Element> void updateProperties(Object id,
+      Class<T> clazz, PropertyCache properties) {
+    propertyCache.asMap().replace(new ElementKey(clazz, id),
+        properties, properties);
   }
 
   @SuppressWarnings("unchecked")
@@ -74,4 +263,46 @@ public class ElementCaches {
       throw new AccumuloGraphException("Unknown element class: "+clazz);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Key of an element in the property cache.
+   */
+  private static final class ElementKey {
+    private final Class<? extends Element> type;
+    private final Object id;
+
+    public ElementKey(Class<? extends Element> type, Object id) {
+      this.type = type;
+      this.id = id;
+    }
+
+    /**
+     * Prefix of the off-heap store keys of the given type.
+     */
+    public static String prefix(Class<? extends Element> type) {
+      return Vertex.class.equals(type) ? "v" : "e";
+    }
+
+    public String storeKey() {
+      return prefix(type) + id;
+    }
+
+    public int estimateSize() {
+      return 32 + (id instanceof String ? 40 + 2 * ((String) id).length() : 16);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof ElementKey)) {
+        return false;
+      }
+      ElementKey other = (ElementKey) obj;
+      return type.equals(other.type) && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return type.hashCode() ^ id.hashCode();
+    }
+  }
+}
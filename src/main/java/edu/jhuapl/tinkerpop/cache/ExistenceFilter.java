@@ -0,0 +1,61 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.cache;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * Bloom filter of element ids, used to answer existence
+ * checks for ids which definitely do not exist without
+ * a round-trip to Accumulo. Ids are never removed, so a
+ * removed element is still reported as possibly existing.
+ * <p/>The filter only knows about elements which existed when
+ * it was loaded and those added through this graph instance,
+ * so it is only accurate with a single writer.
+ */
+public class ExistenceFilter {
+
+  /**
+   * False positive rate when the filter
+   * holds its expected number of ids.
+   */
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  private final BloomFilter<CharSequence> filter;
+
+  public ExistenceFilter(int expectedIds) {
+    filter = BloomFilter.create(Funnels.stringFunnel(),
+        expectedIds, FALSE_POSITIVE_RATE);
+  }
+
+  /**
+   * Record that the given id exists.
+   * @param id
+   */
+  public synchronized void add(String id) {
+    filter.put(id);
+  }
+
+  /**
+   * Return false if the given id definitely does
+   * not exist, or true if it might.
+   * @param id
+   * @return
+   */
+  public synchronized boolean mightContain(String id) {
+    return filter.mightContain(id);
+  }
+}
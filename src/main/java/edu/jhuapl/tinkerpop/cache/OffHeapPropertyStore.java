@@ -0,0 +1,163 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Off-heap store for serialized element properties, used as
+ * a second tier behind the graph-wide property cache.
+ * Entries are appended to a ring of direct {@link ByteBuffer}
+ * slabs; when the ring is full, the oldest slab is cleared and
+ * its entries dropped. Only the index of entry positions is
+ * kept on the heap.
+ * <p/>Direct memory is limited by the JVM's
+ * <tt>-XX:MaxDirectMemorySize</tt> setting.
+ */
+public class OffHeapPropertyStore {
+
+  /**
+   * Largest slab to allocate.
+   */
+  static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * Fewest slabs to allocate, so that wrapping
+   * around drops only part of the store.
+   */
+  static final int MIN_SLABS = 4;
+
+  private final ByteBuffer[] slabs;
+  private final Map<String, Long> index = new HashMap<String, Long>();
+  private int current;
+
+  public OffHeapPropertyStore(long bytes) {
+    int count = (int) Math.max(MIN_SLABS, (bytes + MAX_SLAB_SIZE - 1) / MAX_SLAB_SIZE);
+    int slabSize = (int) Math.min(MAX_SLAB_SIZE, bytes / count);
+    slabs = new ByteBuffer[count];
+    for (int i = 0; i < count; i++) {
+      slabs[i] = ByteBuffer.allocateDirect(slabSize);
+    }
+  }
+
+  /**
+   * Store serialized properties under the given key,
+   * replacing any already stored. Entries larger than
+   * a slab are not stored.
+   * @param key
+   * @param value
+   */
+  public synchronized void put(String key, byte[] value) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int length = 8 + keyBytes.length + value.length;
+    if (length > slabs[0].capacity()) {
+      index.remove(key);
+      return;
+    }
+
+    if (slabs[current].remaining() < length) {
+      current = (current + 1) % slabs.length;
+      clearSlab(current);
+    }
+
+    ByteBuffer slab = slabs[current];
+    long position = ((long) current << 32) | slab.position();
+    slab.putInt(keyBytes.length).put(keyBytes)
+      .putInt(value.length).put(value);
+    index.put(key, position);
+  }
+
+  /**
+   * Remove and return the properties stored
+   * under the given key, or null if none.
+   * @param key
+   * @return
+   */
+  public synchronized byte[] take(String key) {
+    Long position = index.remove(key);
+    if (position == null) {
+      return null;
+    }
+
+    ByteBuffer slab = slabs[(int) (position >>> 32)].duplicate();
+    int offset = (int) (position & 0xFFFFFFFFL);
+    int valueOffset = offset + 4 + slab.getInt(offset);
+    byte[] value = new byte[slab.getInt(valueOffset)];
+    slab.position(valueOffset + 4);
+    slab.get(value);
+    return value;
+  }
+
+  public synchronized void remove(String key) {
+    index.remove(key);
+  }
+
+  /**
+   * Remove all entries whose keys have the given prefix.
+   * @param prefix
+   */
+  public synchronized void removeAll(String prefix) {
+    Iterator<String> keys = index.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(prefix)) {
+        keys.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    index.clear();
+    for (ByteBuffer slab : slabs) {
+      slab.clear();
+    }
+    current = 0;
+  }
+
+  /**
+   * Number of entries stored.
+   * @return
+   */
+  public synchronized int size() {
+    return index.size();
+  }
+
+  /**
+   * Drop the entries in the given slab, and empty it.
+   * Entries which were replaced or taken since
+   * being written are no longer indexed here.
+   * @param i
+   */
+  private void clearSlab(int i) {
+    ByteBuffer slab = slabs[i].duplicate();
+    slab.flip();
+    while (slab.hasRemaining()) {
+      long position = ((long) i << 32) | slab.position();
+      byte[] keyBytes = new byte[slab.getInt()];
+      slab.get(keyBytes);
+      slab.position(slab.position() + 4 + slab.getInt(slab.position()));
+
+      String key = new String(keyBytes, StandardCharsets.UTF_8);
+      Long indexed = index.get(key);
+      if (indexed != null && indexed == position) {
+        index.remove(key);
+      }
+    }
+    slabs[i].clear();
+  }
+}
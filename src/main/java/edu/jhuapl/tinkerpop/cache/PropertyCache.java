@@ -14,12 +14,22 @@
  */
 package edu.jhuapl.tinkerpop.cache;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import com.tinkerpop.blueprints.util.StringFactory;
+
+import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
 import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration;
+import edu.jhuapl.tinkerpop.Constants;
 
 /**
  * Cache for storing element properties.
@@ -27,37 +37,179 @@ import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration;
  * as well as per-property eviction.
  * If caching is disabled for the given property,
  * this does nothing (stores no values).
+ * <p/>Elements usually have only a handful of properties,
+ * and there is one cache per element, so entries are kept
+ * in small parallel arrays and searched linearly rather
+ * than in a map. Keys are interned so that elements
+ * share a single copy of each property name, and expiry
+ * is checked against the shared {@link CoarseClock}.
+ * <p/>A cache may be shared by several instances of the
+ * same element (see {@link ElementCaches}), so access
+ * is synchronized.
  */
 public class PropertyCache {
 
+  private static final Interner<String> KEYS = Interners.newWeakInterner();
+
+  private static final String[] NO_KEYS = new String[0];
+  private static final Object[] NO_VALUES = new Object[0];
+  private static final long[] NO_EXPIRIES = new long[0];
+
+  /**
+   * Value of properties known to be absent.
+   */
+  private static final Object ABSENT = new Object();
+
   private final AccumuloGraphConfiguration cfg;
-  private final Map<String, TimedValue> values;
+
+  private String[] keys = NO_KEYS;
+  private Object[] values = NO_VALUES;
+  private long[] expiries = NO_EXPIRIES;
+  private int size;
+
+  private Set<String> propertyKeys;
+  private long propertyKeysExpiry;
 
   public PropertyCache(AccumuloGraphConfiguration cfg) {
     this.cfg = cfg;
-    this.values = new HashMap<String, TimedValue>();
   }
 
-  public boolean containsKey(String key) {
-    return values.containsKey(key);
+  public synchronized boolean containsKey(String key) {
+    int i = indexOf(key);
+    return i >= 0 && values[i] != ABSENT;
+  }
+
+  public synchronized Set<String> keySet() {
+    Set<String> keySet = new HashSet<String>();
+    for (int i = 0; i < size; i++) {
+      if (values[i] != ABSENT) {
+        keySet.add(keys[i]);
+      }
+    }
+    return keySet;
+  }
+
+  /**
+   * Cache the element's full set of property keys,
+   * if the default timeout is set. Keys are kept up
+   * to date by {@link #put(String, Object)} and
+   * {@link #remove(String)}.
+   * @param keys
+   * @return whether the keys were cached
+   */
+  public synchronized boolean putKeys(Set<String> keys) {
+    Integer timeout = getTimeout(null);
+    if (timeout == null) {
+      return false;
+    }
+    propertyKeys = new HashSet<String>(keys);
+    propertyKeysExpiry = CoarseClock.currentTimeMillis() + timeout;
+    return true;
   }
 
-  public Set<String> keySet() {
-    return values.keySet();
+  /**
+   * Return the element's cached property keys,
+   * or null if not cached.
+   * @return
+   */
+  public synchronized Set<String> getKeys() {
+    if (propertyKeys != null && propertyKeysExpiry <= CoarseClock.currentTimeMillis()) {
+      propertyKeys = null;
+    }
+    return propertyKeys != null ? new HashSet<String>(propertyKeys) : null;
   }
 
-  public void put(String key, Object value) {
+  /**
+   * Cache a value, replacing any earlier value
+   * or record of the property being absent.
+   * @param key
+   * @param value
+   * @return whether this changed the {@link #estimateSize()
+   *   estimated size}, rather than just refreshing a value
+   */
+  public synchronized boolean put(String key, Object value) {
+    boolean changed = false;
+    if (propertyKeys != null && !StringFactory.LABEL.equals(key) &&
+        !Constants.LABEL.equals(key)) {
+      changed = propertyKeys.add(key);
+    }
+
     Integer timeout = getTimeout(key);
 
-    // Don't cache anything without a specified timeout.
+    // Don't cache anything without a specified timeout,
+    // but drop any record of the property being absent.
     if (timeout == null) {
-      return;
+      int i = indexOf(key);
+      if (i >= 0) {
+        removeAt(i);
+        return true;
+      }
+      return changed;
     }
-    values.put(key, new TimedValue(value,
-        System.currentTimeMillis() + timeout));
+    return put(key, value, CoarseClock.currentTimeMillis() + timeout) || changed;
   }
 
-  public void putAll(Map<String, Object> entries) {
+  /**
+   * Store a value with the given expiry time.
+   * @param key
+   * @param value
+   * @param expiry
+   * @return whether this changed the estimated size
+   */
+  private boolean put(String key, Object value, long expiry) {
+    boolean changed = true;
+    int i = indexOf(key);
+    if (i >= 0) {
+      changed = (values[i] == ABSENT) != (value == ABSENT) ||
+          estimateSize(values[i]) != estimateSize(value);
+    } else {
+      if (size == keys.length) {
+        int capacity = Math.max(4, size * 2);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        expiries = Arrays.copyOf(expiries, capacity);
+      }
+      i = size++;
+      keys[i] = KEYS.intern(key);
+    }
+    values[i] = value;
+    expiries[i] = expiry;
+    return changed;
+  }
+
+  /**
+   * Record that the given property is absent, if the
+   * missing property timeout is set. Setting the
+   * property replaces this.
+   * @param key
+   * @return whether this changed the estimated size
+   */
+  public synchronized boolean putAbsent(String key) {
+    int timeout = cfg.getMissingPropertyCacheTimeout();
+    if (timeout > 0) {
+      return put(key, ABSENT, CoarseClock.currentTimeMillis() + timeout);
+    }
+    return false;
+  }
+
+  /**
+   * Whether the given property is known to be absent.
+   * @param key
+   * @return
+   */
+  public synchronized boolean isAbsent(String key) {
+    int i = indexOf(key);
+    if (i < 0 || values[i] != ABSENT) {
+      return false;
+    }
+    if (expiries[i] <= CoarseClock.currentTimeMillis()) {
+      removeAt(i);
+      return false;
+    }
+    return true;
+  }
+
+  public synchronized void putAll(Map<String, Object> entries) {
     if(entries==null)return;
     for (Entry<String,Object> ent : entries.entrySet()) {
       put(ent.getKey(), ent.getValue());
@@ -65,76 +217,188 @@ public class PropertyCache {
   }
 
   @SuppressWarnings("unchecked")
-  public <T> T get(String key) {
-    long now = System.currentTimeMillis();
-
-    TimedValue val = values.get(key);
-    if (val != null) {
-      if (val.getExpiry() != null &&
-          val.getExpiry() <= now) {
-        remove(key);
-        return null;
-      }
-      else {
-        return (T) val.getValue();
-      }
+  public synchronized <T> T get(String key) {
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
     }
-
-    return null;
+    if (expiries[i] <= CoarseClock.currentTimeMillis()) {
+      removeAt(i);
+      return null;
+    }
+    return values[i] != ABSENT ? (T) values[i] : null;
   }
 
-  public void remove(String key) {
-    values.remove(key);
+  /**
+   * Drop a property's value or absent marker.
+   * @param key
+   * @return whether this changed the estimated size
+   */
+  public synchronized boolean remove(String key) {
+    boolean changed = false;
+    int i = indexOf(key);
+    if (i >= 0) {
+      removeAt(i);
+      changed = true;
+    }
+    if (propertyKeys != null) {
+      changed |= propertyKeys.remove(key);
+    }
+    return changed;
   }
 
-  public void clear() {
-    values.clear();
+  public synchronized void clear() {
+    Arrays.fill(keys, 0, size, null);
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+    propertyKeys = null;
   }
 
   @Override
-  public String toString() {
-    return values.toString();
+  public synchronized String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(keys[i]).append("=[").append(values[i] != ABSENT ? values[i] : "absent")
+        .append(", ").append(expiries[i]).append("]");
+    }
+    return sb.append("}").toString();
   }
 
   /**
-   * Return the timeout for the given key.
-   * Checks for a key-specific timeout
-   * first, then the default, if any.
-   * Return null if no timeout.
-   * @param key
+   * Serialize the unexpired values and their expiry times,
+   * using {@link AccumuloByteSerializer} for the values.
+   * The cached set of property keys and absent
+   * properties are not included.
    * @return
    */
-  private Integer getTimeout(String key) {
-    int timeout = cfg.getPropertyCacheTimeout(key);
-    if (timeout <= 0) {
-      timeout = cfg.getPropertyCacheTimeout(null);
+  public synchronized byte[] serialize() {
+    long now = CoarseClock.currentTimeMillis();
+    int live = 0;
+    for (int i = 0; i < size; i++) {
+      if (expiries[i] > now && values[i] != ABSENT) {
+        live++;
+      }
     }
-    return timeout > 0 ? timeout : null;
+
+    ByteArrayDataOutput out = ByteStreams.newDataOutput();
+    out.writeInt(live);
+    for (int i = 0; i < size; i++) {
+      if (expiries[i] > now && values[i] != ABSENT) {
+        byte[] value = AccumuloByteSerializer.serialize(values[i]);
+        out.writeUTF(keys[i]);
+        out.writeLong(expiries[i]);
+        out.writeInt(value.length);
+        out.write(value);
+      }
+    }
+    return out.toByteArray();
   }
 
   /**
-   * Value with associated expiry time.
+   * Create a cache from the output of {@link #serialize()},
+   * dropping any values which have since expired.
+   * @param cfg
+   * @param data
+   * @return
    */
-  private static class TimedValue {
-    private final Object value;
-    private final Long expiry;
+  public static PropertyCache deserialize(AccumuloGraphConfiguration cfg, byte[] data) {
+    PropertyCache cache = new PropertyCache(cfg);
+    long now = CoarseClock.currentTimeMillis();
 
-    public TimedValue(Object value, Long expiry) {
-      this.value = value;
-      this.expiry = expiry;
+    ByteArrayDataInput in = ByteStreams.newDataInput(data);
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      String key = in.readUTF();
+      long expiry = in.readLong();
+      byte[] value = new byte[in.readInt()];
+      in.readFully(value);
+      if (expiry > now) {
+        cache.put(key, AccumuloByteSerializer.deserialize(value), expiry);
+      }
     }
+    return cache;
+  }
 
-    public Object getValue() {
-      return value;
+  /**
+   * Approximate heap used by this cache, in bytes.
+   * Keys are interned and shared between elements,
+   * so are not counted.
+   * @return
+   */
+  public synchronized int estimateSize() {
+    int bytes = 64 + 3 * 16 + keys.length * 24;
+    for (int i = 0; i < size; i++) {
+      bytes += estimateSize(values[i]);
+    }
+    if (propertyKeys != null) {
+      bytes += 64 + propertyKeys.size() * 40;
     }
+    return bytes;
+  }
 
-    public Long getExpiry() {
-      return expiry;
+  /**
+   * Approximate heap used by a property value.
+   * Values other than strings and byte arrays
+   * are counted as a small fixed size.
+   * @param value
+   * @return
+   */
+  private static int estimateSize(Object value) {
+    if (value instanceof String) {
+      return 40 + 2 * ((String) value).length();
+    } else if (value instanceof byte[]) {
+      return 16 + ((byte[]) value).length;
+    } else {
+      return 24;
     }
+  }
 
-    @Override
-    public String toString() {
-      return "[" + value + ", " + expiry + "]";
+  /**
+   * Return the position of the given key, or -1.
+   * Stored keys are interned, so lookups with
+   * constant keys mostly match by reference.
+   * @param key
+   * @return
+   */
+  private int indexOf(String key) {
+    for (int i = 0; i < size; i++) {
+      if (keys[i].equals(key)) {
+        return i;
+      }
     }
+    return -1;
+  }
+
+  /**
+   * Remove the entry at the given position by
+   * moving the last entry into its place.
+   * @param i
+   */
+  private void removeAt(int i) {
+    int last = --size;
+    keys[i] = keys[last];
+    values[i] = values[last];
+    expiries[i] = expiries[last];
+    keys[last] = null;
+    values[last] = null;
+  }
+
+  /**
+   * Return the timeout for the given key.
+   * Checks for a key-specific timeout
+   * first, then the default, if any.
+   * Return null if no timeout.
+   * @param key
+   * @return
+   */
+  private Integer getTimeout(String key) {
+    int timeout = cfg.getPropertyCacheTimeout(key);
+    if (timeout <= 0) {
+      timeout = cfg.getPropertyCacheTimeout(null);
+    }
+    return timeout > 0 ? timeout : null;
   }
 }
@@ -0,0 +1,141 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Server-side iterator which returns only the first entry of
+ * each column family in each row, seeking past the rest of the
+ * family rather than reading it. Families may also be excluded
+ * entirely, and are likewise skipped with a single seek.
+ * Used to list an element's property keys without reading
+ * every edge entry of the vertex.
+ * <p/>Note: To use this against a real Accumulo instance, the
+ * AccumuloGraph jar must be on the tablet servers' classpath.
+ */
+public class DistinctColumnFamilyIterator extends WrappingIterator {
+
+  private static final String EXCLUDE = "exclude.";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private Map<String, String> options;
+  private Set<ByteSequence> excluded;
+
+  private Range range;
+  private Collection<ByteSequence> columnFamilies;
+  private boolean inclusive;
+  private boolean exhausted;
+
+  /**
+   * Set column families not to return.
+   * @param is
+   * @param families
+   */
+  public static void setExcludedFamilies(IteratorSetting is, String... families) {
+    for (int i = 0; i < families.length; i++) {
+      is.addOption(EXCLUDE + i, new String(Base64.encodeBase64(families[i].getBytes(UTF8))));
+    }
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key, Value> source,
+      Map<String, String> options, IteratorEnvironment env) throws IOException {
+    super.init(source, options, env);
+    this.options = options;
+
+    excluded = new HashSet<ByteSequence>();
+    for (int i = 0; options.containsKey(EXCLUDE + i); i++) {
+      excluded.add(new ArrayByteSequence(
+          Base64.decodeBase64(options.get(EXCLUDE + i).getBytes())));
+    }
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+    DistinctColumnFamilyIterator copy = new DistinctColumnFamilyIterator();
+    try {
+      copy.init(getSource().deepCopy(env), options, env);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return copy;
+  }
+
+  @Override
+  public void seek(Range range, Collection<ByteSequence> columnFamilies,
+      boolean inclusive) throws IOException {
+    this.range = range;
+    this.columnFamilies = columnFamilies;
+    this.inclusive = inclusive;
+    exhausted = false;
+
+    super.seek(range, columnFamilies, inclusive);
+    skipExcluded();
+  }
+
+  @Override
+  public void next() throws IOException {
+    skipFamily(getSource().getTopKey());
+    skipExcluded();
+  }
+
+  @Override
+  public boolean hasTop() {
+    return !exhausted && super.hasTop();
+  }
+
+  /**
+   * Skip any excluded families at the current position.
+   */
+  private void skipExcluded() throws IOException {
+    SortedKeyValueIterator<Key, Value> source = getSource();
+    while (!exhausted && source.hasTop() &&
+        excluded.contains(source.getTopKey().getColumnFamilyData())) {
+      skipFamily(source.getTopKey());
+    }
+  }
+
+  /**
+   * Seek past the rest of the given key's row and family.
+   */
+  private void skipFamily(Key key) throws IOException {
+    Key following = key.followingKey(PartialKey.ROW_COLFAM);
+    if (range.afterEndKey(following)) {
+      exhausted = true;
+      return;
+    }
+
+    getSource().seek(new Range(following, true, range.getEndKey(),
+        range.isEndKeyInclusive()), columnFamilies, inclusive);
+  }
+}
@@ -0,0 +1,98 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.commons.codec.binary.Base64;
+
+import edu.jhuapl.tinkerpop.AdjacencyLayout;
+import edu.jhuapl.tinkerpop.KeyEncoding;
+
+/**
+ * Server-side filter for edge entries in the vertex table,
+ * which accepts only edges having one of a given set of labels.
+ * Edge entry values hold just the label (see
+ * {@link AdjacencyLayout#getValue(KeyEncoding, String)}),
+ * so this compares each value with the expected values for
+ * each label, in each {@link KeyEncoding}. This is much
+ * cheaper than matching a regular expression against
+ * every entry of a vertex with many edges.
+ * <p/>Note: To use this against a real Accumulo instance, the
+ * AccumuloGraph jar must be on the tablet servers' classpath.
+ */
+public class EdgeLabelFilter extends Filter {
+
+  private static final String LABEL = "label.";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private byte[][] values;
+
+  /**
+   * Set the labels to accept.
+   * @param is
+   * @param labels
+   */
+  public static void setLabels(IteratorSetting is, String... labels) {
+    for (int i = 0; i < labels.length; i++) {
+      is.addOption(LABEL + i, new String(Base64.encodeBase64(labels[i].getBytes(UTF8))));
+    }
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key, Value> source,
+      Map<String, String> options, IteratorEnvironment env) throws IOException {
+    super.init(source, options, env);
+
+    List<byte[]> valueList = new ArrayList<byte[]>();
+    for (int i = 0; options.containsKey(LABEL + i); i++) {
+      String label = new String(Base64.decodeBase64(
+          options.get(LABEL + i).getBytes()), UTF8);
+      for (KeyEncoding encoding : KeyEncoding.values()) {
+        valueList.add(AdjacencyLayout.getValue(encoding, label));
+      }
+    }
+    values = valueList.toArray(new byte[valueList.size()][]);
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+    EdgeLabelFilter copy = (EdgeLabelFilter) super.deepCopy(env);
+    copy.values = values;
+    return copy;
+  }
+
+  @Override
+  public boolean accept(Key k, Value v) {
+    byte[] value = v.get();
+    for (byte[] expected : values) {
+      if (Arrays.equals(value, expected)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
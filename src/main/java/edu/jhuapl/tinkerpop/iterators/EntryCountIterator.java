@@ -0,0 +1,129 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.WrappingIterator;
+
+/**
+ * Server-side iterator which counts the entries in the
+ * scanned range, rather than returning them. This returns
+ * a single entry per seek, whose key is the last entry counted
+ * and whose value is the count, so that a scan which is
+ * interrupted and resumed still counts each entry once.
+ * Clients should sum the values of all returned entries
+ * with {@link #getCount(Value)}.
+ * <p/>Note: To use this against a real Accumulo instance, the
+ * AccumuloGraph jar must be on the tablet servers' classpath.
+ */
+public class EntryCountIterator extends WrappingIterator {
+
+  private static final String LIMIT = "limit";
+
+  private Map<String, String> options;
+  private long limit = Long.MAX_VALUE;
+
+  private Key topKey;
+  private Value topValue;
+
+  /**
+   * Stop counting after the given number of
+   * entries, for when the caller needs no more.
+   * @param is
+   * @param limit
+   */
+  public static void setLimit(IteratorSetting is, long limit) {
+    is.addOption(LIMIT, Long.toString(limit));
+  }
+
+  /**
+   * Decode a count returned by this iterator.
+   * @param value
+   * @return
+   */
+  public static long getCount(Value value) {
+    return Long.parseLong(new String(value.get()));
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key, Value> source,
+      Map<String, String> options, IteratorEnvironment env) throws IOException {
+    super.init(source, options, env);
+    this.options = options;
+    if (options.containsKey(LIMIT)) {
+      limit = Long.parseLong(options.get(LIMIT));
+    }
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+    EntryCountIterator copy = new EntryCountIterator();
+    try {
+      copy.init(getSource().deepCopy(env), options, env);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return copy;
+  }
+
+  @Override
+  public void seek(Range range, Collection<ByteSequence> columnFamilies,
+      boolean inclusive) throws IOException {
+    super.seek(range, columnFamilies, inclusive);
+
+    long count = 0;
+    Key last = null;
+    SortedKeyValueIterator<Key, Value> source = getSource();
+    while (count < limit && source.hasTop()) {
+      last = new Key(source.getTopKey());
+      count++;
+      source.next();
+    }
+
+    topKey = last;
+    topValue = last == null ? null : new Value(Long.toString(count).getBytes());
+  }
+
+  @Override
+  public boolean hasTop() {
+    return topKey != null;
+  }
+
+  @Override
+  public Key getTopKey() {
+    return topKey;
+  }
+
+  @Override
+  public Value getTopValue() {
+    return topValue;
+  }
+
+  @Override
+  public void next() throws IOException {
+    topKey = null;
+    topValue = null;
+  }
+}
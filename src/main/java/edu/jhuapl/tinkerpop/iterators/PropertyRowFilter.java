@@ -0,0 +1,218 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.user.RowFilter;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.hadoop.io.Text;
+
+import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
+
+/**
+ * Server-side iterator which only passes through element rows
+ * whose properties satisfy all of a set of predicates.
+ * This lets property filtering happen on the tablet servers
+ * rather than shipping every row to the client.
+ * <p/>Predicates are evaluated against the deserialized property
+ * values, with the same semantics as Blueprints' {@code Compare}.
+ * A property absent from the row is treated as null. Since the row
+ * is filtered as seen by the scan, the properties referred to by
+ * the predicates must be among the fetched columns.
+ * <p/>Note: To use this against a real Accumulo instance, the
+ * AccumuloGraph jar must be on the tablet servers' classpath.
+ */
+public class PropertyRowFilter extends RowFilter {
+
+  /**
+   * Supported comparisons. These mirror Blueprints'
+   * {@code Compare} predicates, but are defined here
+   * so the iterator does not depend on Blueprints.
+   */
+  public static enum Comparison {
+    EQUAL,
+    NOT_EQUAL,
+    GREATER_THAN,
+    GREATER_THAN_EQUAL,
+    LESS_THAN,
+    LESS_THAN_EQUAL
+  }
+
+  private static final String KEY = "key.";
+  private static final String COMPARISON = "comparison.";
+  private static final String VALUE = "value.";
+
+  /**
+   * Stands in for stored values which cannot be
+   * deserialized here, e.g. enums whose classes are
+   * not available. These never match a comparison
+   * other than {@link Comparison#NOT_EQUAL}.
+   */
+  private static final Object UNREADABLE = new Object();
+
+  private Map<String, String> options;
+  private Map<Text, List<Predicate>> predicates;
+
+  /**
+   * Add a predicate to the given iterator setting.
+   * A null value may be used with {@link Comparison#EQUAL}
+   * and {@link Comparison#NOT_EQUAL} to test for absence
+   * or presence of the property, respectively.
+   * @param is
+   * @param columnFamily
+   * @param comparison
+   * @param value
+   */
+  public static void addPredicate(IteratorSetting is, String columnFamily,
+      Comparison comparison, Object value) {
+    int i = 0;
+    while (is.getOptions().containsKey(KEY + i)) {
+      i++;
+    }
+
+    is.addOption(KEY + i, columnFamily);
+    is.addOption(COMPARISON + i, comparison.name());
+    if (value != null) {
+      is.addOption(VALUE + i, new String(Base64.encodeBase64(
+          AccumuloByteSerializer.serialize(value))));
+    }
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key, Value> source,
+      Map<String, String> options, IteratorEnvironment env) throws IOException {
+    super.init(source, options, env);
+    this.options = options;
+
+    predicates = new HashMap<Text, List<Predicate>>();
+    for (int i = 0; options.containsKey(KEY + i); i++) {
+      Text cf = new Text(options.get(KEY + i));
+      String value = options.get(VALUE + i);
+
+      List<Predicate> preds = predicates.get(cf);
+      if (preds == null) {
+        preds = new ArrayList<Predicate>();
+        predicates.put(cf, preds);
+      }
+      preds.add(new Predicate(Comparison.valueOf(options.get(COMPARISON + i)),
+          value == null ? null : AccumuloByteSerializer.deserialize(
+              Base64.decodeBase64(value.getBytes()))));
+    }
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+    PropertyRowFilter copy = new PropertyRowFilter();
+    try {
+      copy.init(getSource().deepCopy(env), options, env);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return copy;
+  }
+
+  @Override
+  public boolean acceptRow(SortedKeyValueIterator<Key, Value> rowIterator)
+      throws IOException {
+    Map<Text, Object> values = new HashMap<Text, Object>();
+
+    Text cf = new Text();
+    while (rowIterator.hasTop()) {
+      rowIterator.getTopKey().getColumnFamily(cf);
+      if (predicates.containsKey(cf) && !values.containsKey(cf)) {
+        values.put(new Text(cf), deserialize(rowIterator.getTopValue()));
+      }
+      rowIterator.next();
+    }
+
+    for (Map.Entry<Text, List<Predicate>> entry : predicates.entrySet()) {
+      Object actual = values.get(entry.getKey());
+      for (Predicate pred : entry.getValue()) {
+        if (!pred.evaluate(actual)) {
+          return false;
+        }
+      }
+    }
+
+    return true;
+  }
+
+  private static Object deserialize(Value value) {
+    try {
+      return AccumuloByteSerializer.deserialize(value.get());
+    } catch (RuntimeException e) {
+      return UNREADABLE;
+    }
+  }
+
+  /**
+   * A single comparison against a property value.
+   */
+  private static class Predicate {
+    private final Comparison comparison;
+    private final Object value;
+
+    public Predicate(Comparison comparison, Object value) {
+      this.comparison = comparison;
+      this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public boolean evaluate(Object actual) {
+      switch (comparison) {
+        case EQUAL:
+          return actual == null ? value == null : actual.equals(value);
+        case NOT_EQUAL:
+          return actual == null ? value != null : !actual.equals(value);
+        default:
+          break;
+      }
+
+      if (actual == null || value == null) {
+        return false;
+      }
+
+      int cmp;
+      try {
+        cmp = ((Comparable<Object>) actual).compareTo(value);
+      } catch (ClassCastException e) {
+        return false;
+      }
+
+      switch (comparison) {
+        case GREATER_THAN:
+          return cmp > 0;
+        case GREATER_THAN_EQUAL:
+          return cmp >= 0;
+        case LESS_THAN:
+          return cmp < 0;
+        case LESS_THAN_EQUAL:
+          return cmp <= 0;
+        default:
+          throw new IllegalStateException("Unexpected comparison: "+comparison);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.commons.codec.binary.Base64;
+
+import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
+
+/**
+ * Server-side filter which accepts only entries whose value
+ * is exactly one of a given set of byte arrays. Used to find
+ * property values given in each
+ * {@link AccumuloByteSerializer} version, without
+ * deserializing them on the tablet servers.
+ * <p/>Note: To use this against a real Accumulo instance, the
+ * AccumuloGraph jar must be on the tablet servers' classpath.
+ */
+public class ValueEqualsFilter extends Filter {
+
+  private static final String VALUE = "value.";
+
+  private byte[][] values;
+
+  /**
+   * Set the values to accept.
+   * @param is
+   * @param values
+   */
+  public static void setValues(IteratorSetting is, byte[]... values) {
+    for (int i = 0; i < values.length; i++) {
+      is.addOption(VALUE + i, new String(Base64.encodeBase64(values[i])));
+    }
+  }
+
+  @Override
+  public void init(SortedKeyValueIterator<Key, Value> source,
+      Map<String, String> options, IteratorEnvironment env) throws IOException {
+    super.init(source, options, env);
+
+    List<byte[]> valueList = new ArrayList<byte[]>();
+    for (int i = 0; options.containsKey(VALUE + i); i++) {
+      valueList.add(Base64.decodeBase64(options.get(VALUE + i).getBytes()));
+    }
+    values = valueList.toArray(new byte[valueList.size()][]);
+  }
+
+  @Override
+  public SortedKeyValueIterator<Key, Value> deepCopy(IteratorEnvironment env) {
+    ValueEqualsFilter copy = (ValueEqualsFilter) super.deepCopy(env);
+    copy.values = values;
+    return copy;
+  }
+
+  @Override
+  public boolean accept(Key k, Value v) {
+    byte[] value = v.get();
+    for (byte[] expected : values) {
+      if (Arrays.equals(value, expected)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
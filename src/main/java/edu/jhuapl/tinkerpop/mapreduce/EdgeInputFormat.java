@@ -26,6 +26,7 @@ import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration;
 import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration.InstanceType;
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.Constants;
+import edu.jhuapl.tinkerpop.KeyEncoding;
 
 public class EdgeInputFormat extends InputFormatBase<Text,Edge> {
 
@@ -88,7 +89,7 @@ public class EdgeInputFormat extends InputFormatBase<Text,Edge> {
             case Constants.LABEL:
               currentK.set(eid);
               edge.prepareId(eid);
-              String[] ids = currentKey.getColumnQualifier().toString().split(Constants.ID_DELIM);
+              String[] ids = KeyEncoding.decode(currentKey.getColumnQualifierData());
               edge.setSourceId(ids[1]);
               edge.setDestId(ids[0]);
               edge.setLabel(AccumuloByteSerializer.deserialize(entry.getValue().get()).toString());
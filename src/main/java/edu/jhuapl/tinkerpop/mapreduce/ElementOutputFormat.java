@@ -37,6 +37,7 @@ public class ElementOutputFormat extends OutputFormat<NullWritable,Element> {
   private static final String INSTANCE = PREFIX+"instanceName";
   private static final String INSTANCE_TYPE = PREFIX+"instanceType";
   private static final String ZK_HOSTS = PREFIX+"zookeeperHosts";
+  private static final String SERIALIZER_VERSION = PREFIX+"serializerVersion";
 
   @Override
   public RecordWriter<NullWritable,Element> getRecordWriter(TaskAttemptContext context) throws IOException, InterruptedException {
@@ -57,6 +58,7 @@ public class ElementOutputFormat extends OutputFormat<NullWritable,Element> {
     jobconf.set(GRAPH_NAME, acc.getGraphName());
     jobconf.set(INSTANCE, acc.getInstanceName());
     jobconf.set(INSTANCE_TYPE, acc.getInstanceType().toString());
+    jobconf.setInt(SERIALIZER_VERSION, acc.getSerializerVersion());
     if(acc.getInstanceType().equals(InstanceType.Distributed))
       jobconf.set(ZK_HOSTS, acc.getZooKeeperHosts());
   }
@@ -82,6 +84,7 @@ public class ElementOutputFormat extends OutputFormat<NullWritable,Element> {
       config.setInstanceName(jobconf.get(INSTANCE));
       config.setInstanceType(InstanceType.valueOf(jobconf.get(INSTANCE_TYPE)));
       config.setZooKeeperHosts(jobconf.get(ZK_HOSTS));
+      config.setSerializerVersion(jobconf.getInt(SERIALIZER_VERSION, 1));
 
     }
 
@@ -101,7 +104,8 @@ public class ElementOutputFormat extends OutputFormat<NullWritable,Element> {
 
         Mutation mut = new Mutation(ele.id);
         for (Entry<String,Object> map : ele.getNewProperties().entrySet()) {
-          mut.put(map.getKey().getBytes(), "".getBytes(), AccumuloByteSerializer.serialize(map.getValue()));
+          mut.put(map.getKey().getBytes(), "".getBytes(), AccumuloByteSerializer.serialize(map.getValue(),
+              config.getSerializerVersion()));
         }
 
         bw.addMutation(mut);
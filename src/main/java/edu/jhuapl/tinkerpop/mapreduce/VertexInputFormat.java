@@ -25,6 +25,7 @@ import edu.jhuapl.tinkerpop.AccumuloGraph;
 import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration;
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration.InstanceType;
+import edu.jhuapl.tinkerpop.AdjacencyLayout;
 import edu.jhuapl.tinkerpop.Constants;
 
 public class VertexInputFormat extends InputFormatBase<Text,Vertex> {
@@ -90,14 +91,12 @@ public class VertexInputFormat extends InputFormatBase<Text,Vertex> {
               vertex.prepareId(vid);
               break;
             case Constants.IN_EDGE:
-              String[] parts = currentKey.getColumnQualifier().toString().split(Constants.ID_DELIM);
-              String label = new String(entry.getValue().get());
-              vertex.prepareEdge(parts[1], parts[0], label, vid);
+              String[] parts = AdjacencyLayout.parse(currentKey, entry.getValue());
+              vertex.prepareEdge(parts[1], parts[0], parts[2], vid);
               break;
             case Constants.OUT_EDGE:
-              parts = currentKey.getColumnQualifier().toString().split(Constants.ID_DELIM);
-              label = new String(entry.getValue().get());
-              vertex.prepareEdge(parts[1], vid, label, parts[0]);
+              parts = AdjacencyLayout.parse(currentKey, entry.getValue());
+              vertex.prepareEdge(parts[1], vid, parts[2], parts[0]);
               break;
             default:
               String propertyKey = currentKey.getColumnFamily().toString();
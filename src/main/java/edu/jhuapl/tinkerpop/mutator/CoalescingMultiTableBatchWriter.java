@@ -0,0 +1,372 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.mutator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.client.MutationsRejectedException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.log4j.Logger;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * {@link MultiTableBatchWriter} which merges mutations
+ * to the same table and row into a single mutation
+ * before passing them on, so that e.g. a vertex and
+ * several of its properties cost one mutation rather
+ * than one each.
+ * <p/>Mutations are buffered until a flush or close, until
+ * their size reaches the given maximum, or until the oldest
+ * is older than the given latency. The latency is also enforced
+ * by a shared background thread, so mutations are not held
+ * indefinitely once writes stop; a failure there is thrown
+ * from the next add, flush or close. A mutation which updates a
+ * column already updated by the buffered mutation for its row
+ * is not merged, so updates to a column keep their order.
+ * <p/>While buffering, all writes through this writer share
+ * one lock. With a maximum memory of 0, mutations go straight
+ * to the underlying writer without taking it.
+ */
+public class CoalescingMultiTableBatchWriter implements MultiTableBatchWriter {
+
+  private static final Logger log = Logger.getLogger(CoalescingMultiTableBatchWriter.class);
+
+  private static final ScheduledExecutorService latencyTimer =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setDaemon(true).setNameFormat("AccumuloGraph coalescing writer").build());
+
+  private final MultiTableBatchWriter delegate;
+  private final long maxMemory;
+  private final long maxLatency;
+
+  private final Map<String, TableWriter> writers = new HashMap<String, TableWriter>();
+
+  private long bufferedBytes = 0;
+  private long oldestBuffered = 0;
+
+  private final ScheduledFuture<?> latencyCheck;
+  private MutationsRejectedException latencyFailure;
+
+  private final AtomicLong mutationsAdded = new AtomicLong();
+  private final AtomicLong mutationsWritten = new AtomicLong();
+
+  /**
+   * Coalesce mutations for the given writer.
+   * If maxMemory is 0, mutations are passed on as-is.
+   * @param delegate
+   * @param maxMemory bytes of mutations to buffer
+   * @param maxLatency milliseconds to buffer mutations for,
+   *   or 0 for no maximum
+   */
+  public CoalescingMultiTableBatchWriter(MultiTableBatchWriter delegate,
+      long maxMemory, long maxLatency) {
+    this.delegate = delegate;
+    this.maxMemory = maxMemory;
+    this.maxLatency = maxLatency;
+
+    if (maxMemory > 0 && maxLatency > 0) {
+      long period = Math.max(1, maxLatency / 2);
+      latencyCheck = latencyTimer.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          drainExpired();
+        }
+      }, period, period, TimeUnit.MILLISECONDS);
+    } else {
+      latencyCheck = null;
+    }
+  }
+
+  @Override
+  public synchronized BatchWriter getBatchWriter(String table) throws AccumuloException,
+      AccumuloSecurityException, TableNotFoundException {
+    TableWriter writer = writers.get(table);
+    if (writer == null) {
+      writer = new TableWriter(delegate.getBatchWriter(table));
+      writers.put(table, writer);
+    }
+    return writer;
+  }
+
+  @Override
+  public synchronized void flush() throws MutationsRejectedException {
+    checkLatencyFailure();
+    drain();
+    delegate.flush();
+  }
+
+  @Override
+  public synchronized void close() throws MutationsRejectedException {
+    if (latencyCheck != null) {
+      latencyCheck.cancel(false);
+    }
+    checkLatencyFailure();
+    drain();
+    delegate.close();
+  }
+
+  @Override
+  public boolean isClosed() {
+    return delegate.isClosed();
+  }
+
+  /**
+   * Number of mutations given to this writer.
+   * @return
+   */
+  public long getMutationsAdded() {
+    return mutationsAdded.get();
+  }
+
+  /**
+   * Number of mutations passed on to the underlying writer.
+   * @return
+   */
+  public long getMutationsWritten() {
+    return mutationsWritten.get();
+  }
+
+  /**
+   * Mutations added per mutation written so far,
+   * or 1 if nothing has been written.
+   * @return
+   */
+  public double getCoalescingRatio() {
+    long written = mutationsWritten.get();
+    return written == 0 ? 1.0 :
+      (double) mutationsAdded.get() / written;
+  }
+
+  private void add(TableWriter writer, Mutation m)
+      throws MutationsRejectedException {
+    if (maxMemory <= 0) {
+      mutationsAdded.incrementAndGet();
+      mutationsWritten.incrementAndGet();
+      writer.delegate.addMutation(m);
+      return;
+    }
+
+    synchronized (this) {
+      checkLatencyFailure();
+      mutationsAdded.incrementAndGet();
+      buffer(writer, m);
+    }
+  }
+
+  private void buffer(TableWriter writer, Mutation m)
+      throws MutationsRejectedException {
+    List<ColumnUpdate> updates = m.getUpdates();
+    if (updates.isEmpty()) {
+      mutationsWritten.incrementAndGet();
+      writer.delegate.addMutation(m);
+      return;
+    }
+
+    ByteBuffer row = ByteBuffer.wrap(m.getRow());
+    RowBuffer buffer = writer.rows.get(row);
+    if (buffer != null && buffer.conflicts(updates)) {
+      writer.rows.remove(row);
+      write(writer, buffer);
+      buffer = null;
+    }
+    if (buffer == null) {
+      buffer = new RowBuffer(m.getRow());
+      writer.rows.put(row, buffer);
+    }
+    buffer.putAll(updates);
+
+    if (bufferedBytes == 0) {
+      oldestBuffered = System.currentTimeMillis();
+    }
+    buffer.bytes += m.numBytes();
+    bufferedBytes += m.numBytes();
+
+    if (bufferedBytes >= maxMemory || (maxLatency > 0 &&
+        System.currentTimeMillis() - oldestBuffered >= maxLatency)) {
+      drain();
+    }
+  }
+
+  /**
+   * Drain the buffer if its oldest mutation has reached
+   * the maximum latency. Run by the latency timer.
+   */
+  private synchronized void drainExpired() {
+    if (bufferedBytes == 0 || latencyFailure != null ||
+        System.currentTimeMillis() - oldestBuffered < maxLatency) {
+      return;
+    }
+    try {
+      drain();
+    } catch (MutationsRejectedException e) {
+      log.warn("Failed to write buffered mutations", e);
+      latencyFailure = e;
+    } catch (RuntimeException e) {
+      // Keep the timer running for the next check.
+      log.warn("Failed to write buffered mutations", e);
+    }
+  }
+
+  private void checkLatencyFailure() throws MutationsRejectedException {
+    if (latencyFailure != null) {
+      MutationsRejectedException e = latencyFailure;
+      latencyFailure = null;
+      throw e;
+    }
+  }
+
+  /**
+   * Pass all buffered mutations to the underlying writers.
+   */
+  private void drain() throws MutationsRejectedException {
+    for (TableWriter writer : writers.values()) {
+      drain(writer);
+    }
+  }
+
+  private void drain(TableWriter writer) throws MutationsRejectedException {
+    for (RowBuffer buffer : writer.rows.values()) {
+      write(writer, buffer);
+    }
+    writer.rows.clear();
+  }
+
+  /**
+   * Pass on a buffered row, which the caller removes
+   * from its table's buffer.
+   */
+  private void write(TableWriter writer, RowBuffer buffer)
+      throws MutationsRejectedException {
+    bufferedBytes -= buffer.bytes;
+    mutationsWritten.incrementAndGet();
+    writer.delegate.addMutation(buffer.mutation);
+  }
+
+  /**
+   * Buffered mutations for one table.
+   */
+  private class TableWriter implements BatchWriter {
+
+    private final BatchWriter delegate;
+    private final Map<ByteBuffer, RowBuffer> rows =
+        new LinkedHashMap<ByteBuffer, RowBuffer>();
+
+    private TableWriter(BatchWriter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void addMutation(Mutation m) throws MutationsRejectedException {
+      add(this, m);
+    }
+
+    @Override
+    public void addMutations(Iterable<Mutation> iterable)
+        throws MutationsRejectedException {
+      for (Mutation m : iterable) {
+        add(this, m);
+      }
+    }
+
+    @Override
+    public void flush() throws MutationsRejectedException {
+      synchronized (CoalescingMultiTableBatchWriter.this) {
+        checkLatencyFailure();
+        drain(this);
+        delegate.flush();
+      }
+    }
+
+    @Override
+    public void close() throws MutationsRejectedException {
+      synchronized (CoalescingMultiTableBatchWriter.this) {
+        drain(this);
+        delegate.close();
+      }
+    }
+  }
+
+  /**
+   * Merged mutation for one row, and the columns it updates.
+   */
+  private static class RowBuffer {
+
+    private final Mutation mutation;
+    private final Set<List<ByteBuffer>> columns = new HashSet<List<ByteBuffer>>();
+    private long bytes = 0;
+
+    private RowBuffer(byte[] row) {
+      mutation = new Mutation(row);
+    }
+
+    private boolean conflicts(List<ColumnUpdate> updates) {
+      for (ColumnUpdate update : updates) {
+        if (columns.contains(column(update))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void putAll(List<ColumnUpdate> updates) {
+      for (ColumnUpdate update : updates) {
+        columns.add(column(update));
+
+        byte[] cf = update.getColumnFamily();
+        byte[] cq = update.getColumnQualifier();
+        ColumnVisibility cv = new ColumnVisibility(update.getColumnVisibility());
+        if (update.isDeleted()) {
+          if (update.hasTimestamp()) {
+            mutation.putDelete(cf, cq, cv, update.getTimestamp());
+          } else {
+            mutation.putDelete(cf, cq, cv);
+          }
+        } else {
+          if (update.hasTimestamp()) {
+            mutation.put(cf, cq, cv, update.getTimestamp(), update.getValue());
+          } else {
+            mutation.put(cf, cq, cv, update.getValue());
+          }
+        }
+      }
+    }
+
+    private static List<ByteBuffer> column(ColumnUpdate update) {
+      return Arrays.asList(ByteBuffer.wrap(update.getColumnFamily()),
+          ByteBuffer.wrap(update.getColumnQualifier()),
+          ByteBuffer.wrap(update.getColumnVisibility()));
+    }
+  }
+}
@@ -19,7 +19,9 @@ import org.apache.accumulo.core.data.Mutation;
 import com.google.common.collect.Lists;
 import com.tinkerpop.blueprints.Edge;
 
+import edu.jhuapl.tinkerpop.AdjacencyLayout;
 import edu.jhuapl.tinkerpop.Constants;
+import edu.jhuapl.tinkerpop.KeyEncoding;
 
 public class EdgeEndpointsMutator {
 
@@ -28,30 +30,53 @@ public class EdgeEndpointsMutator {
 
   public static class Add extends BaseEdgeMutator {
 
+    private final AdjacencyLayout layout;
+    private final KeyEncoding encoding;
+
     public Add(Edge edge) {
+      this(edge, AdjacencyLayout.VERTEX_FIRST, KeyEncoding.DELIMITED);
+    }
+
+    public Add(Edge edge, AdjacencyLayout layout, KeyEncoding encoding) {
       super(edge);
+      this.layout = layout;
+      this.encoding = encoding;
     }
 
     public Add(String id, String outVertexId, String inVertexId, String label) {
+      this(id, outVertexId, inVertexId, label,
+          AdjacencyLayout.VERTEX_FIRST, KeyEncoding.DELIMITED);
+    }
+
+    public Add(String id, String outVertexId, String inVertexId, String label,
+        AdjacencyLayout layout, KeyEncoding encoding) {
       super(id, outVertexId, inVertexId, label);
+      this.layout = layout;
+      this.encoding = encoding;
     }
 
     @Override
     public Iterable<Mutation> create() {
+      byte[] value = AdjacencyLayout.getValue(encoding, label);
+
       Mutation in = new Mutation(inVertexId);
       in.put(Constants.IN_EDGE.getBytes(),
-          (outVertexId + Constants.ID_DELIM + id).getBytes(),
-          (Constants.ID_DELIM + label).getBytes());
+          layout.getQualifier(encoding, outVertexId, id, label), value);
 
       Mutation out = new Mutation(outVertexId);
       out.put(Constants.OUT_EDGE.getBytes(),
-          (inVertexId + Constants.ID_DELIM + id).getBytes(),
-          (Constants.ID_DELIM + label).getBytes());
+          layout.getQualifier(encoding, inVertexId, id, label), value);
 
       return Lists.newArrayList(in, out);
     }
   }
 
+  /**
+   * Deletes the edge entries in every {@link AdjacencyLayout}
+   * and {@link KeyEncoding}, since entries may have been written
+   * in any of them, e.g. before the layout was changed or during
+   * a migration.
+   */
   public static class Delete extends BaseEdgeMutator {
 
     public Delete(Edge edge) {
@@ -65,12 +90,15 @@ public class EdgeEndpointsMutator {
     @Override
     public Iterable<Mutation> create() {
       Mutation in = new Mutation(inVertexId);
-      in.putDelete(Constants.IN_EDGE.getBytes(),
-          (outVertexId + Constants.ID_DELIM + id).getBytes());
-
       Mutation out = new Mutation(outVertexId);
-      out.putDelete(Constants.OUT_EDGE.getBytes(),
-          (inVertexId + Constants.ID_DELIM + id).getBytes());
+      for (AdjacencyLayout layout : AdjacencyLayout.values()) {
+        for (KeyEncoding encoding : KeyEncoding.values()) {
+          in.putDelete(Constants.IN_EDGE.getBytes(),
+              layout.getQualifier(encoding, outVertexId, id, label));
+          out.putDelete(Constants.OUT_EDGE.getBytes(),
+              layout.getQualifier(encoding, inVertexId, id, label));
+        }
+      }
 
       return Lists.newArrayList(in, out);
     }
@@ -14,6 +14,9 @@
  */
 package edu.jhuapl.tinkerpop.mutator.edge;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.apache.accumulo.core.data.Mutation;
 
 import com.google.common.collect.Lists;
@@ -21,30 +24,68 @@ import com.tinkerpop.blueprints.Edge;
 
 import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
 import edu.jhuapl.tinkerpop.Constants;
+import edu.jhuapl.tinkerpop.KeyEncoding;
+import edu.jhuapl.tinkerpop.mutator.property.WritePropertyMutator;
 
 public final class EdgeMutator {
 
   public static class Add extends BaseEdgeMutator {
 
+    private final KeyEncoding encoding;
+    private final Map<String, Object> properties;
+    private final int version;
+
     public Add(Edge edge) {
+      this(edge, KeyEncoding.DELIMITED);
+    }
+
+    public Add(Edge edge, KeyEncoding encoding) {
+      this(edge, encoding, Collections.<String, Object>emptyMap(), 1);
+    }
+
+    /**
+     * Add the edge along with the given properties,
+     * in a single mutation.
+     * @param edge
+     * @param encoding
+     * @param properties
+     * @param version
+     */
+    public Add(Edge edge, KeyEncoding encoding,
+        Map<String, Object> properties, int version) {
       super(edge);
+      this.encoding = encoding;
+      this.properties = properties;
+      this.version = version;
     }
 
     public Add(String id, String outVertexId, String inVertexId, String label) {
+      this(id, outVertexId, inVertexId, label, KeyEncoding.DELIMITED);
+    }
+
+    public Add(String id, String outVertexId, String inVertexId, String label,
+        KeyEncoding encoding) {
       super(id, outVertexId, inVertexId, label);
+      this.encoding = encoding;
+      this.properties = Collections.emptyMap();
+      this.version = 1;
     }
 
     @Override
     public Iterable<Mutation> create() {
       Mutation m = new Mutation(id);
       m.put(Constants.LABEL.getBytes(),
-          (inVertexId + Constants.ID_DELIM + outVertexId).getBytes(),
+          encoding.encode(inVertexId, outVertexId),
           AccumuloByteSerializer.serialize(label));
+      WritePropertyMutator.putAll(m, properties, version);
 
       return Lists.newArrayList(m);
     }
   }
 
+  /**
+   * Deletes the edge's label entry in every {@link KeyEncoding}.
+   */
   public static class Delete extends BaseEdgeMutator {
 
     public Delete(Edge edge) {
@@ -58,8 +99,10 @@ public final class EdgeMutator {
     @Override
     public Iterable<Mutation> create() {
       Mutation m = new Mutation(id);
-      m.putDelete(Constants.LABEL.getBytes(),
-          (inVertexId + Constants.ID_DELIM + outVertexId).getBytes());
+      for (KeyEncoding encoding : KeyEncoding.values()) {
+        m.putDelete(Constants.LABEL.getBytes(),
+            encoding.encode(inVertexId, outVertexId));
+      }
 
       return Lists.newArrayList(m);
     }
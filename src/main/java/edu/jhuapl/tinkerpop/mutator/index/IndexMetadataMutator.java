@@ -14,6 +14,8 @@
  */
 package edu.jhuapl.tinkerpop.mutator.index;
 
+import java.util.UUID;
+
 import org.apache.accumulo.core.data.Mutation;
 
 import com.google.common.collect.Lists;
@@ -52,6 +54,22 @@ public class IndexMetadataMutator {
     }
   }
 
+  /**
+   * Replaces the metadata version entry with a new,
+   * unique value, marking that metadata has changed.
+   */
+  public static class UpdateVersion implements Mutator {
+
+    @Override
+    public Iterable<Mutation> create() {
+      String name = IndexMetadataEntryType.__VERSION__.name();
+      Mutation m = new Mutation(name);
+      m.put(name.getBytes(), Constants.EMPTY,
+          UUID.randomUUID().toString().getBytes());
+      return Lists.newArrayList(m);
+    }
+  }
+
   public static class Delete implements Mutator {
 
     private final String key;
@@ -14,6 +14,9 @@
  */
 package edu.jhuapl.tinkerpop.mutator.index;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.accumulo.core.data.Mutation;
 
 import com.google.common.collect.Lists;
@@ -35,16 +38,22 @@ public class IndexValueMutator {
     private final Element element;
     private final String key;
     private final Object value;
+    private final int version;
 
     public Add(Element element, String key, Object value) {
+      this(element, key, value, 1);
+    }
+
+    public Add(Element element, String key, Object value, int version) {
       this.element = element;
       this.key = key;
       this.value = value;
+      this.version = version;
     }
 
     @Override
     public Iterable<Mutation> create() {
-      byte[] bytes = AccumuloByteSerializer.serialize(value);
+      byte[] bytes = AccumuloByteSerializer.serialize(value, version);
       Mutation m = new Mutation(bytes);
       m.put(key.getBytes(), element.getId().toString()
           .getBytes(), Constants.EMPTY);
@@ -52,6 +61,9 @@ public class IndexValueMutator {
     }
   }
 
+  /**
+   * Deletes the index entry for every serializer version.
+   */
   public static class Delete implements Mutator {
 
     private final Element element;
@@ -66,10 +78,13 @@ public class IndexValueMutator {
 
     @Override
     public Iterable<Mutation> create() {
-      byte[] bytes = AccumuloByteSerializer.serialize(value);
-      Mutation m = new Mutation(bytes);
-      m.putDelete(key, element.getId().toString());
-      return Lists.newArrayList(m);
+      List<Mutation> mutations = new ArrayList<Mutation>();
+      for (byte[] bytes : AccumuloByteSerializer.serializeAllVersions(value)) {
+        Mutation m = new Mutation(bytes);
+        m.putDelete(key, element.getId().toString());
+        mutations.add(m);
+      }
+      return mutations;
     }
   }
 }
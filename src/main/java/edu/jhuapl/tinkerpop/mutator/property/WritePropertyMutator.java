@@ -14,6 +14,9 @@
  */
 package edu.jhuapl.tinkerpop.mutator.property;
 
+import java.util.Map;
+import java.util.Map.Entry;
+
 import org.apache.accumulo.core.data.Mutation;
 
 import com.google.common.collect.Lists;
@@ -23,17 +26,40 @@ import edu.jhuapl.tinkerpop.Constants;
 public class WritePropertyMutator extends BasePropertyMutator {
 
   private final Object value;
+  private final int version;
 
   public WritePropertyMutator(String id, String key, Object value) {
+    this(id, key, value, 1);
+  }
+
+  public WritePropertyMutator(String id, String key, Object value, int version) {
     super(id, key);
     this.value = value;
+    this.version = version;
   }
 
   @Override
   public Iterable<Mutation> create() {
-    byte[] bytes = AccumuloByteSerializer.serialize(value);
     Mutation m = new Mutation(id);
-    m.put(key.getBytes(), Constants.EMPTY, bytes);
+    put(m, key, value, version);
     return Lists.newArrayList(m);
   }
+
+  /**
+   * Add the given properties to an element's mutation,
+   * so they are written along with it.
+   * @param m
+   * @param properties
+   * @param version
+   */
+  public static void putAll(Mutation m, Map<String, Object> properties, int version) {
+    for (Entry<String, Object> entry : properties.entrySet()) {
+      put(m, entry.getKey(), entry.getValue(), version);
+    }
+  }
+
+  private static void put(Mutation m, String key, Object value, int version) {
+    byte[] bytes = AccumuloByteSerializer.serialize(value, version);
+    m.put(key.getBytes(), Constants.EMPTY, bytes);
+  }
 }
@@ -14,18 +14,37 @@
  */
 package edu.jhuapl.tinkerpop.mutator.vertex;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.apache.accumulo.core.data.Mutation;
 
 import com.google.common.collect.Lists;
 import edu.jhuapl.tinkerpop.Constants;
 import edu.jhuapl.tinkerpop.mutator.Mutator;
+import edu.jhuapl.tinkerpop.mutator.property.WritePropertyMutator;
 
 public final class AddVertexMutator implements Mutator {
 
     private final String id;
+    private final Map<String, Object> properties;
+    private final int version;
 
     public AddVertexMutator(String id) {
+      this(id, Collections.<String, Object>emptyMap(), 1);
+    }
+
+    /**
+     * Add the vertex along with the given properties,
+     * in a single mutation.
+     * @param id
+     * @param properties
+     * @param version
+     */
+    public AddVertexMutator(String id, Map<String, Object> properties, int version) {
       this.id = id;
+      this.properties = properties;
+      this.version = version;
     }
 
     @Override
@@ -33,6 +52,7 @@ public final class AddVertexMutator implements Mutator {
       Mutation m = new Mutation(id);
       m.put(Constants.LABEL.getBytes(),
           Constants.EXISTS.getBytes(), Constants.EMPTY);
+      WritePropertyMutator.putAll(m, properties, version);
       return Lists.newArrayList(m);
     }
 }
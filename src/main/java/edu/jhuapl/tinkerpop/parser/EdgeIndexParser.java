@@ -28,6 +28,6 @@ public class EdgeIndexParser extends ElementIndexParser<AccumuloEdge> {
 
   @Override
   protected AccumuloEdge instantiate(String id) {
-    return new AccumuloEdge(globals, id);
+    return globals.getElementFactory().getEdge(id);
   }
 }
@@ -22,9 +22,9 @@ import org.apache.accumulo.core.data.Value;
 import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
 import edu.jhuapl.tinkerpop.AccumuloEdge;
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
-import edu.jhuapl.tinkerpop.AccumuloVertex;
 import edu.jhuapl.tinkerpop.Constants;
 import edu.jhuapl.tinkerpop.GlobalInstances;
+import edu.jhuapl.tinkerpop.KeyEncoding;
 
 /**
  * TODO
@@ -43,7 +43,7 @@ public class EdgeParser extends ElementParser<AccumuloEdge> {
   }
 
   /**
-   * Make and return an edge object. If the entries
+   * Make or reuse and return an edge object. If the entries
    * contain label/endpoint information, set those too.
    * @param id
    * @param entries
@@ -53,14 +53,12 @@ public class EdgeParser extends ElementParser<AccumuloEdge> {
     for (Entry<Key, Value> entry : entries) {
       String cf = entry.getKey().getColumnFamily().toString();
       if (Constants.LABEL.equals(cf)) {
-        String cq = entry.getKey().getColumnQualifier().toString();
-        String[] parts = cq.split(Constants.ID_DELIM);
+        String[] parts = KeyEncoding.decode(entry.getKey().getColumnQualifierData());
         String inVertexId = parts[0];
         String outVertexId = parts[1];
         String label = AccumuloByteSerializer.deserialize(entry.getValue().get());
-        return new AccumuloEdge(globals, id,
-            new AccumuloVertex(globals, inVertexId),
-            new AccumuloVertex(globals, outVertexId), label);
+        return globals.getElementFactory().getEdge(id,
+            inVertexId, outVertexId, label);
       }
     }
 
@@ -28,6 +28,6 @@ public class VertexIndexParser extends ElementIndexParser<AccumuloVertex> {
 
   @Override
   protected AccumuloVertex instantiate(String id) {
-    return new AccumuloVertex(globals, id);
+    return globals.getElementFactory().getVertex(id);
   }
 }
@@ -33,7 +33,7 @@ public class VertexParser extends ElementParser<AccumuloVertex> {
 
   @Override
   public AccumuloVertex parse(String id, Iterable<Entry<Key,Value>> entries) {
-    AccumuloVertex vertex = new AccumuloVertex(globals, id);
+    AccumuloVertex vertex = globals.getElementFactory().getVertex(id);
     setInMemoryProperties(vertex, entries);
     return vertex;
   }
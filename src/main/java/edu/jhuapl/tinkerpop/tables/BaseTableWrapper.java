@@ -14,7 +14,10 @@
  */
 package edu.jhuapl.tinkerpop.tables;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.accumulo.core.client.BatchDeleter;
@@ -24,21 +27,32 @@ import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
 
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.GlobalInstances;
 
 /**
  * Table wrapper with common functionality.
+ * <p/>Wrappers are long-lived and shared between threads,
+ * so must not hold state specific to any one operation.
+ * The table's writer is looked up once, when the wrapper
+ * is created, so the table must already exist.
  */
 public abstract class BaseTableWrapper {
 
-  protected GlobalInstances globals;
-  private String tableName;
+  protected final GlobalInstances globals;
+  private final String tableName;
+  private final BatchWriter writer;
 
   public BaseTableWrapper(GlobalInstances globals, String tableName) {
     this.globals = globals;
     this.tableName = tableName;
+    try {
+      writer = globals.getMtbw().getBatchWriter(tableName);
+    } catch (Exception e) {
+      throw new AccumuloGraphException(e);
+    }
   }
 
   protected Scanner getScanner() {
@@ -62,12 +76,40 @@ public abstract class BaseTableWrapper {
     }
   }
 
-  protected BatchWriter getWriter() {
+  /**
+   * Split the given range at this table's tablet
+   * boundaries, so that each part lies in one tablet.
+   * @param range
+   * @return
+   */
+  protected List<Range> splitByTablets(Range range) {
+    Collection<Text> splits;
     try {
-      return globals.getMtbw().getBatchWriter(tableName);
+      splits = globals.getConfig().getConnector()
+          .tableOperations().listSplits(tableName);
     } catch (Exception e) {
       throw new AccumuloGraphException(e);
     }
+
+    // Each split is the last row of a tablet.
+    List<Range> parts = new ArrayList<Range>(splits.size() + 1);
+    Text start = null;
+    for (Text split : splits) {
+      Range part = range.clip(new Range(start, false, split, true), true);
+      if (part != null) {
+        parts.add(part);
+      }
+      start = split;
+    }
+    Range part = range.clip(new Range(start, false, null, true), true);
+    if (part != null) {
+      parts.add(part);
+    }
+    return parts;
+  }
+
+  protected BatchWriter getWriter() {
+    return writer;
   }
 
   protected BatchDeleter getDeleter() {
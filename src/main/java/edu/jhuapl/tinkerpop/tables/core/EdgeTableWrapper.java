@@ -15,10 +15,12 @@
 package edu.jhuapl.tinkerpop.tables.core;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Pattern;
 
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.IteratorSetting;
@@ -26,7 +28,6 @@ import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
-import org.apache.accumulo.core.iterators.user.RegExFilter;
 import org.apache.accumulo.core.util.PeekingIterator;
 import org.apache.hadoop.io.Text;
 
@@ -35,12 +36,15 @@ import com.tinkerpop.blueprints.Edge;
 
 import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
 import edu.jhuapl.tinkerpop.AccumuloEdge;
+import edu.jhuapl.tinkerpop.AccumuloGraph;
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.AccumuloGraphUtils;
-import edu.jhuapl.tinkerpop.AccumuloVertex;
 import edu.jhuapl.tinkerpop.Constants;
 import edu.jhuapl.tinkerpop.GlobalInstances;
+import edu.jhuapl.tinkerpop.ParallelScannerIterable;
+import edu.jhuapl.tinkerpop.KeyEncoding;
 import edu.jhuapl.tinkerpop.ScannerIterable;
+import edu.jhuapl.tinkerpop.iterators.ValueEqualsFilter;
 import edu.jhuapl.tinkerpop.mutator.Mutators;
 import edu.jhuapl.tinkerpop.mutator.edge.EdgeMutator;
 import edu.jhuapl.tinkerpop.parser.EdgeParser;
@@ -65,23 +69,80 @@ public class EdgeTableWrapper extends ElementTableWrapper {
    * @param edge
    */
   public void writeEdge(Edge edge) {
-    Mutators.apply(getWriter(), new EdgeMutator.Add(edge));
+    Mutators.apply(getWriter(), new EdgeMutator.Add(edge,
+        globals.getConfig().getKeyEncoding()));
     globals.checkedFlush();
   }
 
+  /**
+   * Write the given edge and its properties to the edge
+   * table, as a single mutation. Does not flush.
+   * See also {@link #writeEdge(Edge)}.
+   * @param edge
+   * @param properties
+   */
+  public void writeEdge(Edge edge, Map<String, Object> properties) {
+    Mutators.apply(getWriter(), new EdgeMutator.Add(edge,
+        globals.getConfig().getKeyEncoding(), properties,
+        globals.getConfig().getSerializerVersion()));
+  }
+
   public void deleteEdge(Edge edge) {
     Mutators.apply(getWriter(), new EdgeMutator.Delete(edge));
     globals.checkedFlush();
   }
 
   public CloseableIterable<Edge> getEdges() {
+    String[] preload = globals.getConfig().getPreloadedProperties();
+    return getEdges(preload != null ? preload : new String[]{}, null);
+  }
+
+  /**
+   * Split a scan of all edges into one scan per tablet.
+   * See {@link AccumuloGraph#getEdgeSplits()}.
+   * @return
+   */
+  public List<CloseableIterable<Edge>> getEdgeSplits() {
+    String[] preload = globals.getConfig().getPreloadedProperties();
+    List<CloseableIterable<Edge>> splits = new ArrayList<CloseableIterable<Edge>>();
+    for (Range part : splitByTablets(new Range())) {
+      splits.add(scanEdges(part, preload != null ? preload : new String[]{}, null));
+    }
+    return splits;
+  }
+
+  /**
+   * Scan all edges, along with the given properties,
+   * returning only those accepted by the given row filter
+   * if not null. If propertyKeys is null, read all properties.
+   * @param propertyKeys
+   * @param filter
+   * @return
+   */
+  public CloseableIterable<Edge> getEdges(String[] propertyKeys,
+      IteratorSetting filter) {
+    if (globals.getConfig().getParallelScans()) {
+      final EdgeParser parser = new EdgeParser(globals);
+      return new ParallelScannerIterable<Edge>(getTabletScanners(new Range(),
+          propertyKeys, filter), globals.getConfig().getQueryThreads()) {
+        @Override
+        public Edge next(String rowId, List<Entry<Key, Value>> entries) {
+          return parser.parse(rowId, entries);
+        }
+      };
+    }
+
+    return scanEdges(new Range(), propertyKeys, filter);
+  }
+
+  private CloseableIterable<Edge> scanEdges(Range range,
+      String[] propertyKeys, IteratorSetting filter) {
     Scanner scan = getScanner();
-    scan.fetchColumnFamily(new Text(Constants.LABEL));
+    scan.setRange(range);
+    fetchProperties(scan, propertyKeys);
 
-    if (globals.getConfig().getPreloadedProperties() != null) {
-      for (String key : globals.getConfig().getPreloadedProperties()) {
-        scan.fetchColumnFamily(new Text(key));
-      }
+    if (filter != null) {
+      scan.addScanIterator(filter);
     }
 
     final EdgeParser parser = new EdgeParser(globals);
@@ -89,8 +150,6 @@ public class EdgeTableWrapper extends ElementTableWrapper {
     return new ScannerIterable<Edge>(scan) {
       @Override
       public Edge next(PeekingIterator<Entry<Key, Value>> iterator) {
-        // TODO could also check local cache before creating a new instance?
-
         String rowId = iterator.peek().getKey().getRow().toString();
 
         List<Entry<Key, Value>> entries =
@@ -102,14 +161,48 @@ public class EdgeTableWrapper extends ElementTableWrapper {
           entries.add(iterator.next());
         }
 
-        AccumuloEdge edge = parser.parse(rowId, entries);
-        globals.getCaches().cache(edge, Edge.class);
-
-        return edge;
+        return parser.parse(rowId, entries);
       }
     };
   }
 
+  /**
+   * Read the edges with the given ids using a single
+   * batch scan, along with the given properties.
+   * The edges' endpoints and labels are populated as well.
+   * If propertyKeys is null, read all properties.
+   * The returned map is keyed by edge id, and
+   * edges which do not exist are not included.
+   * @param ids
+   * @param propertyKeys
+   * @return
+   */
+  public Map<String, AccumuloEdge> readEdges(Collection<String> ids,
+      String[] propertyKeys) {
+    return readEdges(ids, propertyKeys, null);
+  }
+
+  /**
+   * As with {@link #readEdges(Collection, String[])}, but only
+   * return edges accepted by the given row filter, if not null.
+   * @param ids
+   * @param propertyKeys
+   * @param filter
+   * @return
+   */
+  public Map<String, AccumuloEdge> readEdges(Collection<String> ids,
+      String[] propertyKeys, IteratorSetting filter) {
+    EdgeParser parser = new EdgeParser(globals);
+
+    Map<String, AccumuloEdge> edges = new HashMap<String, AccumuloEdge>();
+    for (Entry<String, List<Entry<Key, Value>>> row :
+      readRows(ids, propertyKeys, filter).entrySet()) {
+      edges.put(row.getKey(), parser.parse(row.getKey(), row.getValue()));
+    }
+
+    return edges;
+  }
+
   public Iterable<Edge> getEdges(String key, Object value) {
     AccumuloGraphUtils.nullCheckProperty(key, value);
     if (key.equalsIgnoreCase("label")) {
@@ -121,8 +214,8 @@ public class EdgeTableWrapper extends ElementTableWrapper {
 
     byte[] val = AccumuloByteSerializer.serialize(value);
     if (val[0] != AccumuloByteSerializer.SERIALIZABLE) {
-      IteratorSetting is = new IteratorSetting(10, "filter", RegExFilter.class);
-      RegExFilter.setRegexs(is, null, null, null, Pattern.quote(new String(val)), false);
+      IteratorSetting is = new IteratorSetting(10, "filter", ValueEqualsFilter.class);
+      ValueEqualsFilter.setValues(is, AccumuloByteSerializer.serializeAllVersions(value));
       scan.addScanIterator(is);
 
       return new ScannerIterable<Edge>(scan) {
@@ -133,12 +226,11 @@ public class EdgeTableWrapper extends ElementTableWrapper {
           Key k = iterator.next().getKey();
 
           if (k.getColumnFamily().toString().equals(Constants.LABEL)) {
-            String[] vals = k.getColumnQualifier().toString().split(Constants.ID_DELIM);
-            return new AccumuloEdge(globals, k.getRow().toString(),
-                new AccumuloVertex(globals, vals[0]),
-                new AccumuloVertex(globals, vals[1]), null);
+            String[] vals = KeyEncoding.decode(k.getColumnQualifierData());
+            return globals.getElementFactory().getEdge(k.getRow().toString(),
+                vals[0], vals[1], null);
           }
-          return new AccumuloEdge(globals, k.getRow().toString());
+          return globals.getElementFactory().getEdge(k.getRow().toString());
         }
       };
     } else {
@@ -161,13 +253,12 @@ public class EdgeTableWrapper extends ElementTableWrapper {
 
       Entry<Key, Value> entry = iter.next();
 
-      String cq = entry.getKey().getColumnQualifier().toString();
-      String[] ids = cq.split(Constants.ID_DELIM);
+      String[] ids = KeyEncoding.decode(entry.getKey().getColumnQualifierData());
 
       String label = AccumuloByteSerializer.deserialize(entry.getValue().get());
 
-      edge.setVertices(new AccumuloVertex(globals, ids[0]),
-          new AccumuloVertex(globals, ids[1]));
+      edge.setVertices(globals.getElementFactory().getVertex(ids[0]),
+          globals.getElementFactory().getVertex(ids[1]));
       edge.setLabel(label);
 
     } finally {
@@ -14,27 +14,36 @@
  */
 package edu.jhuapl.tinkerpop.tables.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
 
-import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
-import org.apache.accumulo.core.iterators.user.RegExFilter;
 import org.apache.hadoop.io.Text;
 
+import com.google.common.base.Supplier;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.util.StringFactory;
 
 import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
 import edu.jhuapl.tinkerpop.Constants;
 import edu.jhuapl.tinkerpop.GlobalInstances;
+import edu.jhuapl.tinkerpop.ParallelScannerIterable;
+import edu.jhuapl.tinkerpop.cache.ExistenceFilter;
+import edu.jhuapl.tinkerpop.iterators.DistinctColumnFamilyIterator;
+import edu.jhuapl.tinkerpop.iterators.EdgeLabelFilter;
 import edu.jhuapl.tinkerpop.mutator.property.ClearPropertyMutator;
 import edu.jhuapl.tinkerpop.mutator.property.WritePropertyMutator;
 import edu.jhuapl.tinkerpop.mutator.Mutators;
@@ -47,19 +56,8 @@ import edu.jhuapl.tinkerpop.tables.BaseTableWrapper;
  */
 public abstract class ElementTableWrapper extends BaseTableWrapper {
 
-  private BatchWriter writer;
-
   public ElementTableWrapper(GlobalInstances globals, String tableName) {
     super(globals, tableName);
-    writer = super.getWriter();
-  }
-
-  /**
-   * Give a single instance of the writer for this table.
-   */
-  @Override
-  protected BatchWriter getWriter() {
-    return writer;
   }
 
   /**
@@ -130,6 +128,116 @@ public abstract class ElementTableWrapper extends BaseTableWrapper {
     return props;
   }
 
+  /**
+   * Read the given properties for the elements with the given ids
+   * using a single batch scan, rather than one scan per element.
+   * If propertyKeys is null, read all properties.
+   * The returned map is keyed by element id, and contains
+   * the entries for each element that exists. Elements that
+   * do not exist are absent from the map.
+   * @param ids
+   * @param propertyKeys
+   * @return
+   */
+  protected Map<String, List<Entry<Key, Value>>> readRows(Collection<String> ids,
+      String[] propertyKeys) {
+    return readRows(ids, propertyKeys, null);
+  }
+
+  /**
+   * As with {@link #readRows(Collection, String[])}, but only
+   * return rows accepted by the given row filter, if not null.
+   * @param ids
+   * @param propertyKeys
+   * @param filter
+   * @return
+   */
+  protected Map<String, List<Entry<Key, Value>>> readRows(Collection<String> ids,
+      String[] propertyKeys, IteratorSetting filter) {
+    Map<String, List<Entry<Key, Value>>> rows =
+        new HashMap<String, List<Entry<Key, Value>>>();
+    if (ids.isEmpty()) {
+      return rows;
+    }
+
+    List<Range> ranges = new ArrayList<Range>(ids.size());
+    for (String id : ids) {
+      ranges.add(Range.exact(id));
+    }
+
+    BatchScanner scan = getBatchScanner();
+    try {
+      scan.setRanges(ranges);
+      fetchProperties(scan, propertyKeys);
+
+      if (filter != null) {
+        scan.addScanIterator(filter);
+      }
+
+      // The batch scanner returns entries in no particular
+      // order, so gather them up by row.
+      for (Entry<Key, Value> entry : scan) {
+        String id = entry.getKey().getRow().toString();
+        List<Entry<Key, Value>> entries = rows.get(id);
+        if (entries == null) {
+          entries = new ArrayList<Entry<Key, Value>>();
+          rows.put(id, entries);
+        }
+        entries.add(entry);
+      }
+    } finally {
+      scan.close();
+    }
+
+    return rows;
+  }
+
+  /**
+   * Supplier of scanners for reading the given range in parallel,
+   * one for each tablet, with the given properties and row filter,
+   * if not null (see {@link ParallelScannerIterable}). Each call
+   * creates new scanners.
+   * @param range
+   * @param propertyKeys
+   * @param filter
+   * @return
+   */
+  protected Supplier<List<Scanner>> getTabletScanners(final Range range,
+      final String[] propertyKeys, final IteratorSetting filter) {
+    return new Supplier<List<Scanner>>() {
+      @Override
+      public List<Scanner> get() {
+        List<Scanner> scanners = new ArrayList<Scanner>();
+        for (Range part : splitByTablets(range)) {
+          Scanner scan = getScanner();
+          scan.setRange(part);
+          fetchProperties(scan, propertyKeys);
+          if (filter != null) {
+            scan.addScanIterator(filter);
+          }
+          scanners.add(scan);
+        }
+        return scanners;
+      }
+    };
+  }
+
+  /**
+   * Limit the given scanner to element labels and the given
+   * properties. If propertyKeys is null, fetch everything.
+   * @param scan
+   * @param propertyKeys
+   */
+  protected void fetchProperties(ScannerBase scan, String[] propertyKeys) {
+    if (propertyKeys != null) {
+      scan.fetchColumnFamily(new Text(Constants.LABEL));
+
+      for (String key : propertyKeys) {
+        scan.fetchColumnFamily(new Text(key));
+      }
+    }
+  }
+
   /**
    * Return true if the element with given id exists.
    * @param id
@@ -150,8 +258,28 @@ public abstract class ElementTableWrapper extends BaseTableWrapper {
     }
   }
 
+  /**
+   * Add the ids of all elements in this table to the
+   * given filter, reading tablets in parallel.
+   * @param filter
+   */
+  public void loadExistenceFilter(ExistenceFilter filter) {
+    BatchScanner scan = getBatchScanner();
+    try {
+      scan.fetchColumnFamily(new Text(Constants.LABEL));
+      for (Entry<Key, Value> entry : scan) {
+        filter.add(entry.getKey().getRow().toString());
+      }
+    } finally {
+      scan.close();
+    }
+  }
+
   /**
    * Get all property keys for the given element id.
+   * Only the first entry of each property is read, and
+   * edge entries are skipped on the server, so this
+   * reads little more than the keys themselves.
    * @param id
    * @return
    */
@@ -160,6 +288,12 @@ public abstract class ElementTableWrapper extends BaseTableWrapper {
 
     s.setRange(new Range(element.getId().toString()));
 
+    IteratorSetting is = new IteratorSetting(10, "distinctFamilies",
+        DistinctColumnFamilyIterator.class);
+    DistinctColumnFamilyIterator.setExcludedFamilies(is,
+        Constants.LABEL, Constants.IN_EDGE, Constants.OUT_EDGE);
+    s.addScanIterator(is);
+
     Set<String> keys = new HashSet<String>();
 
     for (Entry<Key, Value> entry : s) {
@@ -197,7 +331,7 @@ public abstract class ElementTableWrapper extends BaseTableWrapper {
   public void writeProperty(Element element, String key, Object value) {
     Mutators.apply(getWriter(),
         new WritePropertyMutator(element.getId().toString(),
-            key, value));
+            key, value, globals.getConfig().getSerializerVersion()));
     globals.checkedFlush();
   }
 
@@ -208,15 +342,8 @@ public abstract class ElementTableWrapper extends BaseTableWrapper {
    * @param labels
    */
   protected void applyEdgeLabelValueFilter(Scanner scan, String... labels) {
-    StringBuilder regex = new StringBuilder();
-    for (String lab : labels) {
-      if (regex.length() != 0)
-        regex.append("|");
-      regex.append(".*"+Constants.ID_DELIM+"\\Q").append(lab).append("\\E$");
-    }
-
-    IteratorSetting is = new IteratorSetting(10, "edgeValueFilter", RegExFilter.class);
-    RegExFilter.setRegexs(is, null, null, null, regex.toString(), false);
+    IteratorSetting is = new IteratorSetting(10, "edgeValueFilter", EdgeLabelFilter.class);
+    EdgeLabelFilter.setLabels(is, labels);
     scan.addScanIterator(is);
   }
 
@@ -16,35 +16,45 @@ package edu.jhuapl.tinkerpop.tables.core;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Pattern;
 
 import org.apache.accumulo.core.client.BatchDeleter;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
-import org.apache.accumulo.core.iterators.user.RegExFilter;
 import org.apache.accumulo.core.util.PeekingIterator;
 import org.apache.hadoop.io.Text;
 
+import com.google.common.collect.Iterators;
 import com.tinkerpop.blueprints.CloseableIterable;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.WrappingCloseableIterable;
 
 import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
-import edu.jhuapl.tinkerpop.AccumuloEdge;
-import edu.jhuapl.tinkerpop.AccumuloElement;
+import edu.jhuapl.tinkerpop.AccumuloGraph;
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.AccumuloGraphUtils;
 import edu.jhuapl.tinkerpop.AccumuloVertex;
+import edu.jhuapl.tinkerpop.AdjacencyLayout;
 import edu.jhuapl.tinkerpop.Constants;
 import edu.jhuapl.tinkerpop.GlobalInstances;
+import edu.jhuapl.tinkerpop.ParallelScannerIterable;
 import edu.jhuapl.tinkerpop.ScannerIterable;
+import edu.jhuapl.tinkerpop.cache.AdjacencyCache;
+import edu.jhuapl.tinkerpop.cache.AdjacencyList;
+import edu.jhuapl.tinkerpop.iterators.EntryCountIterator;
+import edu.jhuapl.tinkerpop.iterators.ValueEqualsFilter;
 import edu.jhuapl.tinkerpop.mutator.vertex.AddVertexMutator;
 import edu.jhuapl.tinkerpop.mutator.Mutator;
 import edu.jhuapl.tinkerpop.mutator.Mutators;
@@ -71,6 +81,17 @@ public class VertexTableWrapper extends ElementTableWrapper {
     globals.checkedFlush();
   }
 
+  /**
+   * Write a vertex with the given id and properties,
+   * as a single mutation. Does not flush.
+   * @param vertex
+   * @param properties
+   */
+  public void writeVertex(Vertex vertex, Map<String, Object> properties) {
+    Mutators.apply(getWriter(), new AddVertexMutator(vertex.getId().toString(),
+        properties, globals.getConfig().getSerializerVersion()));
+  }
+
   /**
    * Remove the given vertex.
    * Note: This uses a BatchDeleter rather than {@link Mutator}
@@ -96,113 +117,389 @@ public class VertexTableWrapper extends ElementTableWrapper {
 
   /**
    * Write edge endpoint information to the vertex table.
+   * Does not flush.
    * @param edge
    */
   public void writeEdgeEndpoints(Edge edge) {
-    Mutators.apply(getWriter(), new EdgeEndpointsMutator.Add(edge));
-    globals.checkedFlush();
+    Mutators.apply(getWriter(), new EdgeEndpointsMutator.Add(edge,
+        globals.getConfig().getAdjacencyLayout(), globals.getConfig().getKeyEncoding()));
+    invalidateAdjacency(edge);
   }
 
   public void deleteEdgeEndpoints(Edge edge) {
     Mutators.apply(getWriter(), new EdgeEndpointsMutator.Delete(edge));
     globals.checkedFlush();
+    invalidateAdjacency(edge);
+  }
+
+  /**
+   * Remove the cached edges of the given edge's endpoints.
+   * @param edge
+   */
+  private void invalidateAdjacency(Edge edge) {
+    AdjacencyCache cache = globals.getCaches().getAdjacencyCache();
+    if (cache != null) {
+      cache.invalidate(edge.getVertex(Direction.OUT).getId().toString());
+      cache.invalidate(edge.getVertex(Direction.IN).getId().toString());
+    }
   }
 
   public CloseableIterable<Edge> getEdges(Vertex vertex, Direction direction,
       String... labels) {
-    Scanner scan = getScanner();
-    scan.setRange(new Range(vertex.getId().toString()));
-    if (direction.equals(Direction.IN)) {
-      scan.fetchColumnFamily(new Text(Constants.IN_EDGE));
-    } else if (direction.equals(Direction.OUT)) {
-      scan.fetchColumnFamily(new Text(Constants.OUT_EDGE));
-    } else {
-      scan.fetchColumnFamily(new Text(Constants.IN_EDGE));
-      scan.fetchColumnFamily(new Text(Constants.OUT_EDGE));
-    }
+    return getEdges(vertex, direction, Integer.MAX_VALUE, labels);
+  }
 
-    if (labels.length > 0) {
-      applyEdgeLabelValueFilter(scan, labels);
+  /**
+   * Get at most limit edges of the given vertex, with
+   * the given direction and labels.
+   * @param vertex
+   * @param direction
+   * @param limit
+   * @param labels
+   * @return
+   */
+  public CloseableIterable<Edge> getEdges(Vertex vertex, Direction direction,
+      int limit, String... labels) {
+    final String vertexId = vertex.getId().toString();
+
+    AdjacencyRead read = readAdjacency(vertex, direction, limit, labels);
+    AdjacencyList adjacency = read.adjacency;
+    if (adjacency != null) {
+      List<Edge> edges = new ArrayList<Edge>(adjacency.size());
+      for (int i = 0; i < adjacency.size(); i++) {
+        edges.add(newEdge(vertexId, adjacency.getEdgeId(i), adjacency.getNeighborId(i),
+            adjacency.getLabel(i), adjacency.isOutgoing(i)));
+      }
+      return new WrappingCloseableIterable<Edge>(edges);
     }
 
-    return new ScannerIterable<Edge>(scan) {
-
+    return new ScannerIterable<Edge>(read.scan, read.entries, limit) {
       @Override
       public Edge next(PeekingIterator<Entry<Key,Value>> iterator) {
-        // TODO better use of information readily available...
-        // TODO could also check local cache before creating a new
-        // instance?
-
         Entry<Key,Value> kv = iterator.next();
 
-        String[] parts = kv.getKey().getColumnQualifier().toString().split(Constants.ID_DELIM);
-        String label = (new String(kv.getValue().get())).split(Constants.ID_DELIM)[1];
-
-        AccumuloEdge edge;
-        if (kv.getKey().getColumnFamily().toString().equalsIgnoreCase(Constants.IN_EDGE)) {
-          edge = new AccumuloEdge(globals, parts[1],
-              new AccumuloVertex(globals, kv.getKey().getRow().toString()),
-              new AccumuloVertex(globals, parts[0]), label);
-        } else {
-          edge = new AccumuloEdge(globals, parts[1],
-              new AccumuloVertex(globals, parts[0]),
-              new AccumuloVertex(globals, kv.getKey().getRow().toString()), label);
-        }
-        globals.getCaches().cache(edge, Edge.class);
+        String[] parts = AdjacencyLayout.parse(kv.getKey(), kv.getValue());
 
-        return edge;
+        return newEdge(vertexId, parts[1], parts[0], parts[2],
+            !kv.getKey().getColumnFamily().toString().equalsIgnoreCase(Constants.IN_EDGE));
       }
     };
   }
 
+  /**
+   * Return an edge of the given vertex.
+   * @param vertexId
+   * @param edgeId
+   * @param neighborId the vertex at the other end
+   * @param label
+   * @param out whether the edge is outgoing from the vertex
+   * @return
+   */
+  private Edge newEdge(String vertexId, String edgeId,
+      String neighborId, String label, boolean out) {
+    return out ?
+        globals.getElementFactory().getEdge(edgeId, neighborId, vertexId, label) :
+        globals.getElementFactory().getEdge(edgeId, vertexId, neighborId, label);
+  }
+
   public Iterable<Vertex> getVertices(Vertex vertex, Direction direction, String... labels) {
-    Scanner scan = getScanner();
-    scan.setRange(new Range(vertex.getId().toString()));
+    return getVertices(vertex, direction, Integer.MAX_VALUE, labels);
+  }
+
+  /**
+   * Get at most limit vertices adjacent to the given vertex
+   * via edges with the given direction and labels.
+   * @param vertex
+   * @param direction
+   * @param limit
+   * @param labels
+   * @return
+   */
+  public CloseableIterable<Vertex> getVertices(Vertex vertex, Direction direction,
+      int limit, String... labels) {
+    AdjacencyRead read = readAdjacency(vertex, direction, limit, labels);
+    AdjacencyList adjacency = read.adjacency;
+    if (adjacency != null) {
+      List<Vertex> vertices = new ArrayList<Vertex>(adjacency.size());
+      for (int i = 0; i < adjacency.size(); i++) {
+        vertices.add(globals.getElementFactory().getVertex(adjacency.getNeighborId(i)));
+      }
+      return new WrappingCloseableIterable<Vertex>(vertices);
+    }
+
+    return new ScannerIterable<Vertex>(read.scan, read.entries, limit) {
+
+      @Override
+      public Vertex next(PeekingIterator<Entry<Key,Value>> iterator) {
+        Entry<Key,Value> kv = iterator.next();
+        String[] parts = AdjacencyLayout.parse(kv.getKey(), kv.getValue());
+        return globals.getElementFactory().getVertex(parts[0]);
+      }
+    };
+  }
+
+  /**
+   * Read the given vertex's edges with the given direction
+   * and labels through the adjacency cache, reading and caching
+   * them if needed. If the cache is disabled, if limit is set, or
+   * if the vertex has more edges than the cache's degree cap,
+   * returns a scan to stream them instead. The read which finds
+   * that a vertex is past the cap stops buffering there, and
+   * continues the same scan rather than starting again.
+   * @param vertex
+   * @param direction
+   * @param limit
+   * @param labels
+   * @return
+   */
+  private AdjacencyRead readAdjacency(Vertex vertex, Direction direction,
+      int limit, String... labels) {
+    AdjacencyCache cache = globals.getCaches().getAdjacencyCache();
+    if (cache == null || limit < Integer.MAX_VALUE) {
+      return new AdjacencyRead(getEdgeScanner(vertex, direction, limit, labels), null);
+    }
+
+    String vertexId = vertex.getId().toString();
+    AdjacencyList adjacency = cache.get(vertexId, direction, labels);
+    if (adjacency == AdjacencyList.SUPERNODE) {
+      return new AdjacencyRead(getEdgeScanner(vertex, direction, limit, labels), null);
+    } else if (adjacency != null) {
+      return new AdjacencyRead(adjacency);
+    }
+
+    long generation = cache.getGeneration(vertexId);
+    adjacency = new AdjacencyList();
+    List<Entry<Key, Value>> entries = new ArrayList<Entry<Key, Value>>();
+
+    // Stop reading once past the degree cap.
+    ScannerBase scan = getEdgeScanner(vertex, direction, limit, labels);
+    Iterator<Entry<Key, Value>> iter;
+    try {
+      iter = scan.iterator();
+      while (adjacency.size() <= cache.getMaxDegree() && iter.hasNext()) {
+        Entry<Key, Value> kv = iter.next();
+        entries.add(kv);
+        String[] parts = AdjacencyLayout.parse(kv.getKey(), kv.getValue());
+        adjacency.add(parts[1], parts[0], parts[2],
+            !kv.getKey().getColumnFamily().toString().equalsIgnoreCase(Constants.IN_EDGE));
+      }
+    } catch (RuntimeException e) {
+      scan.close();
+      throw e;
+    }
+
+    cache.put(vertexId, generation, direction, labels, adjacency);
+    if (adjacency.size() <= cache.getMaxDegree()) {
+      scan.close();
+      return new AdjacencyRead(adjacency);
+    }
+    return new AdjacencyRead(scan, Iterators.concat(entries.iterator(), iter));
+  }
+
+  /**
+   * A vertex's edges, either as a complete list, or as
+   * a scan and, if started, the iterator over its entries.
+   */
+  private static class AdjacencyRead {
+    private final AdjacencyList adjacency;
+    private final ScannerBase scan;
+    private final Iterator<Entry<Key, Value>> entries;
+
+    private AdjacencyRead(AdjacencyList adjacency) {
+      this.adjacency = adjacency;
+      this.scan = null;
+      this.entries = null;
+    }
+
+    private AdjacencyRead(ScannerBase scan, Iterator<Entry<Key, Value>> entries) {
+      this.adjacency = null;
+      this.scan = scan;
+      this.entries = entries;
+    }
+  }
+
+  /**
+   * Get the ids of at most limit vertices adjacent to the given
+   * vertex via edges with the given direction and labels.
+   * These are read straight from the vertex table entries,
+   * without creating any elements.
+   * @param vertex
+   * @param direction
+   * @param limit
+   * @param labels
+   * @return
+   */
+  public List<String> getAdjacentVertexIds(Vertex vertex, Direction direction,
+      int limit, String... labels) {
+    ScannerBase scan = getEdgeScanner(vertex, direction, limit, labels);
+
+    List<String> ids = new ArrayList<String>();
+    try {
+      Iterator<Entry<Key, Value>> iter = scan.iterator();
+      while (ids.size() < limit && iter.hasNext()) {
+        Entry<Key, Value> kv = iter.next();
+        ids.add(AdjacencyLayout.parse(kv.getKey(), kv.getValue())[0]);
+      }
+    } finally {
+      scan.close();
+    }
+
+    return ids;
+  }
+
+  /**
+   * Count the edges of the given vertex with the given
+   * direction and labels, up to the given limit.
+   * Counting is done by the tablet servers, so the
+   * edges themselves are not sent to the client.
+   * @param vertex
+   * @param direction
+   * @param limit
+   * @param labels
+   * @return
+   */
+  public long countEdges(Vertex vertex, Direction direction,
+      long limit, String... labels) {
+    ScannerBase scan = getEdgeScanner(vertex, direction, Integer.MAX_VALUE, labels);
+
+    IteratorSetting is = new IteratorSetting(20, "edgeCount", EntryCountIterator.class);
+    if (limit < Long.MAX_VALUE) {
+      EntryCountIterator.setLimit(is, limit);
+    }
+    scan.addScanIterator(is);
+
+    long count = 0;
+    try {
+      for (Entry<Key, Value> entry : scan) {
+        count += EntryCountIterator.getCount(entry.getValue());
+      }
+    } finally {
+      scan.close();
+    }
+
+    return Math.min(count, limit);
+  }
+
+  /**
+   * Create a scanner over the given vertex's edge entries
+   * with the given direction and labels. If limit is small,
+   * the scanner's batch size is reduced accordingly, so no
+   * more entries than needed are sent to the client.
+   * <p/>With the {@link AdjacencyLayout#LABEL_FIRST} layout,
+   * entries with the given labels are read by seeking to
+   * each label's range, rather than by filtering.
+   * @param vertex
+   * @param direction
+   * @param limit
+   * @param labels
+   * @return
+   */
+  private ScannerBase getEdgeScanner(Vertex vertex, Direction direction,
+      int limit, String... labels) {
+    List<String> columnFamilies = new ArrayList<String>();
     if (direction.equals(Direction.IN)) {
-      scan.fetchColumnFamily(new Text(Constants.IN_EDGE));
+      columnFamilies.add(Constants.IN_EDGE);
     } else if (direction.equals(Direction.OUT)) {
-      scan.fetchColumnFamily(new Text(Constants.OUT_EDGE));
+      columnFamilies.add(Constants.OUT_EDGE);
     } else {
-      scan.fetchColumnFamily(new Text(Constants.IN_EDGE));
-      scan.fetchColumnFamily(new Text(Constants.OUT_EDGE));
+      columnFamilies.add(Constants.IN_EDGE);
+      columnFamilies.add(Constants.OUT_EDGE);
     }
 
-    if (labels != null && labels.length > 0) {
-      applyEdgeLabelValueFilter(scan, labels);
+    if (labels != null && labels.length > 0 &&
+        AdjacencyLayout.LABEL_FIRST.equals(globals.getConfig().getAdjacencyLayout())) {
+      List<Range> ranges = new ArrayList<Range>();
+      for (String cf : columnFamilies) {
+        for (String label : labels) {
+          ranges.addAll(AdjacencyLayout.getLabelRanges(vertex.getId().toString(), cf, label));
+        }
+      }
+
+      BatchScanner scan = getBatchScanner();
+      scan.setRanges(ranges);
+      return scan;
     }
 
-    return new ScannerIterable<Vertex>(scan) {
+    Scanner scan = getScanner();
+    scan.setRange(new Range(vertex.getId().toString()));
+    for (String cf : columnFamilies) {
+      scan.fetchColumnFamily(new Text(cf));
+    }
 
-      @Override
-      public Vertex next(PeekingIterator<Entry<Key,Value>> iterator) {
-        // TODO better use of information readily available...
-        // TODO could also check local cache before creating a new
-        // instance?
-        String[] parts = iterator.next().getKey().getColumnQualifier()
-            .toString().split(Constants.ID_DELIM);
+    if (labels != null && labels.length > 0) {
+      applyEdgeLabelValueFilter(scan, labels);
+    }
 
-        AccumuloVertex vertex = new AccumuloVertex(globals, parts[0]);
-        globals.getCaches().cache(vertex, Vertex.class);
+    if (limit < scan.getBatchSize()) {
+      scan.setBatchSize(Math.max(1, limit));
+    }
 
-        return vertex;
-      }
-    };
+    return scan;
   }
 
   public CloseableIterable<Vertex> getVertices() {
     return getVerticesInRange(null, null);
   }
 
+  /**
+   * Split a scan of all vertices into one scan per tablet.
+   * See {@link AccumuloGraph#getVertexSplits()}.
+   * @return
+   */
+  public List<CloseableIterable<Vertex>> getVertexSplits() {
+    String[] preload = globals.getConfig().getPreloadedProperties();
+    List<CloseableIterable<Vertex>> splits = new ArrayList<CloseableIterable<Vertex>>();
+    for (Range part : splitByTablets(new Range())) {
+      splits.add(scanVerticesInOrder(part,
+          preload != null ? preload : new String[]{}, null));
+    }
+    return splits;
+  }
+
   public CloseableIterable<Vertex> getVerticesInRange(Object fromId, Object toId) {
+    String[] preload = globals.getConfig().getPreloadedProperties();
+    return scanVertices(new Range(fromId != null ? fromId.toString() : null,
+        toId != null ? toId.toString() : null),
+        preload != null ? preload : new String[]{}, null);
+  }
+
+  /**
+   * Scan all vertices, along with the given properties,
+   * returning only those accepted by the given row filter
+   * if not null. If propertyKeys is null, read all properties.
+   * @param propertyKeys
+   * @param filter
+   * @return
+   */
+  public CloseableIterable<Vertex> getVertices(String[] propertyKeys,
+      IteratorSetting filter) {
+    return scanVertices(new Range(), propertyKeys, filter);
+  }
+
+  private CloseableIterable<Vertex> scanVertices(Range range,
+      String[] propertyKeys, IteratorSetting filter) {
+    if (globals.getConfig().getParallelScans()) {
+      final VertexParser parser = new VertexParser(globals);
+      return new ParallelScannerIterable<Vertex>(getTabletScanners(range,
+          propertyKeys, filter), globals.getConfig().getQueryThreads()) {
+        @Override
+        public Vertex next(String rowId, List<Entry<Key, Value>> entries) {
+          return parser.parse(rowId, entries);
+        }
+      };
+    }
+
+    return scanVerticesInOrder(range, propertyKeys, filter);
+  }
+
+  private CloseableIterable<Vertex> scanVerticesInOrder(Range range,
+      String[] propertyKeys, IteratorSetting filter) {
     Scanner scan = getScanner();
-    scan.setRange(new Range(fromId != null ? fromId.toString() : null,
-        toId != null ? toId.toString() : null));
-    scan.fetchColumnFamily(new Text(Constants.LABEL));
+    scan.setRange(range);
+    fetchProperties(scan, propertyKeys);
 
-    if (globals.getConfig().getPreloadedProperties() != null) {
-      for (String key : globals.getConfig().getPreloadedProperties()) {
-        scan.fetchColumnFamily(new Text(key));
-      }
+    if (filter != null) {
+      scan.addScanIterator(filter);
     }
 
     final VertexParser parser = new VertexParser(globals);
@@ -210,8 +507,6 @@ public class VertexTableWrapper extends ElementTableWrapper {
     return new ScannerIterable<Vertex>(scan) {
       @Override
       public Vertex next(PeekingIterator<Entry<Key, Value>> iterator) {
-        // TODO could also check local cache before creating a new instance?
-
         String rowId = iterator.peek().getKey().getRow().toString();
 
         List<Entry<Key, Value>> entries =
@@ -222,14 +517,47 @@ public class VertexTableWrapper extends ElementTableWrapper {
           entries.add(iterator.next());
         }
 
-        AccumuloVertex vertex = parser.parse(rowId, entries);
-        globals.getCaches().cache(vertex, Vertex.class);
-
-        return vertex;
+        return parser.parse(rowId, entries);
       }
     };
   }
 
+  /**
+   * Read the vertices with the given ids using a single
+   * batch scan, along with the given properties.
+   * If propertyKeys is null, read all properties.
+   * The returned map is keyed by vertex id, and
+   * vertices which do not exist are not included.
+   * @param ids
+   * @param propertyKeys
+   * @return
+   */
+  public Map<String, AccumuloVertex> readVertices(Collection<String> ids,
+      String[] propertyKeys) {
+    return readVertices(ids, propertyKeys, null);
+  }
+
+  /**
+   * As with {@link #readVertices(Collection, String[])}, but only
+   * return vertices accepted by the given row filter, if not null.
+   * @param ids
+   * @param propertyKeys
+   * @param filter
+   * @return
+   */
+  public Map<String, AccumuloVertex> readVertices(Collection<String> ids,
+      String[] propertyKeys, IteratorSetting filter) {
+    VertexParser parser = new VertexParser(globals);
+
+    Map<String, AccumuloVertex> vertices = new HashMap<String, AccumuloVertex>();
+    for (Entry<String, List<Entry<Key, Value>>> row :
+      readRows(ids, propertyKeys, filter).entrySet()) {
+      vertices.put(row.getKey(), parser.parse(row.getKey(), row.getValue()));
+    }
+
+    return vertices;
+  }
+
   public Iterable<Vertex> getVertices(String key, Object value) {
     AccumuloGraphUtils.validateProperty(key, value);
 
@@ -238,8 +566,8 @@ public class VertexTableWrapper extends ElementTableWrapper {
       BatchScanner scan = getBatchScanner();
       scan.fetchColumnFamily(new Text(key));
 
-      IteratorSetting is = new IteratorSetting(10, "filter", RegExFilter.class);
-      RegExFilter.setRegexs(is, null, null, null, Pattern.quote(new String(val)), false);
+      IteratorSetting is = new IteratorSetting(10, "filter", ValueEqualsFilter.class);
+      ValueEqualsFilter.setValues(is, AccumuloByteSerializer.serializeAllVersions(value));
       scan.addScanIterator(is);
 
       return new ScannerIterable<Vertex>(scan) {
@@ -250,14 +578,9 @@ public class VertexTableWrapper extends ElementTableWrapper {
           String key = kv.getKey().getColumnFamily().toString();
           Object value = AccumuloByteSerializer.deserialize(kv.getValue().get());
 
-          Vertex v = globals.getCaches().retrieve(kv.getKey().getRow().toString(), Vertex.class);
-          if (v == null) {
-            v = new AccumuloVertex(globals, kv.getKey().getRow().toString());
-          }
-
-          ((AccumuloElement) v).setPropertyInMemory(key, value);
-          globals.getCaches().cache(v, Vertex.class);
-
+          AccumuloVertex v = globals.getElementFactory()
+              .getVertex(kv.getKey().getRow().toString());
+          v.setPropertyInMemory(key, value);
           return v;
         }
       };
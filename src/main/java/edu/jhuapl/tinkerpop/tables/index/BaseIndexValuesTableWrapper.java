@@ -14,15 +14,22 @@
  */
 package edu.jhuapl.tinkerpop.tables.index;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.accumulo.core.client.BatchDeleter;
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.ScannerBase;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
@@ -34,9 +41,11 @@ import com.tinkerpop.blueprints.CloseableIterable;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.IndexableGraph;
 import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.util.WrappingCloseableIterable;
 
 import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
 import edu.jhuapl.tinkerpop.AccumuloElement;
+import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration;
 import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.AccumuloGraphUtils;
 import edu.jhuapl.tinkerpop.GlobalInstances;
@@ -108,11 +117,41 @@ public abstract class BaseIndexValuesTableWrapper extends BaseTableWrapper {
         Mutators.apply(writer, new IndexValueMutator.Delete(element, key, oldValue));
       }
 
-      Mutators.apply(writer, new IndexValueMutator.Add(element, key, value));
+      Mutators.apply(writer, new IndexValueMutator.Add(element, key, value,
+          globals.getConfig().getSerializerVersion()));
       globals.checkedFlush();
     }
   }
 
+  /**
+   * Add the properties of a newly created element to this
+   * index, for keys which are indexed. Since the element has
+   * no previous values to remove, unlike
+   * {@link #setPropertyForIndex(Element, String, Object)}
+   * this needs no reads. Does not flush.
+   * @param element
+   * @param properties
+   */
+  public void addPropertiesForNewElement(Element element,
+      Map<String, Object> properties) {
+    if (properties.isEmpty()) {
+      return;
+    }
+
+    boolean autoIndex = globals.getConfig().getAutoIndex();
+    Set<String> indexedKeys = globals.getIndexMetadataWrapper()
+        .getIndexedKeys(elementType);
+    int version = globals.getConfig().getSerializerVersion();
+    BatchWriter writer = getWriter();
+
+    for (Entry<String, Object> entry : properties.entrySet()) {
+      if (autoIndex || indexedKeys.contains(entry.getKey())) {
+        Mutators.apply(writer, new IndexValueMutator.Add(element,
+            entry.getKey(), entry.getValue(), version));
+      }
+    }
+  }
+
   /**
    * Remove property from the index.
    * @param element
@@ -132,23 +171,135 @@ public abstract class BaseIndexValuesTableWrapper extends BaseTableWrapper {
    * @param value
    * @return
    */
-  @SuppressWarnings("unchecked")
   public <T extends Element> CloseableIterable<T> readElementsFromIndex(String key, Object value) {
+    return parseElements(getIndexScanner(key, value));
+  }
+
+  /**
+   * Get elements whose value for the given key lies between
+   * from and to, with a single scan over the index rows.
+   * Either bound may be null, meaning unbounded, but not both.
+   * Both bounds must be of the same type, one for which
+   * {@link AccumuloByteSerializer#isOrderPreserving(Object)} holds.
+   * <p/>This relies on the row order of index entries, so
+   * requires serializer version 2 (see
+   * {@link AccumuloGraphConfiguration#setSerializerVersion(int)}).
+   * Index entries written in version 1 are not found; rebuild
+   * the index after switching an existing graph to version 2.
+   * @param key
+   * @param from
+   * @param fromInclusive
+   * @param to
+   * @param toInclusive
+   * @return
+   */
+  public <T extends Element> CloseableIterable<T> readElementsFromIndex(String key,
+      Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+    if (globals.getConfig().getSerializerVersion() < 2) {
+      throw new AccumuloGraphException("Index range lookups require serializer version 2");
+    }
+
+    Range range = getIndexRange(from, fromInclusive, to, toInclusive);
+    if (range == null) {
+      return new WrappingCloseableIterable<T>(Collections.<T>emptyList());
+    }
+
     Scanner scan = getScanner();
-    byte[] id = AccumuloByteSerializer.serialize(value);
-    scan.setRange(Range.exact(new Text(id)));
+    scan.setRange(range);
     scan.fetchColumnFamily(new Text(key));
+    return parseElements(scan);
+  }
+
+  /**
+   * Range of index rows with values between the given
+   * bounds, or null if no value lies between them.
+   */
+  private static Range getIndexRange(Object from, boolean fromInclusive,
+      Object to, boolean toInclusive) {
+    Object bound = from != null ? from : to;
+    if (bound == null) {
+      throw new IllegalArgumentException("At least one bound must be given");
+    }
+    if (from != null && to != null && !from.getClass().equals(to.getClass())) {
+      throw new IllegalArgumentException("Bounds must be of the same type: "
+          + from.getClass() + ", " + to.getClass());
+    }
+    if (!AccumuloByteSerializer.isOrderPreserving(bound)) {
+      throw new IllegalArgumentException("Unsupported type for range lookup: "
+          + bound.getClass());
+    }
 
+    // Rows for all values of the bounds' type share this prefix.
+    Text prefix = new Text(Arrays.copyOf(AccumuloByteSerializer.serialize(bound, 2), 2));
+
+    Text start = from != null ? new Text(AccumuloByteSerializer.serialize(from, 2)) : prefix;
+    Text end = to != null ? new Text(AccumuloByteSerializer.serialize(to, 2)) :
+      Range.followingPrefix(prefix);
+    boolean startInclusive = from == null || fromInclusive;
+    boolean endInclusive = to != null && toInclusive;
+    int cmp = start.compareTo(end);
+    if (cmp > 0 || (cmp == 0 && !(startInclusive && endInclusive))) {
+      return null;
+    }
+    return new Range(start, startInclusive, end, endInclusive);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Element> CloseableIterable<T> parseElements(ScannerBase scan) {
     final ElementIndexParser<? extends AccumuloElement> parser =
         Vertex.class.equals(elementType) ? new VertexIndexParser(globals) :
           new EdgeIndexParser(globals);
 
-        return new ScannerIterable<T>(scan) {
-          @Override
-          public T next(PeekingIterator<Entry<Key,Value>> iterator) {
-            return (T) parser.parse(Arrays.asList(iterator.next()));
-          }      
-        };
+    return new ScannerIterable<T>(scan) {
+      @Override
+      public T next(PeekingIterator<Entry<Key,Value>> iterator) {
+        return (T) parser.parse(Arrays.asList(iterator.next()));
+      }
+    };
+  }
+
+  /**
+   * Count the index entries with the given key/value pair,
+   * stopping once the given maximum is reached. This is
+   * cheap for small maximums, and is used to estimate how
+   * selective a key/value pair is.
+   * @param key
+   * @param value
+   * @param max
+   * @return
+   */
+  public int countElementsInIndex(String key, Object value, int max) {
+    BatchScanner scan = getIndexScanner(key, value);
+    try {
+      int count = 0;
+      Iterator<Entry<Key, Value>> iter = scan.iterator();
+      while (count < max && iter.hasNext()) {
+        iter.next();
+        count++;
+      }
+      return count;
+    } finally {
+      scan.close();
+    }
+  }
+
+  /**
+   * Create a scanner over the index entries with the given
+   * key/value pair, for every serializer version.
+   * @param key
+   * @param value
+   * @return
+   */
+  protected BatchScanner getIndexScanner(String key, Object value) {
+    List<Range> ranges = new ArrayList<Range>();
+    for (byte[] row : AccumuloByteSerializer.serializeAllVersions(value)) {
+      ranges.add(Range.exact(new Text(row)));
+    }
+
+    BatchScanner scan = getBatchScanner();
+    scan.setRanges(ranges);
+    scan.fetchColumnFamily(new Text(key));
+    return scan;
   }
 
   /**
@@ -17,17 +17,14 @@ package edu.jhuapl.tinkerpop.tables.index;
 import java.util.Arrays;
 import java.util.Map.Entry;
 
-import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.data.Key;
-import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.util.PeekingIterator;
-import org.apache.hadoop.io.Text;
 
+import com.tinkerpop.blueprints.CloseableIterable;
 import com.tinkerpop.blueprints.Edge;
 
-import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
-import edu.jhuapl.tinkerpop.AccumuloEdge;
 import edu.jhuapl.tinkerpop.GlobalInstances;
 import edu.jhuapl.tinkerpop.ScannerIterable;
 import edu.jhuapl.tinkerpop.parser.EdgeIndexParser;
@@ -42,6 +39,19 @@ public class EdgeKeyIndexTableWrapper extends BaseKeyIndexTableWrapper {
         .getEdgeKeyIndexTableName());
   }
 
+  /**
+   * Retrieve edges from the index table whose value for
+   * the given key is at least from and less than to.
+   * See {@link #readElementsFromIndex(String, Object, boolean, Object, boolean)}.
+   * @param key
+   * @param from
+   * @param to
+   * @return
+   */
+  public CloseableIterable<Edge> getEdges(String key, Object from, Object to) {
+    return readElementsFromIndex(key, from, true, to, false);
+  }
+
   /**
    * Retrieve edges from the index table based
    * on the given key/value.
@@ -50,11 +60,7 @@ public class EdgeKeyIndexTableWrapper extends BaseKeyIndexTableWrapper {
    * @return
    */
   public Iterable<Edge> getEdges(String key, Object value) {
-    Scanner s = getScanner();
-
-    Text row = new Text(AccumuloByteSerializer.serialize(value));
-    s.setRange(Range.exact(row));
-    s.fetchColumnFamily(new Text(key));
+    BatchScanner s = getIndexScanner(key, value);
 
     final EdgeIndexParser parser = new EdgeIndexParser(globals);
 
@@ -63,23 +69,8 @@ public class EdgeKeyIndexTableWrapper extends BaseKeyIndexTableWrapper {
       @Override
       public Edge next(PeekingIterator<Entry<Key, Value>> iterator) {
         Entry<Key, Value> entry = iterator.next();
-        AccumuloEdge e = parser.parse(Arrays.asList(entry));
-
-        // Check if we have it cached already, in which
-        // case use the cached version.
-        AccumuloEdge cached = (AccumuloEdge) globals.getCaches()
-            .retrieve(e.getId(), Edge.class);
-        if (cached != null) {
-          for (String key : e.getPropertyKeysInMemory()) {
-            cached.setPropertyInMemory(key, e.getPropertyInMemory(key));
-          }
-
-          return cached;
-        }
-
-        // We don't have it, so cache the new one and return it.
-        globals.getCaches().cache(e, Edge.class);
-        return e;
+        // The parser returns the cached instance, if any.
+        return parser.parse(Arrays.asList(entry));
       }
     };
   }
@@ -15,19 +15,33 @@
 package edu.jhuapl.tinkerpop.tables.index;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import org.apache.accumulo.core.client.MutationsRejectedException;
 import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
 import org.apache.hadoop.io.Text;
 
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Index;
 import com.tinkerpop.blueprints.IndexableGraph;
 import com.tinkerpop.blueprints.KeyIndexableGraph;
+import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 
+import edu.jhuapl.tinkerpop.AccumuloGraphConfiguration;
+import edu.jhuapl.tinkerpop.AccumuloGraphException;
 import edu.jhuapl.tinkerpop.AccumuloIndex;
 import edu.jhuapl.tinkerpop.Constants.IndexMetadataEntryType;
 import edu.jhuapl.tinkerpop.GlobalInstances;
@@ -41,9 +55,18 @@ import edu.jhuapl.tinkerpop.tables.BaseTableWrapper;
  * Stores metadata, in particular the indexed keys
  * for {@link KeyIndexableGraph}, and the list of
  * named indexes for {@link IndexableGraph}.
+ * <p/>Metadata is cached in memory. Every change also
+ * rewrites a version entry, which is checked at most once per
+ * {@link AccumuloGraphConfiguration#getIndexMetadataPollInterval()}
+ * to pick up changes made by other graph instances.
  */
 public class IndexMetadataTableWrapper extends BaseTableWrapper {
 
+  /**
+   * Cached metadata, or null if it must be reloaded.
+   */
+  private volatile Metadata metadata;
+
   public IndexMetadataTableWrapper(GlobalInstances globals) {
     super(globals, globals.getConfig().getIndexMetadataTableName());
   }
@@ -54,98 +77,58 @@ public class IndexMetadataTableWrapper extends BaseTableWrapper {
   public void writeKeyMetadataEntry(String key, Class<? extends Element> clazz) {
     Mutators.apply(getWriter(), new IndexMetadataMutator.Add(key, clazz,
         IndexMetadataEntryType.__INDEX_KEY__));
+    updateVersion();
   }
 
   public void clearKeyMetadataEntry(String key, Class<? extends Element> clazz) {
     Mutators.apply(getWriter(), new IndexMetadataMutator.Delete(key, clazz,
         IndexMetadataEntryType.__INDEX_KEY__));
+    updateVersion();
   }
 
+  /**
+   * Indexed keys for the given class, which may be Vertex,
+   * Edge, or Element for both. The returned set is
+   * shared, and cannot be modified.
+   * @param elementClass
+   * @return
+   */
   public <T extends Element> Set<String> getIndexedKeys(Class<T> elementClass) {
     if (elementClass == null) {
       throw ExceptionFactory.classForElementCannotBeNull();
     }
 
-    IndexedItemsListParser parser = new IndexedItemsListParser(elementClass);
-
-    Scanner scan = null;
-    try {
-      scan = getScanner();
-      scan.fetchColumnFamily(new Text(IndexMetadataEntryType.__INDEX_KEY__.name()));
-
-      Set<String> keys = new HashSet<String>();
-      for (IndexedItem item : parser.parse(scan)) {
-        keys.add(item.getKey());
-      }
-
-      return keys;
-
-    } finally {
-      if (scan != null) {
-        scan.close();
-      }
+    Set<String> keys = getMetadata().indexedKeys.get(elementClass);
+    if (keys == null) {
+      throw new IllegalArgumentException("elementClass must be Vertex, Edge or Element");
     }
+    return keys;
   }
 
 
   //////// Methods for IndexableGraph ////////
 
-  @SuppressWarnings({"rawtypes", "unchecked"})
   public Iterable<Index<? extends Element>> getIndices() {
-    List<Index<? extends Element>> indexes = new ArrayList<Index<? extends Element>>();
-
-    IndexedItemsListParser parser = new IndexedItemsListParser();
-
-    Scanner scan = null;
-    try {
-      scan = getScanner();
-      scan.fetchColumnFamily(new Text(IndexMetadataEntryType.__INDEX_NAME__.name()));
-
-      for (IndexedItem item : parser.parse(scan)) {
-        indexes.add(new AccumuloIndex(globals,
-            item.getKey(), item.getElementClass()));
-      }
-
-      return indexes;
-
-    } finally {
-      if (scan != null) {
-        scan.close();
-      }
-    }
+    return new ArrayList<Index<? extends Element>>(getMetadata().indexes.values());
   }
 
+  @SuppressWarnings("unchecked")
   public <T extends Element> Index<T> getIndex(String indexName,
       Class<T> indexClass) {
-    IndexedItemsListParser parser = new IndexedItemsListParser();
-
-    Scanner scan = null;
-    try {
-      scan = getScanner();
-      scan.fetchColumnFamily(new Text(IndexMetadataEntryType.__INDEX_NAME__.name()));
-
-      for (IndexedItem item : parser.parse(scan)) {
-        if (item.getKey().equals(indexName)) {
-          if (item.getElementClass().equals(indexClass)) {
-            return new AccumuloIndex<T>(globals, indexName,
-                indexClass);
-          }
-          else {
-            throw ExceptionFactory.indexDoesNotSupportClass(indexName, indexClass);
-          }
-        }
-      }
+    Index<? extends Element> index = getMetadata().indexes.get(indexName);
+    if (index == null) {
       return null;
-
-    } finally {
-      if (scan != null) {
-        scan.close();
-      }
+    } else if (!index.getIndexClass().equals(indexClass)) {
+      throw ExceptionFactory.indexDoesNotSupportClass(indexName, indexClass);
     }
+    return (Index<T>) index;
   }
-  
+
   public <T extends Element> Index<T> createIndex(String indexName,
       Class<T> indexClass) {
+    // Check against the table, not the cache,
+    // in case another instance just created it.
+    metadata = null;
     for (Index<?> index : getIndices()) {
       if (index.getIndexName().equals(indexName)) {
         throw ExceptionFactory.indexAlreadyExists(indexName);
@@ -160,11 +143,134 @@ public class IndexMetadataTableWrapper extends BaseTableWrapper {
       Class<? extends Element> indexClass) {
     Mutators.apply(getWriter(), new IndexMetadataMutator.Add(indexName,
         indexClass, IndexMetadataEntryType.__INDEX_NAME__));
+    updateVersion();
   }
 
   public void clearIndexNameEntry(String indexName,
       Class<? extends Element> indexClass) {
     Mutators.apply(getWriter(), new IndexMetadataMutator.Delete(indexName,
         indexClass, IndexMetadataEntryType.__INDEX_NAME__));
+    updateVersion();
+  }
+
+
+  //////// Caching ////////
+
+  /**
+   * Mark metadata as changed, and drop the cache.
+   * Changes are rare, so are flushed right away,
+   * to make them visible to the reload.
+   */
+  private synchronized void updateVersion() {
+    Mutators.apply(getWriter(), new IndexMetadataMutator.UpdateVersion());
+    try {
+      globals.getMtbw().flush();
+    } catch (MutationsRejectedException e) {
+      throw new AccumuloGraphException(e);
+    }
+    metadata = null;
+  }
+
+  /**
+   * Get the cached metadata, reloading it if
+   * its version has changed since it was read.
+   */
+  private Metadata getMetadata() {
+    long pollInterval = globals.getConfig().getIndexMetadataPollInterval();
+
+    Metadata current = metadata;
+    if (current != null && !current.isDue(pollInterval)) {
+      return current;
+    }
+
+    synchronized (this) {
+      current = metadata;
+      if (current != null && !current.isDue(pollInterval)) {
+        return current;
+      }
+
+      String version = readVersion();
+      if (current != null && current.version.equals(version)) {
+        current.checked = System.currentTimeMillis();
+        return current;
+      }
+
+      metadata = current = readMetadata(version);
+      return current;
+    }
+  }
+
+  private String readVersion() {
+    Scanner scan = getScanner();
+    try {
+      String name = IndexMetadataEntryType.__VERSION__.name();
+      scan.setRange(Range.exact(name, name));
+      Iterator<Entry<Key, Value>> iter = scan.iterator();
+      return iter.hasNext() ? iter.next().getValue().toString() : "";
+
+    } finally {
+      scan.close();
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private Metadata readMetadata(String version) {
+    Set<String> vertexKeys = new HashSet<String>();
+    Set<String> edgeKeys = new HashSet<String>();
+    for (IndexedItem item : readItems(IndexMetadataEntryType.__INDEX_KEY__)) {
+      (Vertex.class.equals(item.getElementClass()) ? vertexKeys : edgeKeys)
+        .add(item.getKey());
+    }
+    Set<String> allKeys = new HashSet<String>(vertexKeys);
+    allKeys.addAll(edgeKeys);
+
+    Map<Class<?>, Set<String>> indexedKeys = new HashMap<Class<?>, Set<String>>();
+    indexedKeys.put(Vertex.class, Collections.unmodifiableSet(vertexKeys));
+    indexedKeys.put(Edge.class, Collections.unmodifiableSet(edgeKeys));
+    indexedKeys.put(Element.class, Collections.unmodifiableSet(allKeys));
+
+    Map<String, Index<? extends Element>> indexes =
+        new LinkedHashMap<String, Index<? extends Element>>();
+    for (IndexedItem item : readItems(IndexMetadataEntryType.__INDEX_NAME__)) {
+      indexes.put(item.getKey(), new AccumuloIndex(globals,
+          item.getKey(), item.getElementClass()));
+    }
+
+    return new Metadata(version, indexedKeys, indexes);
+  }
+
+  private List<IndexedItem> readItems(IndexMetadataEntryType type) {
+    Scanner scan = null;
+    try {
+      scan = getScanner();
+      scan.fetchColumnFamily(new Text(type.name()));
+      return new IndexedItemsListParser().parse(scan);
+
+    } finally {
+      if (scan != null) {
+        scan.close();
+      }
+    }
+  }
+
+  /**
+   * Metadata as of a given version.
+   */
+  private static class Metadata {
+    final String version;
+    final Map<Class<?>, Set<String>> indexedKeys;
+    final Map<String, Index<? extends Element>> indexes;
+    volatile long checked = System.currentTimeMillis();
+
+    Metadata(String version, Map<Class<?>, Set<String>> indexedKeys,
+        Map<String, Index<? extends Element>> indexes) {
+      this.version = version;
+      this.indexedKeys = indexedKeys;
+      this.indexes = indexes;
+    }
+
+    boolean isDue(long pollInterval) {
+      return System.currentTimeMillis() - checked >= pollInterval;
+    }
   }
 }
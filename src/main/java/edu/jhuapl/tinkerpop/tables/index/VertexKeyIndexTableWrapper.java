@@ -17,17 +17,14 @@ package edu.jhuapl.tinkerpop.tables.index;
 import java.util.Arrays;
 import java.util.Map.Entry;
 
-import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.data.Key;
-import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.util.PeekingIterator;
-import org.apache.hadoop.io.Text;
 
+import com.tinkerpop.blueprints.CloseableIterable;
 import com.tinkerpop.blueprints.Vertex;
 
-import edu.jhuapl.tinkerpop.AccumuloByteSerializer;
-import edu.jhuapl.tinkerpop.AccumuloVertex;
 import edu.jhuapl.tinkerpop.GlobalInstances;
 import edu.jhuapl.tinkerpop.ScannerIterable;
 import edu.jhuapl.tinkerpop.parser.VertexIndexParser;
@@ -42,6 +39,19 @@ public class VertexKeyIndexTableWrapper extends BaseKeyIndexTableWrapper {
         .getVertexKeyIndexTableName());
   }
 
+  /**
+   * Use the index to retrieve vertices whose value for the
+   * given key is at least from and less than to.
+   * See {@link #readElementsFromIndex(String, Object, boolean, Object, boolean)}.
+   * @param key
+   * @param from
+   * @param to
+   * @return
+   */
+  public CloseableIterable<Vertex> getVertices(String key, Object from, Object to) {
+    return readElementsFromIndex(key, from, true, to, false);
+  }
+
   /**
    * Use the index to retrieve vertices with the
    * given key/value.
@@ -49,11 +59,7 @@ public class VertexKeyIndexTableWrapper extends BaseKeyIndexTableWrapper {
    * @param value
    */
   public Iterable<Vertex> getVertices(String key, Object value) {
-    Scanner s = getScanner();
-
-    Text row = new Text(AccumuloByteSerializer.serialize(value));
-    s.setRange(Range.exact(row));
-    s.fetchColumnFamily(new Text(key));
+    BatchScanner s = getIndexScanner(key, value);
 
     final VertexIndexParser parser = new VertexIndexParser(globals);
 
@@ -62,23 +68,8 @@ public class VertexKeyIndexTableWrapper extends BaseKeyIndexTableWrapper {
       @Override
       public Vertex next(PeekingIterator<Entry<Key, Value>> iterator) {
         Entry<Key, Value> entry = iterator.next();
-        AccumuloVertex v = parser.parse(Arrays.asList(entry));
-
-        // Check if we have it cached already, in which
-        // case use the cached version.
-        AccumuloVertex cached = (AccumuloVertex) globals.getCaches()
-            .retrieve(v.getId(), Vertex.class);
-        if (cached != null) {
-          for (String key : v.getPropertyKeysInMemory()) {
-            cached.setPropertyInMemory(key, v.getPropertyInMemory(key));
-          }
-
-          return cached;
-        }
-
-        // We don't have it, so cache the new one and return it.
-        globals.getCaches().cache(v, Vertex.class);
-        return v;
+        // The parser returns the cached instance, if any.
+        return parser.parse(Arrays.asList(entry));
       }
     };
   }
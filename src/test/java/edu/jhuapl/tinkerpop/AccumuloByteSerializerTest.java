@@ -0,0 +1,142 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests for {@link AccumuloByteSerializer}.
+ */
+public class AccumuloByteSerializerTest {
+
+  @Test
+  public void testRoundTrip() {
+    Object[] values = {null, (byte) -3, (short) -300, 'x', -5, 0, Integer.MAX_VALUE,
+        Long.MIN_VALUE, 1.5f, -2.25, Double.NaN, true, false, new Date(123456789L),
+        "", "str", new QName("ns", "local"), Direction.OUT,
+        new ArrayList<String>(Arrays.asList("a", "b"))};
+
+    for (int version = 1; version <= AccumuloByteSerializer.LATEST_VERSION; version++) {
+      for (Object value : values) {
+        assertEquals(value, AccumuloByteSerializer.deserialize(
+            AccumuloByteSerializer.serialize(value, version)));
+      }
+    }
+
+    // Version 2 strings are always UTF-8.
+    assertEquals("\u00e9t\u00e9", AccumuloByteSerializer.deserialize(
+        AccumuloByteSerializer.serialize("\u00e9t\u00e9", 2)));
+
+    assertEquals(AccumuloByteSerializer.V2, AccumuloByteSerializer.serialize(5, 2)[0]);
+    assertTrue(AccumuloByteSerializer.serialize(1234567890123L, 2).length <
+        AccumuloByteSerializer.serialize(1234567890123L, 1).length);
+  }
+
+  @Test
+  public void testV2Order() {
+    assertOrdered(Integer.MIN_VALUE, -1000, -1, 0, 1, 9, 10, 1000, Integer.MAX_VALUE);
+    assertOrdered(Long.MIN_VALUE, -1L, 0L, 2L, 10L, Long.MAX_VALUE);
+    assertOrdered((short) -2, (short) 0, (short) 2);
+    assertOrdered((byte) -2, (byte) 0, (byte) 2);
+    assertOrdered(Double.NEGATIVE_INFINITY, -10.5, -1.0, -0.0, 0.0, 0.5, 2.0, 10.0,
+        Double.POSITIVE_INFINITY);
+    assertOrdered(-10.5f, -1f, 0f, 2f, 10f);
+    assertOrdered(new Date(-1000), new Date(0), new Date(5), new Date(100000));
+
+    assertTrue(AccumuloByteSerializer.isOrderPreserving(5L));
+    assertTrue(AccumuloByteSerializer.isOrderPreserving(new Date()));
+    assertFalse(AccumuloByteSerializer.isOrderPreserving(null));
+    assertFalse(AccumuloByteSerializer.isOrderPreserving(BigDecimal.ONE));
+    assertFalse(AccumuloByteSerializer.isOrderPreserving(BigInteger.ONE));
+    assertFalse(AccumuloByteSerializer.isOrderPreserving(new AtomicLong()));
+    assertFalse(AccumuloByteSerializer.isOrderPreserving(new Timestamp(0)));
+  }
+
+  @Test
+  public void testVersionsInGraph() {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testVersionsInGraph");
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+    graph.createKeyIndex("age", Vertex.class);
+    for (int i = 0; i < 5; i++) {
+      graph.addVertex("v"+i).setProperty("age", i);
+    }
+    graph.shutdown();
+
+    // Reopen, writing version 2 alongside the existing version 1 data.
+    graph = (AccumuloGraph) GraphFactory.open(cfg.clone().setCreate(false)
+        .setSerializerVersion(2));
+    for (int i = 5; i < 10; i++) {
+      graph.addVertex("v"+i).setProperty("age", i % 5);
+    }
+
+    assertEquals(ids("v1", "v6"), ids(graph.getVertices("age", 1)));
+    assertEquals(ids("v2", "v7"), ids(graph.query().has("age", 2).vertices()));
+    assertEquals(3, (int) graph.getVertex("v8").getProperty("age"));
+
+    // Changing a value removes its old index entry,
+    // regardless of the version it was written in.
+    graph.getVertex("v1").setProperty("age", 100);
+    graph.getVertex("v6").setProperty("age", 100);
+    assertEquals(ids(), ids(graph.getVertices("age", 1)));
+    assertEquals(ids("v1", "v6"), ids(graph.getVertices("age", 100)));
+
+    graph.dropKeyIndex("age", Vertex.class);
+    assertEquals(ids("v3", "v8"), ids(graph.getVertices("age", 3)));
+    assertEquals(ids("v0", "v5"), ids(graph.query().has("age", 0).vertices()));
+
+    graph.shutdown();
+  }
+
+  private static void assertOrdered(Object... values) {
+    for (int i = 1; i < values.length; i++) {
+      Text prev = new Text(AccumuloByteSerializer.serialize(values[i - 1], 2));
+      Text next = new Text(AccumuloByteSerializer.serialize(values[i], 2));
+      assertTrue(values[i - 1] + " < " + values[i], prev.compareTo(next) < 0);
+    }
+  }
+
+  private static Set<String> ids(String... strs) {
+    return new HashSet<String>(Arrays.asList(strs));
+  }
+
+  private static Set<String> ids(Iterable<? extends Element> elements) {
+    Set<String> ids = new HashSet<String>();
+    for (Element element : elements) {
+      ids.add(element.getId().toString());
+    }
+    return ids;
+  }
+}
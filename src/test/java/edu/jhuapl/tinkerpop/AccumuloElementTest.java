@@ -16,10 +16,16 @@ package edu.jhuapl.tinkerpop;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
 
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphFactory;
 import com.tinkerpop.blueprints.Vertex;
 
 /**
@@ -92,6 +98,69 @@ public class AccumuloElementTest {
     graph.shutdown();
   }
 
+  @Test
+  public void testGetVerticesByIds() {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testGetVerticesByIds");
+    cfg.setPropertyCacheTimeout(null, 100000);
+    cfg.setPreloadedProperties(new String[] {"name"});
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+
+    for (int i = 0; i < 10; i++) {
+      graph.addVertex(id(i)).setProperty("name", "v"+i);
+    }
+
+    assertEquals(0, count(graph.getVertices(Arrays.asList())));
+    assertEquals(0, count(graph.getVertices(Arrays.asList(id(20), id(30)))));
+
+    List<Vertex> verts = new ArrayList<Vertex>();
+    for (Vertex v : graph.getVertices(Arrays.asList(id(7), id(20), id(3), id(7), id(0)))) {
+      verts.add(v);
+    }
+    assertEquals(3, verts.size());
+    assertEquals(id(7), verts.get(0).getId());
+    assertEquals(id(3), verts.get(1).getId());
+    assertEquals(id(0), verts.get(2).getId());
+    assertEquals("v7", ((AccumuloVertex) verts.get(0)).getPropertyInMemory("name"));
+    assertEquals("v3", ((AccumuloVertex) verts.get(1)).getPropertyInMemory("name"));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testGetEdgesByIds() {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testGetEdgesByIds");
+    cfg.setPropertyCacheTimeout(null, 100000);
+    cfg.setPreloadedProperties(new String[] {"name"});
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+
+    for (int i = 0; i < 10; i++) {
+      graph.addVertex(id(i));
+    }
+    for (int i = 1; i < 10; i++) {
+      graph.addEdge("e"+id(i), graph.getVertex(id(i-1)),
+          graph.getVertex(id(i)), "label"+i).setProperty("name", "e"+i);
+    }
+
+    assertEquals(0, count(graph.getEdges(Arrays.asList())));
+    assertEquals(0, count(graph.getEdges(Arrays.asList("e"+id(20)))));
+
+    List<Edge> edges = new ArrayList<Edge>();
+    for (Edge e : graph.getEdges(Arrays.asList("e"+id(7), "e"+id(20), "e"+id(3), "e"+id(7)))) {
+      edges.add(e);
+    }
+    assertEquals(2, edges.size());
+    assertEquals("e"+id(7), edges.get(0).getId());
+    assertEquals("e"+id(3), edges.get(1).getId());
+    assertEquals("label7", edges.get(0).getLabel());
+    assertEquals(id(6), edges.get(0).getVertex(Direction.OUT).getId());
+    assertEquals(id(7), edges.get(0).getVertex(Direction.IN).getId());
+    assertEquals("e3", ((AccumuloEdge) edges.get(1)).getPropertyInMemory("name"));
+
+    graph.shutdown();
+  }
+
   private static String id(int idNum) {
     return String.format("%08d", idNum);
   }
@@ -0,0 +1,280 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhuapl.tinkerpop.tables.index.VertexKeyIndexTableWrapper;
+
+/**
+ * Tests for {@link AccumuloGraphQuery} and {@link AccumuloVertexQuery}.
+ */
+public class AccumuloGraphQueryTest {
+
+  @Test
+  public void testVertexQueryWithoutIndex() {
+    AccumuloGraph graph = makeGraph("testVertexQueryWithoutIndex");
+    assertTrue(graph.query() instanceof AccumuloGraphQuery);
+
+    assertEquals(ids(3), ids(graph.query().has("age", 3).vertices()));
+    assertEquals(ids(0, 2, 4, 6, 8), ids(graph.query().has("even", true).vertices()));
+    assertEquals(ids(0, 2, 4, 6, 8), ids(graph.query().has("even").vertices()));
+    assertEquals(ids(1, 3, 5, 7, 9), ids(graph.query().hasNot("even").vertices()));
+    assertEquals(ids(6, 7, 8, 9), ids(graph.query().has("age", Compare.GREATER_THAN, 5).vertices()));
+    assertEquals(ids(2, 3, 4), ids(graph.query().interval("age", 2, 5).vertices()));
+    assertEquals(ids(2, 4), ids(graph.query().interval("age", 2, 5)
+        .has("even", true).vertices()));
+    assertEquals(ids(new int[0]), ids(graph.query().has("age", "3").vertices()));
+    assertEquals(ids(1, 2), ids(graph.query().has("age", Contains.IN,
+        Arrays.asList(1, 2)).vertices()));
+    assertEquals(3, count(graph.query().has("age", Compare.NOT_EQUAL, 5).limit(3).vertices()));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testVertexQueryWithIndex() {
+    AccumuloGraph graph = makeGraph("testVertexQueryWithIndex");
+    graph.createKeyIndex("age", Vertex.class);
+    graph.createKeyIndex("even", Vertex.class);
+
+    assertEquals(ids(3), ids(graph.query().has("age", 3).vertices()));
+    assertEquals(ids(4), ids(graph.query().has("even", true).has("age", 4).vertices()));
+    assertEquals(ids(new int[0]), ids(graph.query().has("even", false).has("age", 4).vertices()));
+    assertEquals(ids(6, 8), ids(graph.query().has("even", true)
+        .has("age", Compare.GREATER_THAN, 5).vertices()));
+    assertEquals(2, count(graph.query().has("even", true).limit(2).vertices()));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testPushdown() {
+    AccumuloGraph graph = makeGraph("testPushdown");
+    PushdownQuery query = new PushdownQuery(graph);
+    query.has("age", Compare.EQUAL, 3).has("age", Contains.IN, Arrays.asList(3));
+    assertTrue(query.isPushable(0));
+    assertFalse(query.isPushable(1));
+
+    // Point v5's index entry at the wrong value. The element
+    // table is unchanged, so only a lookup which reads the
+    // index returns v5.
+    graph.createKeyIndex("age", Vertex.class);
+    graph.getGlobals().getVertexKeyIndexWrapper()
+        .setPropertyForIndex(graph.getVertex("v5"), "age", 3, true);
+    assertEquals(ids(3, 5), ids(graph.query().has("age", 3).vertices()));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testEdgeQuery() {
+    AccumuloGraph graph = makeGraph("testEdgeQuery");
+    for (int i = 1; i < 10; i++) {
+      Edge e = graph.addEdge("e"+i, graph.getVertex("v"+(i-1)),
+          graph.getVertex("v"+i), i % 3 == 0 ? "three" : "other");
+      e.setProperty("weight", i);
+    }
+
+    assertEquals(ids("e3", "e6", "e9"), ids(graph.query().has("label", "three").edges()));
+    assertEquals(ids("e6", "e9"), ids(graph.query().has("label", "three")
+        .has("weight", Compare.GREATER_THAN_EQUAL, 5).edges()));
+    assertEquals(ids("e1", "e2"), ids(graph.query().has("weight", Compare.LESS_THAN, 3).edges()));
+
+    graph.createKeyIndex("weight", Edge.class);
+    assertEquals(ids("e3"), ids(graph.query().has("weight", 3).has("label", "three").edges()));
+    assertEquals(ids(new int[0]), ids(graph.query().has("weight", 4).has("label", "three").edges()));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testVertexQuery() {
+    AccumuloGraph graph = makeGraph("testVertexQuery");
+    Vertex hub = graph.getVertex("v0");
+    for (int i = 1; i < 10; i++) {
+      Edge e = graph.addEdge("e"+i, hub, graph.getVertex("v"+i),
+          i % 3 == 0 ? "three" : "other");
+      e.setProperty("weight", i);
+    }
+    graph.addEdge("in", graph.getVertex("v5"), hub, "three");
+
+    assertTrue(hub.query() instanceof AccumuloVertexQuery);
+
+    assertEquals(10, hub.query().count());
+    assertEquals(9, hub.query().direction(Direction.OUT).count());
+    assertEquals(4, hub.query().labels("three").count());
+    assertEquals(3, hub.query().direction(Direction.OUT).labels("three").count());
+    assertEquals(10, hub.query().labels("three", "other").count());
+    assertEquals(2, hub.query().limit(2).count());
+    assertEquals(0, hub.query().labels("none").count());
+
+    assertEquals(ids(3, 6, 9), ids(hub.query().direction(Direction.OUT)
+        .labels("three").vertices()));
+    assertEquals(new HashSet<Object>(ids(3, 6, 9, 5)), new HashSet<Object>((List<?>)
+        hub.query().labels("three").vertexIds()));
+    assertEquals(2, count(hub.query().labels("other").limit(2).edges()));
+    assertEquals(2, ((List<?>) hub.query().limit(2).vertexIds()).size());
+
+    assertEquals(ids("e6", "e9"), ids(hub.query().labels("three")
+        .has("weight", Compare.GREATER_THAN, 4).edges()));
+    assertEquals(ids(7, 8, 9), ids(hub.query().direction(Direction.OUT)
+        .interval("weight", 7, 10).vertices()));
+    assertEquals(1, hub.query().hasNot("weight").count());
+    assertEquals(2, hub.query().has("weight", Contains.IN, Arrays.asList(1, 2)).count());
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testIndexRangeQuery() {
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testIndexRangeQuery").setSerializerVersion(2));
+    graph.createKeyIndex("age", Vertex.class);
+    graph.createKeyIndex("time", Vertex.class);
+    graph.createKeyIndex("weight", Edge.class);
+    for (int i = -5; i < 10; i++) {
+      Vertex v = graph.addVertex("v"+i);
+      v.setProperty("age", i);
+      v.setProperty("time", new Date(i * 1000L));
+      graph.addEdge("e"+i, v, v, "self").setProperty("weight", i * 0.5);
+    }
+    graph.getVertex("v9").setProperty("age", "nine");
+
+    VertexKeyIndexTableWrapper vertexIndex = graph.getGlobals().getVertexKeyIndexWrapper();
+    assertEquals(ids(-2, -1, 0, 1, 2), ids(vertexIndex.getVertices("age", -2, 3)));
+    assertEquals(ids(7, 8), ids(vertexIndex.getVertices("age", 7, null)));
+    assertEquals(ids(-5, -4), ids(vertexIndex.getVertices("age", null, -3)));
+    assertEquals(ids(new int[0]), ids(vertexIndex.getVertices("age", 3, 3)));
+    assertEquals(ids(new int[0]), ids(vertexIndex.getVertices("age", 5, 2)));
+    assertEquals(ids(9), ids(vertexIndex.getVertices("age", "a", "z")));
+    assertEquals(ids(3, 4), ids(vertexIndex.getVertices("time",
+        new Date(3000), new Date(5000))));
+    assertEquals(ids("e-1", "e0", "e1"), ids(graph.getGlobals().getEdgeKeyIndexWrapper()
+        .getEdges("weight", -0.5, 1.0)));
+
+    try {
+      vertexIndex.getVertices("age", 1, 3L);
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    assertEquals(ids(-1, 0, 1, 2), ids(graph.query().interval("age", -1, 3).vertices()));
+    assertEquals(ids(2, 3), ids(graph.query().has("age", Compare.GREATER_THAN, 1)
+        .has("age", Compare.LESS_THAN_EQUAL, 3).vertices()));
+    assertEquals(ids(8), ids(graph.query().has("age", Compare.GREATER_THAN, 7).vertices()));
+    assertEquals(ids(0, 2), ids(graph.query().interval("age", -1, 3)
+        .has("time", Compare.GREATER_THAN_EQUAL, new Date(0))
+        .has("age", Compare.NOT_EQUAL, 1).vertices()));
+    assertEquals(ids(new int[0]), ids(graph.query().interval("age", 5, 2).vertices()));
+    assertEquals(2, count(graph.query().interval("age", 0, 9).limit(2).vertices()));
+    assertEquals(ids("e2", "e3"), ids(graph.query()
+        .interval("weight", 1.0, 2.0).edges()));
+
+    // Java serialized values do not sort numerically,
+    // so are filtered on the client instead.
+    for (int i = -5; i < 10; i++) {
+      graph.getVertex("v"+i).setProperty("price", new BigDecimal(i * 10));
+    }
+    graph.createKeyIndex("price", Vertex.class);
+    assertEquals(ids(-1, 0, 1, 2, 3, 4), ids(graph.query().interval("price",
+        new BigDecimal(-10), new BigDecimal(50)).vertices()));
+    assertEquals(ids(9), ids(graph.query().has("price", Compare.GREATER_THAN,
+        new BigDecimal(80)).vertices()));
+    try {
+      vertexIndex.getVertices("price", new BigDecimal(-10), new BigDecimal(50));
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    graph.shutdown();
+
+    // Range lookups need ordered index entries.
+    graph = makeGraph("testIndexRangeQueryV1");
+    try {
+      graph.getGlobals().getVertexKeyIndexWrapper().getVertices("age", 1, 3);
+      fail();
+    } catch (AccumuloGraphException e) { }
+    graph.shutdown();
+  }
+
+  /**
+   * Exposes whether the query's predicates are pushable.
+   */
+  private static class PushdownQuery extends AccumuloGraphQuery {
+    PushdownQuery(AccumuloGraph graph) {
+      super(graph, graph.getGlobals());
+    }
+
+    boolean isPushable(int index) {
+      return isPushable(hasContainers.get(index));
+    }
+  }
+
+  private static AccumuloGraph makeGraph(String name) {
+    AccumuloGraph graph = (AccumuloGraph) AccumuloGraphTestUtils.makeGraph(name);
+    for (int i = 0; i < 10; i++) {
+      Vertex v = graph.addVertex("v"+i);
+      v.setProperty("age", i);
+      if (i % 2 == 0) {
+        v.setProperty("even", true);
+      }
+    }
+    return graph;
+  }
+
+  private static Set<String> ids(int... nums) {
+    Set<String> ids = new HashSet<String>();
+    for (int num : nums) {
+      ids.add("v"+num);
+    }
+    return ids;
+  }
+
+  private static Set<String> ids(String... strs) {
+    return new HashSet<String>(Arrays.asList(strs));
+  }
+
+  private static Set<String> ids(Iterable<? extends Element> elements) {
+    Set<String> ids = new HashSet<String>();
+    for (Element element : elements) {
+      ids.add(element.getId().toString());
+    }
+    return ids;
+  }
+
+  private static int count(Iterable<?> iter) {
+    int count = 0;
+    for (@SuppressWarnings("unused") Object obj : iter) {
+      count++;
+    }
+    return count;
+  }
+}
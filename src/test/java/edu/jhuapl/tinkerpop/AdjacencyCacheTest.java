@@ -0,0 +1,153 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhuapl.tinkerpop.cache.AdjacencyCache;
+import edu.jhuapl.tinkerpop.cache.AdjacencyList;
+
+/**
+ * Tests for {@link AdjacencyCache}.
+ */
+public class AdjacencyCacheTest {
+
+  @Test
+  public void testAdjacencyCache() throws Exception {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("adjacencyCache");
+    Graph graph = GraphFactory.open(cfg);
+    Vertex a = graph.addVertex("A");
+    graph.addEdge("E1", a, graph.addVertex("B"), "knows");
+    graph.addEdge("E2", graph.addVertex("C"), a, "likes");
+
+    Graph cached = GraphFactory.open(cfg.clone().setCreate(false)
+        .setAdjacencyCacheParams(1000, 300000).setAdjacencyCacheMaxDegree(3));
+    Vertex cachedA = cached.getVertex("A");
+    assertEquals("[E1, E2]", edgeIds(cachedA, Direction.BOTH));
+    assertEquals("[E1]", edgeIds(cachedA, Direction.OUT, "knows", "likes"));
+    assertEquals("[C]", vertexIds(cachedA, Direction.IN));
+
+    Edge e1 = cachedA.getEdges(Direction.OUT).iterator().next();
+    assertEquals("A", e1.getVertex(Direction.OUT).getId());
+    assertEquals("B", e1.getVertex(Direction.IN).getId());
+    assertEquals("knows", e1.getLabel());
+
+    // Edges added elsewhere are not seen.
+    graph.addEdge("E3", a, graph.addVertex("D"), "knows");
+    assertEquals("[E1, E2]", edgeIds(cachedA, Direction.BOTH));
+    assertEquals("[E1]", edgeIds(cachedA, Direction.OUT, "likes", "knows"));
+
+    // Local writes invalidate both endpoints.
+    Vertex cachedC = cached.getVertex("C");
+    assertEquals("[A]", vertexIds(cachedC, Direction.OUT));
+    cached.addEdge("E4", cachedC, cachedA, "likes");
+    assertEquals("[E1, E2, E3, E4]", edgeIds(cachedA, Direction.BOTH));
+    assertEquals("[E2, E4]", edgeIds(cachedC, Direction.OUT));
+    cached.getEdge("E2").remove();
+    assertEquals("[E1, E3, E4]", edgeIds(cachedA, Direction.BOTH));
+    assertEquals("[E4]", edgeIds(cachedC, Direction.OUT));
+
+    // Vertices past the degree cap are read every time.
+    cached.addEdge("E5", cachedA, cached.addVertex("F"), "knows");
+    assertEquals("[E1, E3, E4, E5]", edgeIds(cachedA, Direction.BOTH));
+    graph.addEdge("E6", a, graph.addVertex("G"), "knows");
+    assertEquals("[E1, E3, E4, E5, E6]", edgeIds(cachedA, Direction.BOTH));
+
+    try {
+      cfg.setAdjacencyCacheMaxDegree(0);
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    cached.shutdown();
+    graph.shutdown();
+  }
+
+  @Test
+  public void testSupernodeStreamed() throws Exception {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("supernodeStreamed")
+        .setAdjacencyCacheParams(1000, 300000).setAdjacencyCacheMaxDegree(3);
+    Graph graph = GraphFactory.open(cfg);
+    Vertex a = graph.addVertex("A");
+    for (int i = 0; i < 5; i++) {
+      graph.addEdge("E" + i, a, graph.addVertex("V" + i), "knows");
+    }
+
+    // The read that finds the vertex past the cap streams
+    // the rest of its scan, and can be iterated again.
+    Iterable<Edge> edges = a.getEdges(Direction.OUT);
+    assertTrue(edges instanceof ScannerIterable);
+    assertEquals("[E0, E1, E2, E3, E4]", ids(edges));
+    assertEquals("[E0, E1, E2, E3, E4]", ids(edges));
+    assertTrue(a.getEdges(Direction.OUT) instanceof ScannerIterable);
+    assertEquals("[V0, V1, V2, V3, V4]", vertexIds(a, Direction.OUT));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testInvalidateDuringRead() {
+    AdjacencyCache cache = new AdjacencyCache(1000, 300000, 10);
+    AdjacencyList list = new AdjacencyList();
+    list.add("E1", "B", "knows", true);
+
+    // A list read before an invalidation is not cached.
+    long generation = cache.getGeneration("A");
+    cache.invalidate("A");
+    cache.put("A", generation, Direction.OUT, new String[0], list);
+    assertNull(cache.get("A", Direction.OUT));
+
+    generation = cache.getGeneration("A");
+    cache.put("A", generation, Direction.OUT, new String[0], list);
+    assertSame(list, cache.get("A", Direction.OUT));
+
+    generation = cache.getGeneration("A");
+    cache.clear();
+    cache.put("A", generation, Direction.IN, new String[0], list);
+    assertNull(cache.get("A", Direction.IN));
+  }
+
+  private static String edgeIds(Vertex vertex, Direction direction, String... labels) {
+    return ids(vertex.getEdges(direction, labels));
+  }
+
+  private static String ids(Iterable<Edge> edges) {
+    Set<Object> ids = new TreeSet<Object>();
+    for (Edge edge : edges) {
+      ids.add(edge.getId());
+    }
+    return ids.toString();
+  }
+
+  private static String vertexIds(Vertex vertex, Direction direction, String... labels) {
+    Set<Object> ids = new TreeSet<Object>();
+    for (Vertex v : vertex.getVertices(direction, labels)) {
+      ids.add(v.getId());
+    }
+    return ids.toString();
+  }
+}
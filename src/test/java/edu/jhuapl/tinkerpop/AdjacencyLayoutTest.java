@@ -0,0 +1,244 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests for {@link AdjacencyLayout}, {@link KeyEncoding}
+ * and {@link AdjacencyLayoutMigration}.
+ */
+public class AdjacencyLayoutTest {
+
+  @Test
+  public void testParse() {
+    for (KeyEncoding encoding : KeyEncoding.values()) {
+      Value value = new Value(AdjacencyLayout.getValue(encoding, "knows"));
+      for (AdjacencyLayout layout : AdjacencyLayout.values()) {
+        Key key = new Key(new Text("v1"), new Text(Constants.OUT_EDGE),
+            new Text(layout.getQualifier(encoding, "v2", "e1", "knows")));
+        String[] parts = AdjacencyLayout.parse(key, value);
+        assertEquals("v2", parts[0]);
+        assertEquals("e1", parts[1]);
+        assertEquals("knows", parts[2]);
+      }
+    }
+
+    assertArrayEquals((Constants.ID_DELIM + "knows").getBytes(),
+        AdjacencyLayout.getValue(KeyEncoding.DELIMITED, "knows"));
+  }
+
+  @Test
+  public void testKeyEncoding() {
+    String longId = Strings.repeat("x", 300);
+    String[][] tests = {{"a", "b"}, {"", "b", ""}, {longId, "\u00e9t\u00e9", "c"}};
+    for (String[] fields : tests) {
+      assertArrayEquals(fields, KeyEncoding.decode(KeyEncoding.BINARY.encode(fields)));
+    }
+    assertArrayEquals(new String[] {"a", "b"},
+        KeyEncoding.decode(KeyEncoding.DELIMITED.encode("a", "b")));
+    assertArrayEquals(("a" + Constants.ID_DELIM + "b").getBytes(),
+        KeyEncoding.DELIMITED.encode("a", "b"));
+
+    // Decoding from part of a larger array.
+    byte[] encoded = KeyEncoding.BINARY.encode("a", "b");
+    byte[] padded = new byte[encoded.length + 4];
+    System.arraycopy(encoded, 0, padded, 2, encoded.length);
+    assertArrayEquals(new String[] {"a", "b"},
+        KeyEncoding.decode(new ArrayByteSequence(padded, 2, encoded.length)));
+
+    // Binary keys are smaller.
+    assertTrue(KeyEncoding.BINARY.encode("v1", "e1").length <
+        KeyEncoding.DELIMITED.encode("v1", "e1").length);
+
+    try {
+      KeyEncoding.decode(new byte[] {KeyEncoding.MARKER, 99});
+      fail();
+    } catch (AccumuloGraphException e) { }
+  }
+
+  @Test
+  public void testLabelFirst() {
+    for (KeyEncoding encoding : KeyEncoding.values()) {
+      AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+          .generateGraphConfig("testLabelFirst" + encoding)
+          .setAdjacencyLayout(AdjacencyLayout.LABEL_FIRST)
+          .setKeyEncoding(encoding));
+      addEdges(graph);
+      checkEdges(graph);
+
+      Vertex hub = graph.getVertex("hub");
+      graph.removeEdge(graph.getEdge("e3"));
+      assertEquals(ids("e6", "e9", "in"), ids(hub.getEdges(Direction.BOTH, "three")));
+      graph.removeVertex(graph.getVertex("v6"));
+      assertEquals(ids("e9", "in"), ids(hub.getEdges(Direction.BOTH, "three")));
+
+      graph.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeleteInOtherLayout() {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testDeleteInOtherLayout");
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+    addEdges(graph);
+    graph.shutdown();
+
+    // Edges written in one layout are removed
+    // by a graph using the other.
+    graph = (AccumuloGraph) GraphFactory.open(cfg.clone().setCreate(false)
+        .setAdjacencyLayout(AdjacencyLayout.LABEL_FIRST));
+    graph.removeEdge(graph.getEdge("e3"));
+    graph.removeEdge(graph.getEdge("in"));
+    Set<String> remaining = ids(graph.getVertex("hub").getEdges(Direction.BOTH));
+    assertEquals(8, remaining.size());
+    assertFalse(remaining.contains("e3") || remaining.contains("in"));
+    assertEquals(0, ids(graph.getVertex("v3").getEdges(Direction.BOTH)).size());
+    graph.shutdown();
+
+    graph = (AccumuloGraph) GraphFactory.open(cfg.clone().setCreate(false));
+    assertEquals(ids("e6", "e9"), ids(graph.getVertex("hub")
+        .getEdges(Direction.BOTH, "three")));
+    assertEquals(8, ids(graph.getVertex("hub").getEdges(Direction.BOTH)).size());
+    graph.shutdown();
+  }
+
+  @Test
+  public void testBinaryKeys() {
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testBinaryKeys")
+        .setKeyEncoding(KeyEncoding.BINARY));
+    addEdges(graph);
+    checkEdges(graph);
+
+    // Ids containing the old delimiter are fine.
+    Edge edge = graph.addEdge("a" + Constants.ID_DELIM + "b", graph.getVertex("hub"),
+        graph.addVertex("c" + Constants.ID_DELIM + "d"), "delim");
+    assertEquals(ids(edge.getId().toString()),
+        ids(graph.getVertex("hub").getEdges(Direction.OUT, "delim")));
+    assertEquals(ids("c" + Constants.ID_DELIM + "d"),
+        ids(graph.getVertex("hub").getVertices(Direction.OUT, "delim")));
+    graph.removeEdge(edge);
+    assertEquals(0, ids(graph.getVertex("hub").getEdges(Direction.OUT, "delim")).size());
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testMigration() {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testMigration");
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+    addEdges(graph);
+    graph.shutdown();
+
+    assertEquals(20, AdjacencyLayoutMigration.migrate(cfg, AdjacencyLayout.LABEL_FIRST));
+    assertEquals(0, AdjacencyLayoutMigration.migrate(cfg, AdjacencyLayout.LABEL_FIRST));
+
+    graph = (AccumuloGraph) GraphFactory.open(cfg.clone().setCreate(false)
+        .setAdjacencyLayout(AdjacencyLayout.LABEL_FIRST));
+    checkEdges(graph);
+    graph.shutdown();
+
+    assertEquals(20, AdjacencyLayoutMigration.migrate(cfg, AdjacencyLayout.VERTEX_FIRST));
+
+    graph = (AccumuloGraph) GraphFactory.open(cfg.clone().setCreate(false));
+    checkEdges(graph);
+    graph.shutdown();
+
+    // 20 vertex table entries, 10 edge table entries.
+    AccumuloGraphConfiguration binary = cfg.clone().setCreate(false)
+        .setKeyEncoding(KeyEncoding.BINARY);
+    assertEquals(30, AdjacencyLayoutMigration.migrate(binary, AdjacencyLayout.VERTEX_FIRST));
+    assertEquals(0, AdjacencyLayoutMigration.migrate(binary, AdjacencyLayout.VERTEX_FIRST));
+
+    graph = (AccumuloGraph) GraphFactory.open(binary);
+    checkEdges(graph);
+    graph.shutdown();
+  }
+
+  /**
+   * Add ten edges to and from a hub vertex,
+   * with a mix of labels.
+   * @param graph
+   */
+  private static void addEdges(AccumuloGraph graph) {
+    Vertex hub = graph.addVertex("hub");
+    for (int i = 1; i < 10; i++) {
+      graph.addEdge("e"+i, hub, graph.addVertex("v"+i), i % 3 == 0 ? "three" : "other");
+    }
+    graph.addEdge("in", graph.getVertex("v5"), hub, "three");
+  }
+
+  private static void checkEdges(AccumuloGraph graph) {
+    Vertex hub = graph.getVertex("hub");
+
+    assertEquals(ids("e3", "e6", "e9", "in"), ids(hub.getEdges(Direction.BOTH, "three")));
+    assertEquals(ids("e3", "e6", "e9"), ids(hub.getEdges(Direction.OUT, "three")));
+    assertEquals(ids("in"), ids(hub.getEdges(Direction.IN, "three")));
+    assertEquals(ids("v3", "v6", "v9"), ids(hub.getVertices(Direction.OUT, "three")));
+    assertEquals(10, ids(hub.getEdges(Direction.BOTH, "three", "other")).size());
+    assertEquals(10, ids(hub.getEdges(Direction.BOTH)).size());
+    assertEquals(0, ids(hub.getEdges(Direction.BOTH, "thre")).size());
+
+    assertEquals(4, hub.query().labels("three").count());
+    assertEquals(2, hub.query().labels("three").limit(2).count());
+    assertEquals(new HashSet<Object>(ids("v3", "v6", "v9", "v5")),
+        new HashSet<Object>((List<?>) hub.query().labels("three").vertexIds()));
+
+    for (Edge edge : hub.getEdges(Direction.OUT, "three")) {
+      assertEquals("three", edge.getLabel());
+      assertEquals("hub", edge.getVertex(Direction.OUT).getId());
+    }
+
+    Edge edge = graph.getEdge("e3");
+    assertEquals("three", edge.getLabel());
+    assertEquals("v3", edge.getVertex(Direction.IN).getId());
+  }
+
+  private static Set<String> ids(String... strs) {
+    Set<String> ids = new HashSet<String>();
+    for (String str : strs) {
+      ids.add(str);
+    }
+    return ids;
+  }
+
+  private static Set<String> ids(Iterable<? extends Element> elements) {
+    Set<String> ids = new HashSet<String>();
+    for (Element element : elements) {
+      ids.add(element.getId().toString());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,156 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests for {@link AsyncAccumuloGraph}.
+ */
+public class AsyncAccumuloGraphTest {
+
+  @Test
+  public void testReads() throws Exception {
+    AccumuloGraph graph = (AccumuloGraph) AccumuloGraphTestUtils
+        .makeGraph("testAsyncReads");
+    graph.createKeyIndex("name", Vertex.class);
+    Vertex a = graph.addVertex("A");
+    a.setProperty("name", "a");
+    Vertex b = graph.addVertex("B");
+    graph.addEdge("E", a, b, "knows").setProperty("weight", 2);
+
+    AsyncAccumuloGraph async = graph.async();
+    assertEquals("A", async.getVertex("A").get().getId());
+    assertNull(async.getVertex("C").get());
+    assertEquals("knows", async.getEdge("E").get().getLabel());
+
+    List<Edge> edges = async.getEdges(a, Direction.OUT, "knows").get();
+    assertEquals(1, edges.size());
+    assertEquals("E", edges.get(0).getId());
+    List<Vertex> vertices = async.getVertices(b, Direction.IN).get();
+    assertEquals(1, vertices.size());
+    assertEquals("A", vertices.get(0).getId());
+    assertEquals(0, async.getVertices(b, Direction.OUT).get().size());
+
+    vertices = async.getVertices("name", "a").get();
+    assertEquals(1, vertices.size());
+    assertEquals("A", vertices.get(0).getId());
+    assertEquals("E", async.getEdges("weight", 2).get().get(0).getId());
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testMergedRequests() throws Exception {
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testMergedRequests").setAsyncThreads(1));
+    Vertex a = graph.addVertex("A");
+    graph.addEdge("E", a, graph.addVertex("B"), "knows");
+
+    // Hold the only thread, so requests stay in flight.
+    final CountDownLatch latch = new CountDownLatch(1);
+    graph.getGlobals().getAsyncExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) { }
+      }
+    });
+
+    AsyncAccumuloGraph async = graph.async();
+    ThreadPoolExecutor executor = (ThreadPoolExecutor) graph.getGlobals().getAsyncExecutor();
+    ListenableFuture<List<Vertex>> first = async.getVertices(a, Direction.OUT, "knows");
+    ListenableFuture<List<Vertex>> second = async.getVertices(a, Direction.OUT, "knows");
+    assertEquals(1, executor.getQueue().size());
+    async.getVertices(a, Direction.OUT);
+    ListenableFuture<Edge> edge = async.getEdge("E");
+    ListenableFuture<Edge> sameEdge = async.getEdge("E");
+    assertEquals(3, executor.getQueue().size());
+    assertFalse(first.isDone());
+
+    // Cancelling one caller's future leaves the shared read running.
+    assertTrue(first.cancel(true));
+    assertTrue(first.isCancelled());
+    assertFalse(second.isDone());
+
+    latch.countDown();
+    assertEquals("B", second.get().get(0).getId());
+    assertEquals("E", edge.get().getId());
+    assertEquals("E", sameEdge.get().getId());
+
+    assertEquals("B", async.getVertices(a, Direction.OUT, "knows").get().get(0).getId());
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testBoundedQueue() throws Exception {
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testBoundedQueue").setAsyncThreads(1).setAsyncQueueSize(2));
+    graph.addVertex("A");
+
+    final CountDownLatch latch = new CountDownLatch(1);
+    graph.getGlobals().getAsyncExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          latch.await();
+        } catch (InterruptedException e) { }
+      }
+    });
+
+    AsyncAccumuloGraph async = graph.async();
+    ListenableFuture<Vertex> a = async.getVertex("A");
+    ListenableFuture<Vertex> b = async.getVertex("B");
+    try {
+      async.getVertex("C");
+      fail();
+    } catch (RejectedExecutionException e) { }
+
+    // A rejected request is not left in flight.
+    latch.countDown();
+    assertEquals("A", a.get().getId());
+    assertNull(b.get());
+    assertNull(async.getVertex("C").get());
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testConfiguration() {
+    try {
+      new AccumuloGraphConfiguration().setAsyncThreads(0);
+      fail();
+    } catch (IllegalArgumentException e) { }
+    try {
+      new AccumuloGraphConfiguration().setAsyncQueueSize(0);
+      fail();
+    } catch (IllegalArgumentException e) { }
+  }
+}
@@ -18,6 +18,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
@@ -105,4 +106,44 @@ public class ElementCacheTest {
 
     graph.shutdown();
   }
+
+  @Test
+  public void testCanonicalInstances() throws Exception {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("canonicalInstances")
+        .setVertexCacheParams(100, 120000)
+        .setEdgeCacheParams(100, 120000)
+        .setPropertyCacheTimeout(null, 120000)
+        .setAutoIndex(true);
+    Graph graph = GraphFactory.open(cfg.getConfiguration());
+
+    Vertex a = graph.addVertex("A");
+    a.setProperty("name", "A");
+    Vertex b = graph.addVertex("B");
+    Edge e = graph.addEdge("E", a, b, "knows");
+    e.setProperty("weight", 1);
+
+    // Iteration returns the cached instances.
+    for (Vertex v : graph.getVertices()) {
+      assertSame(v.getId().equals("A") ? a : b, v);
+    }
+    assertSame(a, graph.getVertices("name", "A").iterator().next());
+    assertSame(e, graph.getEdges().iterator().next());
+    assertSame(e, graph.getEdges("weight", 1).iterator().next());
+
+    Edge in = b.getEdges(Direction.IN).iterator().next();
+    assertSame(e, in);
+    assertSame(a, in.getVertex(Direction.OUT));
+    assertSame(a, b.getVertices(Direction.IN).iterator().next());
+    assertEquals("A", a.getProperty("name"));
+
+    // Edges read before their endpoints share the vertex instances.
+    graph.shutdown();
+    graph = GraphFactory.open(cfg.clone().setCreate(false).getConfiguration());
+    Edge read = graph.getEdge("E");
+    assertSame(read.getVertex(Direction.OUT), graph.getVertex("A"));
+    assertSame(read, graph.getVertex("B").getEdges(Direction.IN).iterator().next());
+
+    graph.shutdown();
+  }
 }
@@ -16,6 +16,8 @@ package edu.jhuapl.tinkerpop;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import com.google.common.collect.Sets;
@@ -221,6 +223,42 @@ public class ElementPropertyCachingTest {
     graph.shutdown();
   }
 
+  @Test
+  public void testPropertyKeyCaching() {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("propertyKeyCaching");
+    cfg.setPropertyCacheTimeout(null, TIMEOUT);
+    Graph graph = open(cfg);
+    Graph other = open(cfg.clone().setCreate(false));
+
+    AccumuloVertex v = (AccumuloVertex) graph.addVertex("V");
+    v.setProperty(CACHED, true);
+    graph.addEdge("E", v, graph.addVertex("W"), "knows").setProperty(CACHED, 1);
+    assertEquals(Sets.newHashSet(CACHED), v.getPropertyKeys());
+    assertEquals(Sets.newHashSet(CACHED), v.getPropertyCache().getKeys());
+
+    // Kept up to date with local changes.
+    v.setProperty(NON_CACHED, true);
+    assertEquals(Sets.newHashSet(CACHED, NON_CACHED), v.getPropertyKeys());
+    v.removeProperty(CACHED);
+    assertEquals(Sets.newHashSet(NON_CACHED), v.getPropertyKeys());
+    v.getPropertyKeys().clear();
+    assertEquals(Sets.newHashSet(NON_CACHED), v.getPropertyKeys());
+
+    // Changes made elsewhere are not seen until expiry.
+    other.getVertex("V").setProperty("other", 1);
+    assertEquals(Sets.newHashSet(NON_CACHED), v.getPropertyKeys());
+    assertEquals(Sets.newHashSet(NON_CACHED, "other"),
+        other.getVertex("V").getPropertyKeys());
+
+    AccumuloEdge e = (AccumuloEdge) graph.getEdge("E");
+    assertEquals("knows", e.getLabel());
+    assertEquals(Sets.newHashSet(CACHED), e.getPropertyKeys());
+
+    other.shutdown();
+    graph.shutdown();
+  }
+
   @Test
   public void testPreloadAllProperties() {
     AccumuloGraphConfiguration cfg =
@@ -238,6 +276,14 @@ public class ElementPropertyCachingTest {
     assertEquals(true, v.getPropertyInMemory(NON_CACHED));
     assertEquals(true, v.getPropertyInMemory(CACHED));
 
+    // Single and bulk edge reads preload the same properties.
+    graph.addEdge("E", v, v, "self").setProperty(NON_CACHED, true);
+    AccumuloEdge e = (AccumuloEdge) graph.getEdge("E");
+    assertEquals(true, e.getPropertyInMemory(NON_CACHED));
+    e = (AccumuloEdge) ((AccumuloGraph) graph).getEdges(Arrays.asList("E"))
+        .iterator().next();
+    assertEquals(true, e.getPropertyInMemory(NON_CACHED));
+
     graph.shutdown();
   }
 
@@ -261,6 +307,73 @@ public class ElementPropertyCachingTest {
     graph.shutdown();
   }
 
+  @Test
+  public void testSharedPropertyCache() {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("sharedPropertyCache");
+    cfg.setPropertyCacheTimeout(null, TIMEOUT);
+    cfg.setPropertyCacheMemory(10000);
+
+    Graph graph = open(cfg);
+    load(graph);
+
+    // Instances of the same element share cached properties.
+    AccumuloVertex c1 = (AccumuloVertex) graph.getVertex("C");
+    AccumuloVertex c2 = (AccumuloVertex) graph.getVertex("C");
+    assertNotSame(c1, c2);
+    assertEquals(true, c1.getProperty(CACHED));
+    assertEquals(true, c2.getPropertyInMemory(CACHED));
+    assertEquals(Sets.newHashSet(CACHED), c1.getPropertyKeys());
+    c2.setProperty(NON_CACHED, "x");
+    assertEquals("x", c1.getPropertyInMemory(NON_CACHED));
+    assertEquals(Sets.newHashSet(CACHED, NON_CACHED), c1.getPropertyKeys());
+
+    // Removing an element drops its properties.
+    c1.remove();
+    AccumuloVertex c3 = (AccumuloVertex) graph.addVertex("C");
+    assertEquals(null, c3.getPropertyInMemory(CACHED));
+    assertEquals(Sets.newHashSet(), c3.getPropertyKeys());
+
+    // Least recently used properties are evicted when full.
+    for (int i = 0; i < 100; i++) {
+      graph.addVertex("V" + i).setProperty(CACHED, "value " + i);
+    }
+    assertEquals(null, ((AccumuloVertex) graph.getVertex("V0")).getPropertyInMemory(CACHED));
+    assertEquals("value 99", ((AccumuloVertex) graph.getVertex("V99")).getPropertyInMemory(CACHED));
+    assertEquals("value 0", graph.getVertex("V0").getProperty(CACHED));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testOffHeapPropertyCache() {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("offHeapPropertyCache");
+    cfg.setPropertyCacheTimeout(null, TIMEOUT);
+    cfg.setPropertyCacheOffHeapMemory(100000);
+    try {
+      cfg.validate();
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    cfg.setPropertyCacheMemory(10000);
+    Graph graph = open(cfg);
+
+    // Properties evicted from the heap are restored from off-heap.
+    for (int i = 0; i < 100; i++) {
+      graph.addVertex("V" + i).setProperty(CACHED, "value " + i);
+    }
+    assertEquals("value 0", ((AccumuloVertex) graph.getVertex("V0")).getPropertyInMemory(CACHED));
+    assertEquals("value 99", ((AccumuloVertex) graph.getVertex("V99")).getPropertyInMemory(CACHED));
+
+    // Removed elements are dropped from both tiers.
+    graph.getVertex("V1").remove();
+    graph.addVertex("V1");
+    assertEquals(null, ((AccumuloVertex) graph.getVertex("V1")).getPropertyInMemory(CACHED));
+
+    graph.shutdown();
+  }
+
   private static Graph open(AccumuloGraphConfiguration cfg) {
     return GraphFactory.open(cfg);
   }
@@ -16,8 +16,14 @@ package edu.jhuapl.tinkerpop;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphFactory;
 import com.tinkerpop.blueprints.Vertex;
@@ -104,4 +110,170 @@ public class ExtendedElementTest {
 
     graph.shutdown();
   }
+
+  @Test
+  public void testAddWithProperties() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("addWithProperties");
+    AccumuloGraph graph = (AccumuloGraph) makeGraph(cfg);
+    graph.createKeyIndex("name", Vertex.class);
+    graph.createKeyIndex("weight", Edge.class);
+
+    Map<String, Object> props = new HashMap<String, Object>();
+    props.put("name", "A");
+    props.put("age", 30);
+    Vertex a = graph.addVertex("A", props);
+    assertEquals("A", a.getProperty("name"));
+    Vertex b = graph.addVertex("B", new HashMap<String, Object>());
+
+    props.clear();
+    props.put("weight", 2.5);
+    Edge e = graph.addEdge("E", a, b, "knows", props);
+    assertEquals(2.5, e.getProperty("weight"));
+
+    try {
+      props.put("id", "bad");
+      graph.addVertex("C", props);
+      fail();
+    } catch (IllegalArgumentException ex) { }
+    assertNull(graph.getVertex("C"));
+
+    // Read back through a separate instance.
+    Graph other = makeGraph(cfg.clone().setCreate(false));
+    Vertex v = other.getVertex("A");
+    assertEquals("A", v.getProperty("name"));
+    assertEquals(30, v.getProperty("age"));
+    assertEquals(2, v.getPropertyKeys().size());
+    assertEquals(0, other.getVertex("B").getPropertyKeys().size());
+    assertEquals(2.5, other.getEdge("E").getProperty("weight"));
+    assertEquals("B", v.getVertices(Direction.OUT, "knows").iterator().next().getId());
+
+    assertEquals("A", other.getVertices("name", "A").iterator().next().getId());
+    assertEquals("E", other.getEdges("weight", 2.5).iterator().next().getId());
+
+    other.shutdown();
+    graph.shutdown();
+  }
+
+  @Test
+  public void testExistenceFilter() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("existenceFilter");
+    Graph graph = makeGraph(cfg);
+    graph.addEdge("E1", graph.addVertex("A"), graph.addVertex("B"), "knows");
+
+    AccumuloGraphConfiguration filtered = cfg.clone()
+        .setCreate(false).setExistenceFilterSize(1000);
+    AccumuloGraph other = (AccumuloGraph) makeGraph(filtered);
+
+    // Loaded at open.
+    assertNotNull(other.getVertex("A"));
+    assertNotNull(other.getEdge("E1"));
+    try {
+      other.addVertex("A");
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    // Updated on local writes.
+    assertNull(other.getVertex("C"));
+    Vertex c = other.addVertex("C");
+    assertNotNull(other.getVertex("C"));
+    other.addEdge("E2", c, other.getVertex("A"), "knows");
+    assertNotNull(other.getEdge("E2"));
+    assertEquals(2, count(other.getVertices(Arrays.asList("A", "C", "D"))));
+
+    // Ids absent from the filter are not looked up, so
+    // elements added elsewhere are not seen.
+    graph.addVertex("D");
+    assertNotNull(graph.getVertex("D"));
+    assertNull(other.getVertex("D"));
+
+    try {
+      filtered.setExistenceFilterSize(-1);
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    other.shutdown();
+    graph.shutdown();
+  }
+
+  @Test
+  public void testMissingElementCache() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("missingElementCache");
+    Graph graph = makeGraph(cfg);
+    Vertex a = graph.addVertex("A");
+
+    AccumuloGraphConfiguration cached = cfg.clone()
+        .setCreate(false).setMissingElementCacheParams(1000, 300000)
+        .setMissingPropertyCacheTimeout(300000);
+    AccumuloGraph other = (AccumuloGraph) makeGraph(cached);
+
+    // Missing elements and properties added elsewhere are not seen.
+    assertNull(other.getVertex("B"));
+    assertNull(other.getEdge("E1"));
+    assertEquals(1, count(other.getVertices(Arrays.asList("A", "C"))));
+    Vertex otherA = other.getVertex("A");
+    assertNull(otherA.getProperty("name"));
+
+    graph.addEdge("E1", a, graph.addVertex("B"), "knows");
+    graph.addVertex("C");
+    a.setProperty("name", "A");
+    assertNull(other.getVertex("B"));
+    assertNull(other.getEdge("E1"));
+    assertEquals(1, count(other.getVertices(Arrays.asList("A", "C"))));
+    assertNull(otherA.getProperty("name"));
+
+    // Local writes replace missing entries.
+    assertNull(other.getVertex("D"));
+    other.addVertex("D");
+    assertNotNull(other.getVertex("D"));
+    other.getVertex("D").remove();
+    assertNull(other.getVertex("D"));
+    otherA.setProperty("name", "other");
+    assertEquals("other", otherA.getProperty("name"));
+
+    // Without the cache, everything is seen.
+    AccumuloGraph uncached = (AccumuloGraph) makeGraph(cfg.clone().setCreate(false));
+    assertNotNull(uncached.getVertex("B"));
+    assertNotNull(uncached.getEdge("E1"));
+    assertEquals(2, count(uncached.getVertices(Arrays.asList("A", "C"))));
+
+    try {
+      cached.setMissingElementCacheParams(1000, 0);
+      fail();
+    } catch (IllegalArgumentException e) { }
+
+    uncached.shutdown();
+    other.shutdown();
+    graph.shutdown();
+  }
+
+  @Test
+  public void testRemoveCachedVertexWithEdges() throws Exception {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("removeCachedVertexWithEdges")
+        .setVertexCacheParams(100, 60000);
+    Graph graph = makeGraph(cfg);
+    Vertex a = graph.addVertex("A");
+    Vertex b = graph.addVertex("B");
+    graph.addEdge("E1", a, b, "knows");
+
+    // Reading the edges to remove them must not re-cache the vertex.
+    graph.removeVertex(a);
+    assertNull(graph.getVertex("A"));
+    assertNull(graph.getEdge("E1"));
+    assertNotNull(graph.getVertex("B"));
+    assertEquals(0, count(b.getEdges(Direction.BOTH)));
+
+    graph.shutdown();
+  }
+
+  private static int count(Iterable<?> iterable) {
+    int count = 0;
+    for (@SuppressWarnings("unused") Object o : iterable) {
+      count++;
+    }
+    return count;
+  }
 }
@@ -0,0 +1,111 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests for {@link GlobalInstances}.
+ */
+public class GlobalInstancesTest {
+
+  @Test
+  public void testSharedWrappers() {
+    AccumuloGraph graph = (AccumuloGraph) AccumuloGraphTestUtils
+        .makeGraph("testSharedWrappers");
+    GlobalInstances globals = graph.getGlobals();
+
+    assertSame(globals.getVertexWrapper(), globals.getVertexWrapper());
+    assertSame(globals.getEdgeWrapper(), globals.getEdgeWrapper());
+    assertSame(globals.getVertexKeyIndexWrapper(), globals.getVertexKeyIndexWrapper());
+    assertSame(globals.getEdgeKeyIndexWrapper(), globals.getEdgeKeyIndexWrapper());
+    assertSame(globals.getIndexMetadataWrapper(), globals.getIndexMetadataWrapper());
+    assertSame(globals.getVertexWrapper(), globals.getElementWrapper(Vertex.class));
+    assertSame(globals.getEdgeKeyIndexWrapper(), globals.getKeyIndexTableWrapper(Edge.class));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testConcurrentUse() throws Exception {
+    final AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testConcurrentUse").setAutoFlush(true));
+    graph.createKeyIndex("thread", Vertex.class);
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int t = 0; t < 4; t++) {
+      final int thread = t;
+      futures.add(pool.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (int i = 0; i < 25; i++) {
+            Vertex v = graph.addVertex(thread + "-" + i);
+            v.setProperty("thread", thread);
+            v.setProperty("i", i);
+            assertEquals(i, (int) graph.getVertex(v.getId()).getProperty("i"));
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    pool.shutdown();
+
+    for (int t = 0; t < 4; t++) {
+      int count = 0;
+      for (Vertex v : graph.getVertices("thread", t)) {
+        assertTrue(v.getId().toString().startsWith(t + "-"));
+        count++;
+      }
+      assertEquals(25, count);
+    }
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testCoalescedWrites() {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testCoalescedWrites").setAutoFlush(false)
+        .setCoalesceMemory(1024 * 1024);
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+    Vertex v = graph.addVertex("A");
+    v.setProperty("a", 1);
+    v.setProperty("b", 2);
+    v.setProperty("c", 3);
+    graph.shutdown();
+    assertEquals(4.0, graph.getCoalescingRatio(), 0.001);
+
+    graph = (AccumuloGraph) GraphFactory.open(cfg.clone().setCreate(false));
+    assertEquals(3, graph.getVertex("A").getPropertyKeys().size());
+    graph.shutdown();
+  }
+}
@@ -0,0 +1,97 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+import edu.jhuapl.tinkerpop.tables.index.IndexMetadataTableWrapper;
+
+/**
+ * Tests for the index metadata cache in {@link IndexMetadataTableWrapper}.
+ */
+public class IndexMetadataTest {
+
+  @Test
+  public void testCachedMetadata() {
+    AccumuloGraph graph = (AccumuloGraph) AccumuloGraphTestUtils
+        .makeGraph("testCachedMetadata");
+    IndexMetadataTableWrapper wrapper = graph.getGlobals().getIndexMetadataWrapper();
+
+    assertSame(wrapper.getIndexedKeys(Vertex.class), wrapper.getIndexedKeys(Vertex.class));
+    assertSame(wrapper.getIndex("named", Vertex.class),
+        wrapper.getIndex("named", Vertex.class));
+
+    // Local changes are seen immediately.
+    graph.createKeyIndex("name", Vertex.class);
+    graph.createKeyIndex("weight", Edge.class);
+    graph.createIndex("named", Vertex.class);
+    assertTrue(wrapper.getIndexedKeys(Vertex.class).contains("name"));
+    assertFalse(wrapper.getIndexedKeys(Vertex.class).contains("weight"));
+    assertTrue(wrapper.getIndexedKeys(Edge.class).contains("weight"));
+    assertEquals(2, wrapper.getIndexedKeys(Element.class).size());
+    assertNotNull(graph.getIndex("named", Vertex.class));
+    assertSame(wrapper.getIndex("named", Vertex.class),
+        wrapper.getIndex("named", Vertex.class));
+
+    try {
+      wrapper.getIndexedKeys(Vertex.class).add("other");
+      fail();
+    } catch (UnsupportedOperationException e) { }
+    graph.getIndexedKeys(Vertex.class).add("other");
+
+    graph.dropKeyIndex("name", Vertex.class);
+    graph.dropIndex("named");
+    assertFalse(wrapper.getIndexedKeys(Vertex.class).contains("name"));
+    assertNull(graph.getIndex("named", Vertex.class));
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testPolling() throws Exception {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testPolling");
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+    AccumuloGraph polling = (AccumuloGraph) GraphFactory.open(cfg.clone()
+        .setCreate(false).setIndexMetadataPollInterval(0));
+    AccumuloGraph cached = (AccumuloGraph) GraphFactory.open(cfg.clone()
+        .setCreate(false).setIndexMetadataPollInterval(60L * 60 * 1000));
+
+    assertFalse(polling.getIndexedKeys(Vertex.class).contains("name"));
+    assertFalse(cached.getIndexedKeys(Vertex.class).contains("name"));
+
+    graph.createKeyIndex("name", Vertex.class);
+    graph.createIndex("named", Vertex.class);
+
+    assertTrue(polling.getIndexedKeys(Vertex.class).contains("name"));
+    assertNotNull(polling.getIndex("named", Vertex.class));
+    assertFalse(cached.getIndexedKeys(Vertex.class).contains("name"));
+
+    // Writes through the polling instance are indexed.
+    polling.addVertex("v1").setProperty("name", "A");
+    assertEquals("v1", graph.getVertices("name", "A").iterator().next().getId());
+
+    graph.shutdown();
+    polling.shutdown();
+    cached.shutdown();
+  }
+}
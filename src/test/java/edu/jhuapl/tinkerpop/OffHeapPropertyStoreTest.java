@@ -0,0 +1,75 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import edu.jhuapl.tinkerpop.cache.OffHeapPropertyStore;
+import edu.jhuapl.tinkerpop.cache.PropertyCache;
+
+/**
+ * Tests for {@link OffHeapPropertyStore}.
+ */
+public class OffHeapPropertyStoreTest {
+
+  @Test
+  public void testStore() throws Exception {
+    OffHeapPropertyStore store = new OffHeapPropertyStore(4000);
+    store.put("vA", new byte[]{1, 2, 3});
+    store.put("vB", new byte[]{4});
+    store.put("vA", new byte[]{5, 6});
+    assertEquals(2, store.size());
+    assertArrayEquals(new byte[]{5, 6}, store.take("vA"));
+    assertNull(store.take("vA"));
+
+    store.put("eB", new byte[]{7});
+    store.removeAll("v");
+    assertNull(store.take("vB"));
+    assertArrayEquals(new byte[]{7}, store.take("eB"));
+
+    // Too big for a slab.
+    store.put("vC", new byte[2000]);
+    assertNull(store.take("vC"));
+
+    // The oldest entries are dropped when full.
+    for (int i = 0; i < 100; i++) {
+      store.put("v" + i, new byte[50]);
+    }
+    assertNull(store.take("v0"));
+    assertNotNull(store.take("v99"));
+    assertTrue(store.size() < 100);
+  }
+
+  @Test
+  public void testSerializedProperties() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("offHeapProperties");
+    cfg.setPropertyCacheTimeout(null, 60000);
+    cfg.setPropertyCacheTimeout("short", 1);
+
+    PropertyCache cache = new PropertyCache(cfg);
+    cache.put("name", "A");
+    cache.put("age", 30);
+    cache.put("short", true);
+    Thread.sleep(50);
+
+    PropertyCache restored = PropertyCache.deserialize(cfg, cache.serialize());
+    assertEquals("A", restored.get("name"));
+    assertEquals(30, restored.get("age"));
+    assertNull(restored.get("short"));
+  }
+}
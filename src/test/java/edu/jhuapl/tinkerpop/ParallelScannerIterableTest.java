@@ -0,0 +1,184 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.CloseableIterable;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests for parallel scans with {@link ParallelScannerIterable},
+ * and for {@link AccumuloGraph#getVertexSplits()}.
+ */
+public class ParallelScannerIterableTest {
+
+  @Test
+  public void testParallelScans() {
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testParallelScans").setParallelScans(true)
+        .setQueryThreads(2).setSplits("v3 v6 v9 x"));
+
+    Set<String> vertexIds = new HashSet<String>();
+    Set<String> edgeIds = new HashSet<String>();
+    for (int i = 0; i < 20; i++) {
+      Vertex v = graph.addVertex("v" + i);
+      v.setProperty("num", i);
+      vertexIds.add("v" + i);
+      if (i > 0) {
+        graph.addEdge("e" + i, graph.getVertex("v" + (i - 1)), v, "next")
+          .setProperty("num", i);
+        edgeIds.add("e" + i);
+      }
+    }
+
+    int count = 0;
+    for (Vertex v : graph.getVertices()) {
+      assertEquals("v" + v.getProperty("num"), v.getId());
+      count++;
+    }
+    assertEquals(20, count);
+    assertEquals(vertexIds, ids(graph.getVertices()));
+
+    count = 0;
+    for (Edge e : graph.getEdges()) {
+      assertEquals("e" + e.getProperty("num"), e.getId());
+      assertEquals("next", e.getLabel());
+      count++;
+    }
+    assertEquals(19, count);
+    assertEquals(edgeIds, ids(graph.getEdges()));
+
+    Set<String> expected = new HashSet<String>();
+    for (int i = 10; i < 20; i++) {
+      expected.add("v" + i);
+    }
+    assertEquals(expected, ids(graph.query()
+        .has("num", Compare.GREATER_THAN_EQUAL, 10).vertices()));
+
+    expected.clear();
+    for (int i = 2; i < 7; i++) {
+      expected.add("v" + i);
+    }
+    assertEquals(expected, ids(graph.getVerticesInRange("v2", "v6")));
+
+    // Iterating twice at once reads separate scanners.
+    CloseableIterable<Vertex> vertices = graph.getGlobals().getVertexWrapper().getVertices();
+    Iterator<Vertex> first = vertices.iterator();
+    Iterator<Vertex> second = vertices.iterator();
+    Set<String> firstIds = new HashSet<String>();
+    Set<String> secondIds = new HashSet<String>();
+    while (first.hasNext() || second.hasNext()) {
+      if (first.hasNext()) {
+        firstIds.add(first.next().getId().toString());
+      }
+      if (second.hasNext()) {
+        secondIds.add(second.next().getId().toString());
+      }
+    }
+    assertEquals(vertexIds, firstIds);
+    assertEquals(vertexIds, secondIds);
+    assertEquals(vertexIds, ids(vertices));
+    vertices.close();
+
+    // Stopping early.
+    vertices = graph.getGlobals().getVertexWrapper().getVertices();
+    Iterator<Vertex> iter = vertices.iterator();
+    assertTrue(iter.hasNext());
+    iter.next();
+    vertices.close();
+
+    graph.shutdown();
+  }
+
+  @Test
+  public void testSplits() throws Exception {
+    final AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(AccumuloGraphTestUtils
+        .generateGraphConfig("testSplits").setSplits("v3 v6 v9 x"));
+    for (int i = 0; i < 20; i++) {
+      graph.addVertex("v" + i);
+      if (i > 0) {
+        graph.addEdge("e" + i, graph.getVertex("v" + (i - 1)),
+            graph.getVertex("v" + i), "next");
+      }
+    }
+
+    // Read each tablet's vertices on its own thread.
+    List<CloseableIterable<Vertex>> splits = graph.getVertexSplits();
+    assertEquals(5, splits.size());
+    ExecutorService pool = Executors.newFixedThreadPool(splits.size());
+    List<Future<Set<String>>> futures = new ArrayList<Future<Set<String>>>();
+    for (final CloseableIterable<Vertex> split : splits) {
+      futures.add(pool.submit(new Callable<Set<String>>() {
+        @Override
+        public Set<String> call() {
+          try {
+            return ids(split);
+          } finally {
+            split.close();
+          }
+        }
+      }));
+    }
+    pool.shutdown();
+
+    Set<String> all = new HashSet<String>();
+    for (Future<Set<String>> future : futures) {
+      Set<String> ids = future.get();
+      assertTrue(Collections.disjoint(all, ids));
+      all.addAll(ids);
+    }
+    assertEquals(ids(graph.getVertices()), all);
+    // The last tablet, after "x", is empty.
+    assertEquals(0, futures.get(4).get().size());
+
+    all.clear();
+    for (CloseableIterable<Edge> split : graph.getEdgeSplits()) {
+      for (Edge e : split) {
+        assertEquals("next", e.getLabel());
+        assertTrue(all.add(e.getId().toString()));
+      }
+      split.close();
+    }
+    assertEquals(19, all.size());
+
+    graph.shutdown();
+  }
+
+  private static Set<String> ids(Iterable<? extends Element> elements) {
+    Set<String> ids = new HashSet<String>();
+    for (Element element : elements) {
+      ids.add(element.getId().toString());
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,333 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.user.RegExFilter;
+import org.apache.log4j.Logger;
+import org.junit.Test;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import edu.jhuapl.tinkerpop.cache.OffHeapPropertyStore;
+import edu.jhuapl.tinkerpop.cache.PropertyCache;
+import edu.jhuapl.tinkerpop.iterators.EdgeLabelFilter;
+
+/**
+ * Timing comparisons of optimized code paths with the code
+ * they replaced. These take a while and assert nothing about
+ * performance, so are not run with the unit tests. Run them with
+ * <pre>mvn test -Pbenchmark</pre>
+ * and compare the logged results.
+ */
+public class PerformanceBenchmark {
+
+  private static final Logger log = Logger.getLogger(PerformanceBenchmark.class);
+
+  /**
+   * Compare {@link EdgeLabelFilter} with the
+   * {@link RegExFilter} it replaced.
+   */
+  @Test
+  public void testEdgeLabelFilterVersusRegex() throws Exception {
+    String[] labels = {"knows", "created", "likes", "a.b"};
+    SortedMap<Key, Value> entries = new TreeMap<Key, Value>();
+    for (int i = 0; i < 200000; i++) {
+      entries.put(new Key("vertex", Constants.OUT_EDGE,
+          String.format("v%08d", i) + Constants.ID_DELIM + "e" + i),
+          new Value((Constants.ID_DELIM + labels[i % labels.length]).getBytes()));
+    }
+
+    // Warm up both.
+    for (int i = 0; i < 3; i++) {
+      assertEquals(count(regexFilter(entries, "knows", "a.b")),
+          count(edgeLabelFilter(entries, "knows", "a.b")));
+    }
+
+    long regexTime = 0;
+    long labelTime = 0;
+    for (int i = 0; i < 5; i++) {
+      long start = System.nanoTime();
+      count(regexFilter(entries, "knows", "a.b"));
+      regexTime += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      count(edgeLabelFilter(entries, "knows", "a.b"));
+      labelTime += System.nanoTime() - start;
+    }
+
+    log.info("Label filtering of " + entries.size() + " entries x5: "
+        + "RegExFilter " + regexTime / 1000000 + " ms, "
+        + "EdgeLabelFilter " + labelTime / 1000000 + " ms");
+  }
+
+  private static Filter edgeLabelFilter(SortedMap<Key, Value> entries,
+      String... labels) throws Exception {
+    IteratorSetting is = new IteratorSetting(10, EdgeLabelFilter.class);
+    EdgeLabelFilter.setLabels(is, labels);
+
+    Filter filter = new EdgeLabelFilter();
+    filter.init(new SortedMapIterator(entries), is.getOptions(), null);
+    return filter;
+  }
+
+  /**
+   * The regular expression formerly used for label filtering.
+   */
+  private static Filter regexFilter(SortedMap<Key, Value> entries,
+      String... labels) throws Exception {
+    StringBuilder regex = new StringBuilder();
+    for (String lab : labels) {
+      if (regex.length() != 0)
+        regex.append("|");
+      regex.append(".*"+Constants.ID_DELIM+"\\Q").append(lab).append("\\E$");
+    }
+
+    IteratorSetting is = new IteratorSetting(10, RegExFilter.class);
+    RegExFilter.setRegexs(is, null, null, null, regex.toString(), false);
+
+    Filter filter = new RegExFilter();
+    filter.init(new SortedMapIterator(entries), is.getOptions(), null);
+    return filter;
+  }
+
+  private static int count(Filter filter) throws Exception {
+    filter.seek(new Range(), Collections.<ByteSequence>emptySet(), false);
+    int count = 0;
+    while (filter.hasTop()) {
+      count++;
+      filter.next();
+    }
+    return count;
+  }
+
+  /**
+   * Compare the memory use and read speed of {@link PropertyCache}
+   * with the map-based cache it replaced.
+   */
+  @Test
+  public void testPropertyCacheVersusMap() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("footprint");
+    cfg.setPropertyCacheTimeout(null, 60000);
+
+    String[] names = {"name", "age", "city", "created", "weight"};
+    int elements = 50000;
+
+    // Keys are copied per element, as when decoded from Accumulo.
+    long before = usedMemory();
+    Object[] maps = new Object[elements];
+    for (int i = 0; i < elements; i++) {
+      MapPropertyCache cache = new MapPropertyCache(cfg);
+      for (String name : names) {
+        cache.put(new String(name), i);
+      }
+      maps[i] = cache;
+    }
+    long mapBytes = usedMemory() - before;
+
+    before = usedMemory();
+    PropertyCache[] caches = new PropertyCache[elements];
+    for (int i = 0; i < elements; i++) {
+      caches[i] = new PropertyCache(cfg);
+      for (String name : names) {
+        caches[i].put(new String(name), i);
+      }
+    }
+    long compactBytes = usedMemory() - before;
+
+    // Warm up both.
+    for (int i = 0; i < 3; i++) {
+      assertEquals(readMaps(maps, names), readCaches(caches, names));
+    }
+
+    long mapTime = 0;
+    long compactTime = 0;
+    for (int i = 0; i < 5; i++) {
+      long start = System.nanoTime();
+      readMaps(maps, names);
+      mapTime += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      readCaches(caches, names);
+      compactTime += System.nanoTime() - start;
+    }
+
+    log.info("Property caches for " + elements + " elements x"
+        + names.length + " properties: HashMap "
+        + mapBytes / elements + " bytes/element, "
+        + mapTime / 1000000 + " ms for 5 reads; PropertyCache "
+        + compactBytes / elements + " bytes/element, "
+        + compactTime / 1000000 + " ms for 5 reads");
+  }
+
+  private static long readMaps(Object[] maps, String[] names) {
+    long sum = 0;
+    for (Object map : maps) {
+      for (String name : names) {
+        sum += (Integer) ((MapPropertyCache) map).get(name);
+      }
+    }
+    return sum;
+  }
+
+  private static long readCaches(PropertyCache[] caches, String[] names) {
+    long sum = 0;
+    for (PropertyCache cache : caches) {
+      for (String name : names) {
+        sum += cache.<Integer>get(name);
+      }
+    }
+    return sum;
+  }
+
+  private static long usedMemory() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * The map-based cache which {@link PropertyCache} replaced,
+   * for comparison.
+   */
+  private static class MapPropertyCache {
+    private final AccumuloGraphConfiguration cfg;
+    private final Map<String, TimedValue> values = new HashMap<String, TimedValue>();
+
+    MapPropertyCache(AccumuloGraphConfiguration cfg) {
+      this.cfg = cfg;
+    }
+
+    void put(String key, Object value) {
+      values.put(key, new TimedValue(value, System.currentTimeMillis()
+          + cfg.getPropertyCacheTimeout(null)));
+    }
+
+    Object get(String key) {
+      TimedValue val = values.get(key);
+      if (val != null) {
+        if (val.expiry <= System.currentTimeMillis()) {
+          values.remove(key);
+          return null;
+        }
+        return val.value;
+      }
+      return null;
+    }
+  }
+
+  private static class TimedValue {
+    private final Object value;
+    private final Long expiry;
+
+    TimedValue(Object value, Long expiry) {
+      this.value = value;
+      this.expiry = expiry;
+    }
+  }
+
+  /**
+   * Compare garbage collection time and hit latency of
+   * {@link OffHeapPropertyStore} with a heap cache.
+   */
+  @Test
+  public void testOffHeapVersusHeap() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("offHeapBenchmark");
+    cfg.setPropertyCacheTimeout(null, 600000);
+
+    int elements = 200000;
+    String[] names = {"name", "age", "city", "created", "weight"};
+
+    Cache<String, PropertyCache> heap = CacheBuilder.newBuilder().build();
+    for (int i = 0; i < elements; i++) {
+      heap.put("v" + i, properties(cfg, names, i));
+    }
+    long heapGc = gcTime();
+    long start = System.nanoTime();
+    for (int i = 0; i < elements; i++) {
+      assertEquals(i, heap.getIfPresent("v" + i).get("age"));
+    }
+    long heapHit = (System.nanoTime() - start) / elements;
+    heap.invalidateAll();
+    heap = null;
+    gcTime();
+
+    OffHeapPropertyStore offHeap = new OffHeapPropertyStore(64L * 1024 * 1024);
+    for (int i = 0; i < elements; i++) {
+      offHeap.put("v" + i, properties(cfg, names, i).serialize());
+    }
+    long offHeapGc = gcTime();
+    start = System.nanoTime();
+    for (int i = 0; i < elements; i++) {
+      assertEquals(i, PropertyCache.deserialize(cfg, offHeap.take("v" + i)).get("age"));
+    }
+    long offHeapHit = (System.nanoTime() - start) / elements;
+
+    log.info("Property caches for " + elements + " elements x"
+        + names.length + " properties: heap " + heapGc + " ms GC, "
+        + heapHit + " ns/hit; off-heap " + offHeapGc + " ms GC, "
+        + offHeapHit + " ns/hit");
+  }
+
+  private static PropertyCache properties(AccumuloGraphConfiguration cfg,
+      String[] names, int i) {
+    PropertyCache cache = new PropertyCache(cfg);
+    for (String name : names) {
+      cache.put(name, name.equals("age") ? i : name + " " + i);
+    }
+    return cache;
+  }
+
+  /**
+   * Run full collections and return the time they took.
+   */
+  private static long gcTime() {
+    long before = totalGcTime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return totalGcTime() - before;
+  }
+
+  private static long totalGcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0, gc.getCollectionTime());
+    }
+    return time;
+  }
+}
@@ -84,4 +84,30 @@ public class PropertyCacheTest {
     Thread.sleep(1000);
     assertNull(cache.get("longer"));
   }
+
+  @Test
+  public void testSizeChanges() throws Exception {
+    AccumuloGraphConfiguration cfg =
+        AccumuloGraphTestUtils.generateGraphConfig("sizeChanges");
+    cfg.setPropertyCacheTimeout(null, 10000);
+    cfg.setMissingPropertyCacheTimeout(10000);
+
+    PropertyCache cache = new PropertyCache(cfg);
+    assertTrue(cache.put("K1", "V1"));
+    // Rereading a cached value doesn't change the size.
+    assertFalse(cache.put("K1", "V1"));
+    assertFalse(cache.put("K1", "V2"));
+    assertTrue(cache.put("K1", "longer value"));
+
+    assertTrue(cache.putAbsent("K2"));
+    assertFalse(cache.putAbsent("K2"));
+    assertTrue(cache.put("K2", "V2"));
+
+    assertTrue(cache.putKeys(cache.keySet()));
+    assertTrue(cache.put("K3", 3));
+    assertFalse(cache.put("K3", 4));
+
+    assertTrue(cache.remove("K1"));
+    assertFalse(cache.remove("K1"));
+  }
 }
@@ -0,0 +1,101 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.apache.accumulo.core.client.admin.TableOperations;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.GraphFactory;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Tests for {@link TableProvisioning}.
+ */
+public class TableProvisioningTest {
+
+  @Test
+  public void testProvisioning() throws Exception {
+    AccumuloGraphConfiguration cfg = AccumuloGraphTestUtils
+        .generateGraphConfig("testProvisioning")
+        .setTableLocalityGroups(true).setTableBloomFilters(true)
+        .setTableCompression("snappy");
+    AccumuloGraph graph = (AccumuloGraph) GraphFactory.open(cfg);
+    graph.createIndex("named", Vertex.class);
+    TableOperations tableOps = cfg.getConnector().tableOperations();
+
+    Map<String, Set<Text>> groups = tableOps.getLocalityGroups(cfg.getVertexTableName());
+    assertEquals(1, groups.size());
+    assertTrue(groups.get(TableProvisioning.EDGE_LOCALITY_GROUP)
+        .contains(new Text(Constants.OUT_EDGE)));
+    assertTrue(tableOps.getLocalityGroups(cfg.getEdgeTableName()).isEmpty());
+
+    assertEquals("true", property(cfg, cfg.getVertexTableName(), Property.TABLE_BLOOM_ENABLED));
+    assertEquals("true", property(cfg, cfg.getEdgeKeyIndexTableName(), Property.TABLE_BLOOM_ENABLED));
+    assertEquals("true", property(cfg, cfg.getNamedIndexTableName("named"),
+        Property.TABLE_BLOOM_ENABLED));
+    assertEquals("false", property(cfg, cfg.getIndexMetadataTableName(),
+        Property.TABLE_BLOOM_ENABLED));
+    assertEquals("snappy", property(cfg, cfg.getEdgeTableName(),
+        Property.TABLE_FILE_COMPRESSION_TYPE));
+    assertEquals("false", property(cfg, cfg.getEdgeTableName(),
+        Property.TABLE_BLOCKCACHE_ENABLED));
+
+    // Reads are unaffected.
+    Vertex v = graph.addVertex("A");
+    v.setProperty("name", "A");
+    graph.addEdge("E", v, graph.addVertex("B"), "knows");
+    assertEquals("A", graph.getVertex("A").getProperty("name"));
+    assertEquals(1, v.getPropertyKeys().size());
+    graph.shutdown();
+
+    // Reapply to the existing graph.
+    AccumuloGraphConfiguration changed = cfg.clone().setCreate(false)
+        .setTableLocalityGroups(false).setTableBlockCache(true);
+    TableProvisioning.apply(changed, true);
+    assertTrue(tableOps.getLocalityGroups(cfg.getVertexTableName()).isEmpty());
+    assertEquals("true", property(cfg, cfg.getVertexTableName(),
+        Property.TABLE_BLOCKCACHE_ENABLED));
+    assertEquals("true", property(cfg, cfg.getNamedIndexTableName("named"),
+        Property.TABLE_BLOCKCACHE_ENABLED));
+
+    try {
+      changed.setTableCompression(" ");
+      fail();
+    } catch (IllegalArgumentException e) { }
+  }
+
+  /**
+   * Return the table's value of the given property.
+   */
+  private static String property(AccumuloGraphConfiguration cfg,
+      String table, Property property) throws Exception {
+    String value = null;
+    for (Entry<String, String> entry : cfg.getConnector()
+        .tableOperations().getProperties(table)) {
+      if (entry.getKey().equals(property.getKey())) {
+        value = entry.getValue();
+      }
+    }
+    return value;
+  }
+}
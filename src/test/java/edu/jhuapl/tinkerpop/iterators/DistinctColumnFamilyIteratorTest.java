@@ -0,0 +1,90 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+
+import edu.jhuapl.tinkerpop.Constants;
+
+/**
+ * Tests for {@link DistinctColumnFamilyIterator}.
+ */
+public class DistinctColumnFamilyIteratorTest {
+
+  @Test
+  public void testDistinctFamilies() throws Exception {
+    SortedMap<Key, Value> entries = new TreeMap<Key, Value>();
+    for (String row : new String[]{"A", "B"}) {
+      entries.put(new Key(row, Constants.LABEL, Constants.EXISTS), new Value());
+      entries.put(new Key(row, "age", ""), new Value());
+      entries.put(new Key(row, "name", ""), new Value());
+      for (int i = 0; i < 1000; i++) {
+        entries.put(new Key(row, Constants.IN_EDGE, "v" + i), new Value());
+        entries.put(new Key(row, Constants.OUT_EDGE, "v" + i), new Value());
+      }
+    }
+    entries.put(new Key("B", "name", "extra"), new Value());
+    entries.put(new Key("B", "\u00fcber", ""), new Value());
+    entries.put(new Key("C", Constants.OUT_EDGE, "v1"), new Value());
+
+    SortedKeyValueIterator<Key, Value> iter = iterator(entries,
+        Constants.LABEL, Constants.IN_EDGE, Constants.OUT_EDGE, "\u00fcber");
+    assertEquals("[A age, A name, B age, B name]", scan(iter, new Range()).toString());
+    assertEquals("[B age, B name]", scan(iter, new Range("B")).toString());
+    assertEquals("[]", scan(iter, new Range("C")).toString());
+    assertEquals("[A name]", scan(iter.deepCopy(null),
+        new Range(new Key("A", "age", "x"), true, new Key("A", "zzz"), false)).toString());
+
+    iter = iterator(entries);
+    assertEquals("[A " + Constants.IN_EDGE + ", A " + Constants.LABEL + ", A "
+        + Constants.OUT_EDGE + ", A age, A name]", scan(iter, new Range("A")).toString());
+  }
+
+  private static SortedKeyValueIterator<Key, Value> iterator(
+      SortedMap<Key, Value> entries, String... excluded) throws Exception {
+    IteratorSetting is = new IteratorSetting(10, DistinctColumnFamilyIterator.class);
+    DistinctColumnFamilyIterator.setExcludedFamilies(is, excluded);
+
+    DistinctColumnFamilyIterator iter = new DistinctColumnFamilyIterator();
+    iter.init(new SortedMapIterator(entries), is.getOptions(), null);
+    return iter;
+  }
+
+  private static List<String> scan(SortedKeyValueIterator<Key, Value> iter,
+      Range range) throws Exception {
+    iter.seek(range, Collections.<ByteSequence>emptySet(), false);
+    List<String> families = new ArrayList<String>();
+    while (iter.hasTop()) {
+      families.add(iter.getTopKey().getRow() + " " + iter.getTopKey().getColumnFamily());
+      iter.next();
+    }
+    return families;
+  }
+}
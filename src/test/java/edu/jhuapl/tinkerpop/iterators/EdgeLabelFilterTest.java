@@ -0,0 +1,85 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.iterators;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.Filter;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Test;
+
+import edu.jhuapl.tinkerpop.AdjacencyLayout;
+import edu.jhuapl.tinkerpop.Constants;
+import edu.jhuapl.tinkerpop.KeyEncoding;
+
+/**
+ * Tests for {@link EdgeLabelFilter}.
+ */
+public class EdgeLabelFilterTest {
+
+  @Test
+  public void testFilter() throws Exception {
+    SortedMap<Key, Value> entries = new TreeMap<Key, Value>();
+    String[] labels = {"knows", "unknows", "knowsmore", "a.b", "axb", "", "created"};
+    for (int i = 0; i < labels.length; i++) {
+      entries.put(key(i), new Value((Constants.ID_DELIM + labels[i]).getBytes()));
+    }
+    entries.put(key(100), new Value("knows".getBytes()));
+    entries.put(key(101), new Value(AdjacencyLayout.getValue(KeyEncoding.BINARY, "likes")));
+    entries.put(key(102), new Value(AdjacencyLayout.getValue(KeyEncoding.BINARY, "\u00fcber")));
+
+    assertEquals(1, count(edgeLabelFilter(entries, "knows")));
+    assertEquals(2, count(edgeLabelFilter(entries, "knows", "created")));
+    assertEquals(1, count(edgeLabelFilter(entries, "a.b")));
+    assertEquals(1, count(edgeLabelFilter(entries, "")));
+    assertEquals(0, count(edgeLabelFilter(entries, "missing")));
+    assertEquals(2, count(edgeLabelFilter(entries, "likes", "a.b")));
+    assertEquals(1, count(edgeLabelFilter(entries, "\u00fcber")));
+  }
+
+  private static Filter edgeLabelFilter(SortedMap<Key, Value> entries,
+      String... labels) throws Exception {
+    IteratorSetting is = new IteratorSetting(10, EdgeLabelFilter.class);
+    EdgeLabelFilter.setLabels(is, labels);
+
+    Filter filter = new EdgeLabelFilter();
+    filter.init(new SortedMapIterator(entries), is.getOptions(), null);
+    return filter;
+  }
+
+  private static Key key(int i) {
+    return new Key("vertex", Constants.OUT_EDGE,
+        String.format("v%08d", i) + Constants.ID_DELIM + "e" + i);
+  }
+
+  private static int count(Filter filter) throws Exception {
+    filter.seek(new Range(), Collections.<ByteSequence>emptySet(), false);
+    int count = 0;
+    while (filter.hasTop()) {
+      count++;
+      filter.next();
+    }
+    return count;
+  }
+}
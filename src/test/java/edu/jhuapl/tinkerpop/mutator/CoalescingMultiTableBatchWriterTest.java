@@ -0,0 +1,183 @@
+/* Copyright 2014 The Johns Hopkins University Applied Physics Laboratory
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.jhuapl.tinkerpop.mutator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CoalescingMultiTableBatchWriter}.
+ */
+public class CoalescingMultiTableBatchWriterTest {
+
+  @Test
+  public void testCoalescing() throws Exception {
+    Connector connector = connector("testCoalescing", "t1", "t2");
+    CoalescingMultiTableBatchWriter mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(new BatchWriterConfig()), 1024 * 1024, 0);
+    BatchWriter t1 = mtbw.getBatchWriter("t1");
+    BatchWriter t2 = mtbw.getBatchWriter("t2");
+    assertSame(t1, mtbw.getBatchWriter("t1"));
+
+    t1.addMutation(put("r1", "a", "1"));
+    t1.addMutation(put("r1", "b", "2"));
+    t1.addMutation(put("r2", "a", "3"));
+    t2.addMutation(put("r1", "a", "4"));
+    t1.addMutation(put("r1", "c", "5"));
+    assertEquals(0, mtbw.getMutationsWritten());
+    assertEquals(0, scan(connector, "t1").size());
+
+    mtbw.flush();
+    assertEquals(5, mtbw.getMutationsAdded());
+    assertEquals(3, mtbw.getMutationsWritten());
+    assertEquals(5.0 / 3, mtbw.getCoalescingRatio(), 0.001);
+    assertEquals("[r1 a:1, r1 b:2, r1 c:5, r2 a:3]", scan(connector, "t1").toString());
+    assertEquals("[r1 a:4]", scan(connector, "t2").toString());
+
+    mtbw.close();
+  }
+
+  @Test
+  public void testConflictingUpdates() throws Exception {
+    Connector connector = connector("testConflictingUpdates", "t");
+    CoalescingMultiTableBatchWriter mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(new BatchWriterConfig()), 1024 * 1024, 0);
+    BatchWriter writer = mtbw.getBatchWriter("t");
+
+    // Updates to the same column are not merged.
+    writer.addMutation(put("r", "a", "1"));
+    Mutation delete = new Mutation("r");
+    delete.putDelete("a", "");
+    writer.addMutation(delete);
+    writer.addMutation(put("r", "b", "2"));
+    assertEquals(1, mtbw.getMutationsWritten());
+    mtbw.flush();
+    assertEquals(2, mtbw.getMutationsWritten());
+    assertEquals("[r b:2]", scan(connector, "t").toString());
+
+    mtbw.close();
+  }
+
+  @Test
+  public void testMaxMemory() throws Exception {
+    Connector connector = connector("testMaxMemory", "t");
+    CoalescingMultiTableBatchWriter mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(new BatchWriterConfig()), 1, 0);
+    BatchWriter writer = mtbw.getBatchWriter("t");
+
+    writer.addMutation(put("r", "a", "1"));
+    writer.addMutation(put("r", "b", "2"));
+    assertEquals(2, mtbw.getMutationsWritten());
+    mtbw.close();
+    assertEquals(2, scan(connector, "t").size());
+
+    // Disabled.
+    mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(new BatchWriterConfig()), 0, 0);
+    mtbw.getBatchWriter("t").addMutation(put("r", "c", "3"));
+    assertEquals(1, mtbw.getMutationsWritten());
+    mtbw.close();
+  }
+
+  @Test
+  public void testTableFlush() throws Exception {
+    Connector connector = connector("testTableFlush", "t1", "t2");
+    Mutation m = put("r", "a", "1");
+    // Room for three mutations.
+    CoalescingMultiTableBatchWriter mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(new BatchWriterConfig()),
+        3 * m.numBytes(), 0);
+    BatchWriter t1 = mtbw.getBatchWriter("t1");
+    BatchWriter t2 = mtbw.getBatchWriter("t2");
+
+    t1.addMutation(put("r", "a", "1"));
+    t1.addMutation(put("r", "b", "2"));
+    t1.flush();
+    assertEquals(1, mtbw.getMutationsWritten());
+
+    // Bytes flushed from t1 no longer count towards the maximum.
+    t2.addMutation(put("r", "a", "1"));
+    t2.addMutation(put("r", "b", "2"));
+    assertEquals(1, mtbw.getMutationsWritten());
+    t2.addMutation(put("r", "c", "3"));
+    assertEquals(2, mtbw.getMutationsWritten());
+    assertEquals(3, scan(connector, "t2").size());
+
+    mtbw.close();
+  }
+
+  @Test
+  public void testMaxLatency() throws Exception {
+    Connector connector = connector("testMaxLatency", "t");
+    CoalescingMultiTableBatchWriter mtbw = new CoalescingMultiTableBatchWriter(
+        connector.createMultiTableBatchWriter(new BatchWriterConfig()), 1024 * 1024, 50);
+    BatchWriter writer = mtbw.getBatchWriter("t");
+
+    // Written without further adds or a flush.
+    long start = System.currentTimeMillis();
+    writer.addMutation(put("r", "a", "1"));
+    writer.addMutation(put("r", "b", "2"));
+    while (mtbw.getMutationsWritten() == 0 &&
+        System.currentTimeMillis() - start < 5000) {
+      Thread.sleep(5);
+    }
+    long elapsed = System.currentTimeMillis() - start;
+    assertEquals(1, mtbw.getMutationsWritten());
+    assertTrue("Written after " + elapsed + " ms", elapsed < 1000);
+
+    mtbw.close();
+    assertEquals(2, scan(connector, "t").size());
+  }
+
+  private static Connector connector(String instance, String... tables) throws Exception {
+    Connector connector = new MockInstance(instance)
+      .getConnector("root", new PasswordToken(""));
+    for (String table : tables) {
+      connector.tableOperations().create(table);
+    }
+    return connector;
+  }
+
+  private static Mutation put(String row, String cf, String value) {
+    Mutation m = new Mutation(row);
+    m.put(cf, "", value);
+    return m;
+  }
+
+  private static List<String> scan(Connector connector, String table) throws Exception {
+    Scanner scan = connector.createScanner(table, new Authorizations());
+    List<String> entries = new ArrayList<String>();
+    for (Entry<Key, Value> entry : scan) {
+      entries.add(entry.getKey().getRow() + " " +
+          entry.getKey().getColumnFamily() + ":" + entry.getValue());
+    }
+    return entries;
+  }
+}